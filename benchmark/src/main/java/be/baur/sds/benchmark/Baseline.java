@@ -0,0 +1,183 @@
+package be.baur.sds.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares benchmark results against a baseline. A result is a regression if
+ * it is worse than the baseline by more than the tolerance (a fraction, 0.05
+ * by default), and the difference exceeds the combined score errors, so that
+ * noisy benchmarks do not raise false alarms. The allocation rate is compared
+ * in the same way, where less is better, if both runs measured it. For example:
+ *
+ * <pre>
+ * java -cp benchmarks.jar be.baur.sds.benchmark.Baseline baseline.json results.json 10
+ * </pre>
+ *
+ * compares the results of a run against a baseline with a tolerance of 10%.
+ * Both files may be baselines saved by {@link BenchmarkMain} or JMH result
+ * files. The exit status is 1 if there are regressions.
+ */
+public final class Baseline {
+
+	/** The default tolerance, as a fraction of the baseline score. */
+	public static final double DEFAULT_TOLERANCE = 0.05;
+
+	/** A difference in allocation that is ignored, in bytes per operation; JMH reports a fraction even without allocation. */
+	private static final double ALLOCATION_NOISE = 1;
+
+	private Baseline() {} // cannot construct this
+
+
+	/** The outcome of a comparison for a single benchmark. */
+	public enum Status { REGRESSION, IMPROVEMENT, UNCHANGED, NEW, MISSING }
+
+
+	/** The comparison of a single benchmark result with its baseline. */
+	public static final class Entry {
+
+		private final String key;
+		private final BenchmarkResult baseline, current; // either one may be null
+		private final double change; // relative change, positive is better
+		private final Status status;
+
+		private Entry(String key, BenchmarkResult baseline, BenchmarkResult current, double tolerance) {
+			this.key = key; this.baseline = baseline; this.current = current;
+			if (baseline == null || current == null) {
+				change = Double.NaN; status = (baseline == null) ? Status.NEW : Status.MISSING;
+				return;
+			}
+			double delta = current.getScore() - baseline.getScore();
+			if (! current.isHigherBetter()) delta = -delta;
+			change = (baseline.getScore() == 0) ? Double.NaN : delta / baseline.getScore(); // no relative change from zero
+			double noise = error(baseline) + error(current);
+			if (BenchmarkResult.ALLOCATION.equals(current.getMetric())) noise = Math.max(noise, ALLOCATION_NOISE);
+			if (Math.abs(change) <= tolerance || Math.abs(delta) <= noise) status = Status.UNCHANGED;
+			else status = (delta < 0) ? Status.REGRESSION : Status.IMPROVEMENT;
+		}
+
+		private static double error(BenchmarkResult r) {
+			return Double.isNaN(r.getError()) ? 0 : r.getError();
+		}
+
+		/** Returns the key of the benchmark result. */
+		public String getKey() { return key; }
+
+		/** Returns the status of the comparison. */
+		public Status getStatus() { return status; }
+
+		/** Returns the relative change, positive if the result improved, NaN if unknown. */
+		public double getChange() { return change; }
+
+		/** Returns the scenario of the result, or null if it has none. */
+		public String getScenario() {
+			return (current != null ? current : baseline).getScenario();
+		}
+
+		/** Returns true if this is the comparison of a primary result, rather than of the allocation rate. */
+		public boolean isPrimary() {
+			return (current != null ? current : baseline).getMetric() == null;
+		}
+
+		@Override
+		public String toString() {
+			if (status == Status.NEW) return String.format("%-11s %s: %.3f %s", status, key, current.getScore(), current.getUnit());
+			if (status == Status.MISSING) return String.format("%-11s %s", status, key);
+			return String.format("%-11s %s: %.3f -> %.3f %s", status, key, baseline.getScore(), current.getScore(),
+				current.getUnit()) + (Double.isNaN(change) ? "" : String.format(" (%+.1f%%)", 100 * change));
+		}
+	}
+
+
+	/** The result of a comparison. */
+	public static final class Report {
+
+		private final List<Entry> entries;
+		private final double tolerance;
+
+		private Report(List<Entry> entries, double tolerance) {
+			this.entries = Collections.unmodifiableList(entries); this.tolerance = tolerance;
+		}
+
+		/** Returns the comparison for each benchmark, in the order of the current run. */
+		public List<Entry> getEntries() { return entries; }
+
+		/** Returns the number of regressions. */
+		public long regressions() {
+			return entries.stream().filter(e -> e.status == Status.REGRESSION).count();
+		}
+
+		/**
+		 * Returns a summary with one line per result, followed by one line per
+		 * scenario with the number of regressions and the geometric mean change
+		 * of the primary results.
+		 */
+		@Override
+		public String toString() {
+
+			StringBuilder sb = new StringBuilder();
+			sb.append(String.format("Comparison with baseline (tolerance %.1f%%)%n", 100 * tolerance));
+			for (Entry e : entries) sb.append(e).append(System.lineSeparator());
+
+			Map<String, List<Entry>> scenarios = new TreeMap<>();
+			for (Entry e : entries) {
+				if (e.getScenario() != null)
+					scenarios.computeIfAbsent(e.getScenario(), s -> new ArrayList<>()).add(e);
+			}
+			if (! scenarios.isEmpty()) sb.append(String.format("%nPer scenario%n"));
+			scenarios.forEach((scenario, list) -> {
+				long regressions = list.stream().filter(e -> e.status == Status.REGRESSION).count();
+				double logs = 0; int n = 0;
+				for (Entry e : list) 
+					if (e.isPrimary() && ! Double.isNaN(e.change) && e.change > -1) { logs += Math.log1p(e.change); ++n; }
+				sb.append(String.format("%-12s %d benchmarks, %d regressions, mean change %+.1f%%%n",
+					scenario, list.stream().filter(Entry::isPrimary).count(), regressions, n == 0 ? 0 : 100 * Math.expm1(logs / n)));
+			});
+			sb.append(String.format("%n%d regression(s) in %d benchmark(s)%n", regressions(), entries.stream().filter(Entry::isPrimary).count()));
+			return sb.toString();
+		}
+	}
+
+
+	/**
+	 * Compares results with a baseline.
+	 *
+	 * @param baseline  the baseline results
+	 * @param current   the results to compare
+	 * @param tolerance the tolerated change, as a fraction of the baseline score
+	 * @return a comparison report
+	 */
+	public static Report compare(List<BenchmarkResult> baseline, List<BenchmarkResult> current, double tolerance) {
+
+		Map<String, BenchmarkResult> base = new LinkedHashMap<>();
+		for (BenchmarkResult r : baseline) base.put(r.key(), r);
+
+		List<Entry> entries = new ArrayList<>();
+		for (BenchmarkResult r : current)
+			entries.add(new Entry(r.key(), base.remove(r.key()), r, tolerance));
+		for (BenchmarkResult r : base.values())
+			entries.add(new Entry(r.key(), r, null, tolerance));
+		return new Report(entries, tolerance);
+	}
+
+
+	public static void main(String[] args) throws Exception {
+
+		if (args.length < 2 || args.length > 3) {
+			System.err.println("usage: Baseline <baseline.json> <results.json> [tolerance%]");
+			System.exit(2);
+		}
+		double tolerance = (args.length == 3) ? Double.parseDouble(args[2]) / 100 : DEFAULT_TOLERANCE;
+		Path baseline = Paths.get(args[0]), results = Paths.get(args[1]);
+
+		Report report = compare(BenchmarkResult.read(baseline), BenchmarkResult.read(results), tolerance);
+		System.out.print(report);
+		if (report.regressions() > 0) System.exit(1);
+	}
+}
@@ -0,0 +1,74 @@
+package be.baur.sds.benchmark;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the GC profiler enabled, so that the allocation rate
+ * (gc.alloc.rate.norm, in bytes per operation) is reported alongside throughput.
+ * Accepts the usual JMH command line options, for example:
+ *
+ * <pre>
+ * java -jar benchmarks.jar ValidatorBenchmark -p scale=1000 -rf json
+ * </pre>
+ *
+ * In addition, the results can be saved as a baseline, and compared against a
+ * previously saved baseline:
+ *
+ * <pre>
+ * java -jar benchmarks.jar -save baseline.json
+ * java -jar benchmarks.jar -baseline baseline.json -tolerance 10
+ * </pre>
+ *
+ * The tolerance is a percentage, 5 by default. The exit status is 1 if there
+ * are regressions.
+ *
+ * @see Baseline
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() {} // cannot construct this
+
+	public static void main(String[] args) throws Exception {
+
+		Path save = null, baseline = null;
+		double tolerance = Baseline.DEFAULT_TOLERANCE;
+
+		List<String> jmh = new ArrayList<>(); // the options for JMH
+		for (int i = 0; i < args.length; i++) {
+			switch (args[i]) {
+				case "-save": save = Paths.get(value(args, ++i)); break;
+				case "-baseline": baseline = Paths.get(value(args, ++i)); break;
+				case "-tolerance": tolerance = Double.parseDouble(value(args, ++i)) / 100; break;
+				default: jmh.add(args[i]);
+			}
+		}
+
+		Options options = new OptionsBuilder()
+			.parent(new CommandLineOptions(jmh.toArray(new String[0])))
+			.addProfiler(GCProfiler.class)
+			.build();
+		List<BenchmarkResult> results = BenchmarkResult.of(new Runner(options).run());
+
+		if (save != null) 
+			BenchmarkResult.write(save, results);
+		if (baseline != null) {
+			Baseline.Report report = Baseline.compare(BenchmarkResult.read(baseline), results, tolerance);
+			System.out.println(); System.out.print(report);
+			if (report.regressions() > 0) System.exit(1);
+		}
+	}
+
+	private static String value(String[] args, int i) {
+		if (i >= args.length) throw new IllegalArgumentException(args[i - 1] + " requires a value");
+		return args[i];
+	}
+}
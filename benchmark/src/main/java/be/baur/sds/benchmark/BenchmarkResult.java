@@ -0,0 +1,211 @@
+package be.baur.sds.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+/**
+ * The primary result of a single benchmark, with a specific set of parameters,
+ * or its allocation rate as reported by the GC profiler. Results can be saved
+ * to and read from a baseline file in JSON format. The JSON output of JMH
+ * itself ({@code -rf json}) can be read as well.
+ */
+public final class BenchmarkResult {
+
+	/** The secondary metric for the allocation rate, in bytes per operation. */
+	public static final String ALLOCATION = "gc.alloc.rate.norm";
+
+	private final String benchmark; // fully qualified benchmark method
+	private final String metric; // secondary metric, null for the primary result
+	private final String mode; // short JMH mode label, like thrpt or avgt
+	private final SortedMap<String, String> params;
+	private final double score, error;
+	private final String unit;
+
+
+	BenchmarkResult(String benchmark, String metric, String mode, Map<String, String> params, double score, double error, String unit) {
+		this.benchmark = benchmark; this.metric = metric; this.mode = mode;
+		this.params = Collections.unmodifiableSortedMap(new TreeMap<>(params));
+		this.score = score; this.error = error; this.unit = unit;
+	}
+
+
+	BenchmarkResult(String benchmark, String mode, Map<String, String> params, double score, double error, String unit) {
+		this(benchmark, null, mode, params, score, error, unit);
+	}
+
+
+	/** Returns the name of the benchmark, like ValidatorBenchmark.validate. */
+	public String getBenchmark() {
+		int i = benchmark.lastIndexOf('.', benchmark.lastIndexOf('.') - 1);
+		return benchmark.substring(i + 1);
+	}
+
+	/** Returns the secondary metric, like gc.alloc.rate.norm, or null if this is the primary result. */
+	public String getMetric() { return metric; }
+
+	/** Returns the benchmark mode, like thrpt or avgt. */
+	public String getMode() { return mode; }
+
+	/** Returns the benchmark parameters, sorted by name. */
+	public SortedMap<String, String> getParams() { return params; }
+
+	/** Returns the score. */
+	public double getScore() { return score; }
+
+	/** Returns the score error, NaN if unknown. */
+	public double getError() { return error; }
+
+	/** Returns the unit of the score. */
+	public String getUnit() { return unit; }
+
+	/** Returns the scenario (schema) this result is for, or null if it has none. */
+	public String getScenario() { return params.get("scenario"); }
+
+	/** Returns true if a higher score is better, as it is for throughput but not for allocation. */
+	public boolean isHigherBetter() { return metric == null && mode.equals("thrpt"); }
+
+
+	/**
+	 * Returns a key that identifies this result in a baseline, consisting of the
+	 * benchmark name, the secondary metric if any, the mode and the parameters.
+	 */
+	public String key() {
+		StringBuilder sb = new StringBuilder(getBenchmark());
+		if (metric != null) sb.append(':').append(metric);
+		sb.append(" (").append(mode).append(')');
+		params.forEach((name, value) -> sb.append(' ').append(name).append('=').append(value));
+		return sb.toString();
+	}
+
+
+	@Override
+	public String toString() {
+		return String.format("%s: %.3f +- %.3f %s", key(), score, error, unit);
+	}
+
+
+	/** Converts the results of a JMH run, with the allocation rate if it was measured. */
+	static List<BenchmarkResult> of(Collection<RunResult> runs) {
+		List<BenchmarkResult> results = new ArrayList<>();
+		for (RunResult run : runs) {
+			Map<String, String> params = new TreeMap<>();
+			for (String key : run.getParams().getParamsKeys()) params.put(key, run.getParams().getParam(key));
+			String benchmark = run.getParams().getBenchmark(), mode = run.getParams().getMode().shortLabel();
+			Result<?> primary = run.getPrimaryResult(), allocation = run.getSecondaryResults().get(ALLOCATION);
+			results.add(new BenchmarkResult(benchmark, mode, params, primary.getScore(), primary.getScoreError(), primary.getScoreUnit()));
+			if (allocation != null) results.add(new BenchmarkResult(benchmark, ALLOCATION, mode, params,
+				allocation.getScore(), allocation.getScoreError(), allocation.getScoreUnit()));
+		}
+		return results;
+	}
+
+
+	/**
+	 * Reads results from a baseline file, or from a JMH result file in JSON format.
+	 * The allocation rate is read from a JMH result file if it was measured.
+	 *
+	 * @param file the path of a JSON file
+	 * @return a list of results
+	 * @throws IOException if the file cannot be read or is not a result file
+	 */
+	@SuppressWarnings("unchecked")
+	public static List<BenchmarkResult> read(Path file) throws IOException {
+
+		Object json;
+		try {
+			json = Json.parse(new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+		} catch (IllegalArgumentException e) {
+			throw new IOException(file + ": " + e.getMessage(), e);
+		}
+
+		List<BenchmarkResult> results = new ArrayList<>();
+		try {
+			if (json instanceof List) { // JMH output
+				for (Object o : (List<Object>) json) {
+					Map<String, Object> entry = (Map<String, Object>) o;
+					Map<String, Object> metric = (Map<String, Object>) entry.get("primaryMetric");
+					Map<String, String> params = new TreeMap<>();
+					Object p = entry.get("params");
+					if (p != null) ((Map<String, Object>) p).forEach((k, v) -> params.put(k, String.valueOf(v)));
+					results.add(new BenchmarkResult((String) entry.get("benchmark"), (String) entry.get("mode"), params,
+						number(metric.get("score")), number(metric.get("scoreError")), (String) metric.get("scoreUnit")));
+					Map<String, Object> secondary = (Map<String, Object>) entry.get("secondaryMetrics");
+					Map<String, Object> allocation = (secondary == null) ? null : (Map<String, Object>) secondary.get(ALLOCATION);
+					if (allocation != null) results.add(new BenchmarkResult((String) entry.get("benchmark"), ALLOCATION,
+						(String) entry.get("mode"), params, number(allocation.get("score")), number(allocation.get("scoreError")),
+						(String) allocation.get("scoreUnit")));
+				}
+			}
+			else { // a baseline
+				for (Object o : (List<Object>) ((Map<String, Object>) json).get("results")) {
+					Map<String, Object> entry = (Map<String, Object>) o;
+					Map<String, String> params = new TreeMap<>();
+					((Map<String, Object>) entry.get("params")).forEach((k, v) -> params.put(k, String.valueOf(v)));
+					results.add(new BenchmarkResult((String) entry.get("benchmark"), (String) entry.get("metric"),
+						(String) entry.get("mode"), params, number(entry.get("score")), number(entry.get("error")), (String) entry.get("unit")));
+				}
+			}
+		} catch (ClassCastException | NullPointerException e) {
+			throw new IOException(file + ": not a benchmark result file", e);
+		}
+		return results;
+	}
+
+
+	/** Returns a JSON number as a double, JMH writes NaN as a string. */
+	private static double number(Object value) {
+		if (value instanceof Double) return (Double) value;
+		return Double.NaN;
+	}
+
+
+	/**
+	 * Writes results to a baseline file, along with the time and the Java version.
+	 *
+	 * @param file    the path of the file to write
+	 * @param results the results to save
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path file, List<BenchmarkResult> results) throws IOException {
+
+		StringBuilder sb = new StringBuilder("{\n");
+		sb.append("  \"created\": ").append(Json.quote(Instant.now().toString())).append(",\n");
+		sb.append("  \"java\": ").append(Json.quote(System.getProperty("java.version"))).append(",\n");
+		sb.append("  \"results\": [");
+		String separator = "\n";
+		for (BenchmarkResult r : results) {
+			sb.append(separator).append("    { \"benchmark\": ").append(Json.quote(r.benchmark));
+			if (r.metric != null) sb.append(", \"metric\": ").append(Json.quote(r.metric));
+			sb.append(", \"mode\": ").append(Json.quote(r.mode)).append(", \"params\": {");
+			String ps = " ";
+			for (Map.Entry<String, String> p : r.params.entrySet()) {
+				sb.append(ps).append(Json.quote(p.getKey())).append(": ").append(Json.quote(p.getValue()));
+				ps = ", ";
+			}
+			sb.append(r.params.isEmpty() ? "}" : " }");
+			sb.append(", \"score\": ").append(json(r.score)).append(", \"error\": ").append(json(r.error));
+			sb.append(", \"unit\": ").append(Json.quote(r.unit)).append(" }");
+			separator = ",\n";
+		}
+		sb.append("\n  ]\n}\n");
+		Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+
+	private static String json(double d) {
+		return Double.isNaN(d) || Double.isInfinite(d) ? "\"NaN\"" : Double.toString(d);
+	}
+}
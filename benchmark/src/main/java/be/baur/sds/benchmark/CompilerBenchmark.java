@@ -0,0 +1,90 @@
+package be.baur.sds.benchmark;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.Schema;
+import be.baur.sds.util.DocumentGenerator;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import be.baur.sds.validation.ValidatorCompiler;
+import samples.types.GMonthDayType;
+import samples.types.IBANType;
+
+/**
+ * Compares the interpreted validator with one returned by the
+ * {@code ValidatorCompiler}, for the scenarios whose schema can be compiled.
+ * The documents of the scenarios contain errors, for which the compiled fast
+ * path does not apply, so the {@code valid} case uses a generated document of
+ * roughly the same size without errors instead.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CompilerBenchmark {
+
+	@Param({"ADDRESSBOOK", "CONTACTS", "CARTESIAN"})
+	public Scenario scenario;
+
+	@Param({"1", "100"})
+	public int scale;
+
+	@Param({"false", "true"})
+	public boolean compiled;
+
+	@Param({"false", "true"})
+	public boolean valid;
+
+	private Validator validator;
+	private DataNode document;
+
+	@Setup
+	public void setup() throws Exception {
+		Schema schema = scenario.schema();
+		validator = compiled ? ValidatorCompiler.compile(schema) : schema.newValidator();
+		if (compiled && ! validator.isCompiled())
+			throw new IllegalStateException(scenario + " cannot be compiled");
+		document = scenario.document(scale);
+		if (valid) document = generate(schema, document.getName(), scenario.documentText(scale).length());
+	}
+
+
+	/** Generates a valid document of a specific size for a global type. */
+	private static DataNode generate(Schema schema, String type, long size) throws Exception {
+		StringWriter output = new StringWriter();
+		DocumentGenerator generator = new DocumentGenerator(schema, 42);
+		generator.setValueGenerator(GMonthDayType.NAME, r -> String.format("--%02d-%02d", r.nextInt(12) + 1, r.nextInt(28) + 1));
+		generator.setValueGenerator(IBANType.NAME, r -> "NL91ABNA0417164300");
+		generator.generate(output, type, size);
+		return SDA.parse(new StringReader(output.toString()));
+	}
+
+
+	@Benchmark
+	public Errors validate() {
+		return validator.validate(document);
+	}
+
+	@Benchmark
+	public boolean isValid() {
+		return validator.isValid(document);
+	}
+}
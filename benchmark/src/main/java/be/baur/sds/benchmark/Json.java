@@ -0,0 +1,164 @@
+package be.baur.sds.benchmark;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal JSON reader and writer, just enough for benchmark results; the
+ * benchmark module should run offline and without additional dependencies.
+ * Objects are read as (ordered) maps, arrays as lists, numbers as doubles.
+ */
+final class Json {
+
+	private final String text;
+	private int pos = 0;
+
+	private Json(String text) {
+		this.text = text;
+	}
+
+
+	/**
+	 * Parses a JSON text.
+	 *
+	 * @throws IllegalArgumentException if the text is not valid JSON
+	 */
+	static Object parse(String text) {
+		Json json = new Json(text);
+		Object value = json.value();
+		json.skipWhitespace();
+		if (json.pos < text.length()) throw json.error("unexpected content");
+		return value;
+	}
+
+
+	/** Returns a string as a quoted and escaped JSON string. */
+	static String quote(String s) {
+		StringBuilder sb = new StringBuilder("\"");
+		for (char c : s.toCharArray()) {
+			switch (c) {
+				case '"': sb.append("\\\""); break;
+				case '\\': sb.append("\\\\"); break;
+				case '\n': sb.append("\\n"); break;
+				case '\r': sb.append("\\r"); break;
+				case '\t': sb.append("\\t"); break;
+				default:
+					if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+					else sb.append(c);
+			}
+		}
+		return sb.append('"').toString();
+	}
+
+
+	private Object value() {
+		skipWhitespace();
+		if (pos >= text.length()) throw error("unexpected end");
+		char c = text.charAt(pos);
+		switch (c) {
+			case '{': return object();
+			case '[': return array();
+			case '"': return string();
+			case 't': return literal("true", Boolean.TRUE);
+			case 'f': return literal("false", Boolean.FALSE);
+			case 'n': return literal("null", null);
+			default: return number();
+		}
+	}
+
+
+	private Map<String, Object> object() {
+		Map<String, Object> map = new LinkedHashMap<>();
+		++pos; skipWhitespace();
+		if (peek('}')) { ++pos; return map; }
+		while (true) {
+			skipWhitespace();
+			if (! peek('"')) throw error("name expected");
+			String name = string();
+			skipWhitespace();
+			if (! peek(':')) throw error("':' expected");
+			++pos;
+			map.put(name, value());
+			skipWhitespace();
+			if (peek(',')) { ++pos; continue; }
+			if (peek('}')) { ++pos; return map; }
+			throw error("',' or '}' expected");
+		}
+	}
+
+
+	private List<Object> array() {
+		List<Object> list = new ArrayList<>();
+		++pos; skipWhitespace();
+		if (peek(']')) { ++pos; return list; }
+		while (true) {
+			list.add(value());
+			skipWhitespace();
+			if (peek(',')) { ++pos; continue; }
+			if (peek(']')) { ++pos; return list; }
+			throw error("',' or ']' expected");
+		}
+	}
+
+
+	private String string() {
+		StringBuilder sb = new StringBuilder();
+		++pos; // skip the opening quote
+		while (pos < text.length()) {
+			char c = text.charAt(pos++);
+			if (c == '"') return sb.toString();
+			if (c != '\\') { sb.append(c); continue; }
+			if (pos >= text.length()) break;
+			char e = text.charAt(pos++);
+			switch (e) {
+				case 'b': sb.append('\b'); break;
+				case 'f': sb.append('\f'); break;
+				case 'n': sb.append('\n'); break;
+				case 'r': sb.append('\r'); break;
+				case 't': sb.append('\t'); break;
+				case 'u':
+					if (pos + 4 > text.length()) throw error("invalid escape");
+					sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16)); pos += 4; break;
+				default: sb.append(e);
+			}
+		}
+		throw error("unterminated string");
+	}
+
+
+	private Object number() {
+		int start = pos;
+		while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) ++pos;
+		String s = text.substring(start, pos);
+		if (s.isEmpty()) throw error("value expected");
+		try {
+			return Double.valueOf(s);
+		} catch (NumberFormatException e) {
+			throw error("invalid number '" + s + "'");
+		}
+	}
+
+
+	private Object literal(String word, Object value) {
+		if (! text.startsWith(word, pos)) throw error("invalid literal");
+		pos += word.length();
+		return value;
+	}
+
+
+	private boolean peek(char c) {
+		return pos < text.length() && text.charAt(pos) == c;
+	}
+
+
+	private void skipWhitespace() {
+		while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) ++pos;
+	}
+
+
+	private IllegalArgumentException error(String message) {
+		return new IllegalArgumentException(message + " at position " + pos);
+	}
+}
@@ -0,0 +1,66 @@
+package be.baur.sds.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.baur.sda.DataNode;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.ValidationStatistics;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * Measures the cost of a {@code ValidationListener}. The {@code NONE} case is
+ * expected to perform on par with {@link ValidatorBenchmark}, the {@code NOOP}
+ * case shows the cost of the notifications themselves, and the
+ * {@code STATISTICS} case that of the built-in statistics.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ListenerBenchmark {
+
+	public enum Listener { NONE, NOOP, STATISTICS }
+
+	@Param({"NONE", "NOOP", "STATISTICS"})
+	public Listener listener;
+
+	@Param({"ADDRESSBOOK", "GROUPS"})
+	public Scenario scenario;
+
+	@Param({"10"})
+	public int scale;
+
+	private Validator validator;
+	private DataNode document;
+
+	@Setup
+	public void setup() {
+		validator = scenario.schema().newValidator();
+		document = scenario.document(scale);
+		switch (listener) {
+			case NOOP: validator.setListener(new ValidationListener() {}); break;
+			case STATISTICS: validator.setListener(new ValidationStatistics()); break;
+			default: break;
+		}
+	}
+
+	@Benchmark
+	public Errors validate() {
+		return validator.validate(document);
+	}
+}
@@ -0,0 +1,58 @@
+package be.baur.sds.benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.serialization.SDSParser;
+
+/**
+ * Measures the throughput of {@code SDSParser.parse} for the schemas in the
+ * test resources, both from text (including SDA parsing) and from an already
+ * parsed SDA node (schema construction only).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+
+	@Param({"ADDRESSBOOK", "CONTACTS", "RUSSIANDOLLS", "GROUPS", "UNORDERED", "CARTESIAN"})
+	public Scenario scenario;
+
+	private String text;
+	private DataNode sds;
+
+	@Setup
+	public void setup() throws Exception {
+		text = scenario.schemaText();
+		sds = SDA.parse(new StringReader(text));
+	}
+
+	@Benchmark
+	public Schema parseText() throws Exception {
+		return SDS.parse(new StringReader(text));
+	}
+
+	@Benchmark
+	public Schema parseNode() throws Exception {
+		return SDSParser.parse(sds);
+	}
+}
@@ -0,0 +1,157 @@
+package be.baur.sds.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import samples.types.GMonthDayType;
+import samples.types.IBANType;
+
+/**
+ * The validation scenarios from the unit tests, each one a schema with a
+ * matching document from the test resources. A scenario can produce scaled-up
+ * variants of its document, to measure how throughput depends on input size.
+ */
+public enum Scenario {
+
+	ADDRESSBOOK("addressbook.sds", "addressbook.sda"),
+	CONTACTS("contacts.sds", "contacts.sda"),
+	RUSSIANDOLLS("russiandolls.sds", "russiandolls.sda"),
+	GROUPS("groups.sds", "mgtest.sda"),
+	UNORDERED("unordered.sds", "mgtest.sda"),
+	CARTESIAN("cartesian.sds", "cartesian.sda");
+
+	/** The file name of the schema resource. */
+	public final String sds;
+	/** The file name of the document resource. */
+	public final String sda;
+
+	Scenario(String sds, String sda) {
+		this.sds = sds; this.sda = sda;
+	}
+
+	// Register the sample data types used by the addressbook (only once)
+	static {
+		if (! Schema.isDataType(IBANType.NAME))
+			Schema.registerDataType(IBANType.NAME, IBANType::new);
+		if (! Schema.isDataType(GMonthDayType.NAME))
+			Schema.registerDataType(GMonthDayType.NAME, GMonthDayType::new);
+	}
+
+
+	/**
+	 * Returns the schema of this scenario in SDS notation.
+	 *
+	 * @return an SDS string
+	 */
+	public String schemaText() {
+		return resource(sds);
+	}
+
+
+	/**
+	 * Returns the schema of this scenario.
+	 *
+	 * @return a schema
+	 */
+	public Schema schema() {
+		try {
+			return SDS.parse(new StringReader(schemaText()));
+		} catch (Exception e) {
+			throw new IllegalStateException("cannot parse " + sds, e);
+		}
+	}
+
+
+	/**
+	 * Returns the document of this scenario in SDA notation, scaled up by the
+	 * specified factor. A factor of 1 returns the original document. Otherwise
+	 * every run of (two or more) equally named child nodes of the root is repeated,
+	 * so that singular nodes remain singular and the document keeps the same
+	 * structure. The russian dolls are nested deeper instead.
+	 *
+	 * @param scale a scale factor, at least 1
+	 * @return an SDA string
+	 */
+	public String documentText(int scale) {
+
+		if (scale < 1) throw new IllegalArgumentException("scale must be at least 1");
+		if (this == RUSSIANDOLLS) return dolls(5 * scale);
+
+		String text = resource(sda).trim();
+		if (scale == 1) return text;
+
+		DataNode root = parse(text);
+		List<DataNode> children = root.nodes();
+		StringBuilder sb = new StringBuilder(text.length() * scale);
+		sb.append(root.getName()).append(" {");
+
+		int i = 0; 
+		while (i < children.size()) { // find the next run of equally named nodes
+			int j = i + 1; String name = children.get(i).getName();
+			while (j < children.size() && children.get(j).getName().equals(name)) ++j;
+			int repeat = (j - i > 1) ? scale : 1;
+			for (int r = 0; r < repeat; r++)
+				for (int k = i; k < j; k++) sb.append(' ').append(children.get(k));
+			i = j;
+		}
+		return sb.append(" }").toString();
+	}
+
+
+	/**
+	 * Returns the document of this scenario, scaled up by the specified factor.
+	 *
+	 * @param scale a scale factor, at least 1
+	 * @return a data node
+	 * @see #documentText(int)
+	 */
+	public DataNode document(int scale) {
+		return parse(documentText(scale));
+	}
+
+
+	/** Parses a document in SDA notation. */
+	private DataNode parse(String text) {
+		try {
+			return SDA.parse(new StringReader(text));
+		} catch (Exception e) {
+			throw new IllegalStateException("cannot parse " + sda, e);
+		}
+	}
+
+
+	/** Returns a nest of russian dolls of the specified depth. */
+	private static String dolls(int depth) {
+
+		StringBuilder sb = new StringBuilder("russian_dolls {");
+		for (int i = 1; i <= depth; i++) sb.append(" doll \"").append(i).append("\" {");
+		for (int i = 0; i <= depth; i++) sb.append(" }");
+		return sb.toString();
+	}
+
+
+	/** Returns the content of a (UTF-8 encoded) resource as a string. */
+	static String resource(String name) {
+
+		InputStream input = Scenario.class.getResourceAsStream("/" + name);
+		if (input == null) throw new IllegalStateException("resource not found: " + name);
+
+		StringBuilder sb = new StringBuilder();
+		char[] buffer = new char[8192];
+		try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+			int n; while ((n = reader.read(buffer)) > 0) sb.append(buffer, 0, n);
+		} catch (IOException e) {
+			throw new IllegalStateException("cannot read " + name, e);
+		}
+		return sb.toString();
+	}
+}
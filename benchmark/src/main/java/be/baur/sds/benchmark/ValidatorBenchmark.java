@@ -0,0 +1,54 @@
+package be.baur.sds.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.baur.sda.DataNode;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * Measures the throughput of {@code Validator.validate} for the scenarios in
+ * the test resources, at different scales. Documents are parsed up front, so
+ * only validation is measured. Note that most test documents are deliberately
+ * invalid, so error reporting is part of the measurement.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ValidatorBenchmark {
+
+	@Param({"ADDRESSBOOK", "CONTACTS", "RUSSIANDOLLS", "GROUPS", "UNORDERED", "CARTESIAN"})
+	public Scenario scenario;
+
+	@Param({"1", "10", "100"})
+	public int scale;
+
+	private Validator validator;
+	private DataNode document;
+
+	@Setup
+	public void setup() {
+		validator = scenario.schema().newValidator();
+		document = scenario.document(scale);
+	}
+
+	@Benchmark
+	public Errors validate() {
+		return validator.validate(document);
+	}
+}
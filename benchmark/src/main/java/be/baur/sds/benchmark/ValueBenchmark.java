@@ -0,0 +1,79 @@
+package be.baur.sds.benchmark;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import be.baur.sda.DataNode;
+import be.baur.sds.SDS;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * Measures the cost of validating a single value, for each native data type
+ * and the sample types, with and without facets. Each case is a schema with a
+ * single node definition and a document with a single (valid) node.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ValueBenchmark {
+
+	/** Value validation cases: a type with optional facets, and a valid value. */
+	public enum Case {
+
+		STRING("type \"string\"", "hello world"),
+		STRING_LENGTH("type \"string\" length \"1..16\"", "hello world"),
+		STRING_PATTERN("type \"string\" pattern \"\\\\d{2,4}-\\\\d{6,8}\"", "06-11111111"),
+		BINARY("type \"binary\"", "aGVsbG8gd29ybGQ="),
+		INTEGER("type \"integer\"", "42"),
+		INTEGER_VALUE("type \"integer\" value \"[1..100]\"", "42"),
+		DECIMAL("type \"decimal\" value \"[0..*)\"", "51.430"),
+		DATE("type \"date\" value \"[1900-01-01..*)\"", "1970-01-01"),
+		DATETIME("type \"datetime\"", "2024-05-10T12:00:00+02:00"),
+		BOOLEAN("type \"boolean\"", "true"),
+		IBAN("type \"IBAN\"", "NL64 ABNC 0417 1643 00"),
+		GMONTHDAY("type \"gMonthDay\"", "--02-28");
+
+		final String facets, value;
+
+		Case(String facets, String value) {
+			this.facets = facets; this.value = value;
+		}
+	}
+
+	@Param
+	public Case type;
+
+	private Validator validator;
+	private DataNode node;
+
+	@Setup
+	public void setup() throws Exception {
+
+		Scenario.values(); // makes sure the sample types are registered
+		validator = SDS.parse(new StringReader("schema { node \"value\" { " + type.facets + " } }")).newValidator();
+		node = new DataNode("value", type.value);
+		if (! validator.validate(node).isEmpty())
+			throw new IllegalStateException(type + " is not valid");
+	}
+
+	@Benchmark
+	public Errors validate() {
+		return validator.validate(node);
+	}
+}
@@ -0,0 +1,16 @@
+package be.baur.sds.benchmark;
+
+public final class TestAll {
+
+	public static void main(String[] args) throws Exception {
+
+		System.out.print("\nJson        : ");
+		TestJson.main(args);
+
+		System.out.print("\nResults     : ");
+		TestBenchmarkResult.main(args);
+
+		System.out.print("\nBaseline    : ");
+		TestBaseline.main(args);
+	}
+}
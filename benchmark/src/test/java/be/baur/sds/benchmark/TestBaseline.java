@@ -0,0 +1,112 @@
+package be.baur.sds.benchmark;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import be.baur.sds.benchmark.Baseline.Report;
+import test.Test;
+
+public final class TestBaseline {
+
+	private static final String BENCHMARK = "be.baur.sds.benchmark.ValidatorBenchmark.validate";
+
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		/* a higher throughput is better */
+		t.ts1("B01", compare("thrpt", 1000, 0, 900, 0, 0.05), "REGRESSION -10.0%");
+		t.ts1("B02", compare("thrpt", 1000, 0, 1100, 0, 0.05), "IMPROVEMENT +10.0%");
+
+		/* a lower time is better */
+		t.ts1("B03", compare("avgt", 100, 0, 110, 0, 0.05), "REGRESSION -10.0%");
+		t.ts1("B04", compare("avgt", 100, 0, 90, 0, 0.05), "IMPROVEMENT +10.0%");
+
+		/* changes within the tolerance are ignored */
+		t.ts1("B05", compare("thrpt", 1000, 0, 960, 0, 0.05), "UNCHANGED -4.0%");
+		t.ts1("B06", compare("thrpt", 1000, 0, 900, 0, 0.10), "UNCHANGED -10.0%");
+		t.ts1("B07", compare("avgt", 100, 0, 111, 0, 0.10), "REGRESSION -11.0%");
+
+		/* and so are changes within the combined errors, an unknown error counts as none */
+		t.ts1("B08", compare("thrpt", 1000, 60, 900, 50, 0.05), "UNCHANGED -10.0%");
+		t.ts1("B09", compare("thrpt", 1000, 40, 900, 40, 0.05), "REGRESSION -10.0%");
+		t.ts1("B10", compare("avgt", 100, Double.NaN, 120, 15, 0.05), "REGRESSION -20.0%");
+		t.ts1("B11", compare("avgt", 100, Double.NaN, 120, 25, 0.05), "UNCHANGED -20.0%");
+
+		/* there is no relative change from a zero score */
+		t.ts1("B12", compare("avgt", 0, 0, 0, 0, 0.05), "UNCHANGED NaN%");
+		t.ts1("B13", compare("avgt", 0, 0, 5, 0, 0.05), "REGRESSION NaN%");
+		t.ts1("B14", compare("thrpt", 0, 0, 5, 0, 0.05), "IMPROVEMENT NaN%");
+		t.ts1("B15", compare("avgt", 0, 0, 5, 10, 0.05), "UNCHANGED NaN%");
+
+		/* less allocation is better, and differences of less than a byte per operation are ignored */
+		t.ts1("A01", compare(BenchmarkResult.ALLOCATION, "thrpt", 192, 0, 256, 0, 0.05), "REGRESSION -33.3%");
+		t.ts1("A02", compare(BenchmarkResult.ALLOCATION, "avgt", 256, 0, 192, 0, 0.05), "IMPROVEMENT +25.0%");
+		t.ts1("A03", compare(BenchmarkResult.ALLOCATION, "thrpt", 0.0008, Double.NaN, 0.0012, Double.NaN, 0.05), "UNCHANGED -50.0%");
+		t.ts1("A04", compare(BenchmarkResult.ALLOCATION, "thrpt", 0, 0, 24, 0, 0.05), "REGRESSION NaN%");
+		t.ts1("A05", compare(BenchmarkResult.ALLOCATION, "thrpt", 1000, 100, 1200, 50, 0.05), "REGRESSION -20.0%");
+		t.ts1("A06", compare(BenchmarkResult.ALLOCATION, "thrpt", 1000, 100, 1200, 150, 0.05), "UNCHANGED -20.0%");
+
+		/* results are matched by benchmark, metric, mode and parameters */
+		List<BenchmarkResult> baseline = Arrays.asList(result("thrpt", "CONTACTS", 1000, 0), result("thrpt", "CARTESIAN", 500, 0),
+			result("thrpt", "GROUPS", 200, 0));
+		List<BenchmarkResult> current = Arrays.asList(result("thrpt", "CONTACTS", 800, 0), result("avgt", "CARTESIAN", 2, 0),
+			result("thrpt", "GROUPS", 220, 0));
+		Report report = Baseline.compare(baseline, current, 0.05);
+		StringBuilder sb = new StringBuilder();
+		for (Baseline.Entry e : report.getEntries()) sb.append(e.getStatus()).append(' ');
+		t.ts1("B16", sb.toString() + report.regressions(), "REGRESSION NEW IMPROVEMENT MISSING 1");
+
+		String[] lines = report.toString().split("\\R");
+		t.ts1("B17", lines[1], "REGRESSION  ValidatorBenchmark.validate (thrpt) scenario=CONTACTS: 1000.000 -> 800.000 ops/s (-20.0%)");
+		t.ts1("B18", lines[2], "NEW         ValidatorBenchmark.validate (avgt) scenario=CARTESIAN: 2.000 us/op");
+		t.ts1("B19", lines[4], "MISSING     ValidatorBenchmark.validate (thrpt) scenario=CARTESIAN");
+		t.ts1("B20", lines[8], "CONTACTS     1 benchmarks, 1 regressions, mean change -20.0%");
+		t.ts1("B21", lines[lines.length - 1], "1 regression(s) in 4 benchmark(s)");
+
+		/* a zero baseline has no percentage in the report */
+		report = Baseline.compare(Collections.singletonList(result("avgt", "CONTACTS", 0, 0)),
+			Collections.singletonList(result("avgt", "CONTACTS", 5, 0)), 0.05);
+		t.ts1("B22", report.getEntries().get(0).toString(), "REGRESSION  ValidatorBenchmark.validate (avgt) scenario=CONTACTS: 0.000 -> 5.000 us/op");
+		t.ts1("B23", report.toString().split("\\R")[4], "CONTACTS     1 benchmarks, 1 regressions, mean change +0.0%");
+
+		/* allocation regressions are reported, but do not count in the mean change */
+		baseline = Arrays.asList(result("thrpt", "CONTACTS", 1000, 0), result(BenchmarkResult.ALLOCATION, "thrpt", "CONTACTS", 192, 0));
+		current = Arrays.asList(result("thrpt", "CONTACTS", 1100, 0), result(BenchmarkResult.ALLOCATION, "thrpt", "CONTACTS", 256, 0),
+			result(BenchmarkResult.ALLOCATION, "thrpt", "GROUPS", 64, 0));
+		report = Baseline.compare(baseline, current, 0.05);
+		lines = report.toString().split("\\R");
+		t.ts1("A07", lines[2], "REGRESSION  ValidatorBenchmark.validate:gc.alloc.rate.norm (thrpt) scenario=CONTACTS: 192.000 -> 256.000 B/op (-33.3%)");
+		t.ts1("A08", lines[3], "NEW         ValidatorBenchmark.validate:gc.alloc.rate.norm (thrpt) scenario=GROUPS: 64.000 B/op");
+		t.ts1("A09", lines[6], "CONTACTS     1 benchmarks, 1 regressions, mean change +10.0%");
+		t.ts1("A10", lines[lines.length - 1], "1 regression(s) in 1 benchmark(s)");
+	}
+
+
+	private static BenchmarkResult result(String metric, String mode, String scenario, double score, double error) {
+		return new BenchmarkResult(BENCHMARK, metric, mode, Collections.singletonMap("scenario", scenario), score, error,
+			metric != null ? "B/op" : mode.equals("thrpt") ? "ops/s" : "us/op");
+	}
+
+
+	private static BenchmarkResult result(String mode, String scenario, double score, double error) {
+		return result(null, mode, scenario, score, error);
+	}
+
+
+	/** Compares a single result with its baseline, and returns the status and the change. */
+	private static String compare(String mode, double base, double baseError, double score, double error, double tolerance) {
+		return compare(null, mode, base, baseError, score, error, tolerance);
+	}
+
+
+	private static String compare(String metric, String mode, double base, double baseError, double score, double error, double tolerance) {
+		Report report = Baseline.compare(Collections.singletonList(result(metric, mode, "CONTACTS", base, baseError)),
+			Collections.singletonList(result(metric, mode, "CONTACTS", score, error)), tolerance);
+		Baseline.Entry e = report.getEntries().get(0);
+		return String.format("%s %+.1f%%", e.getStatus(), 100 * e.getChange());
+	}
+}
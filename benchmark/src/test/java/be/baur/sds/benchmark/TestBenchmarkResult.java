@@ -0,0 +1,76 @@
+package be.baur.sds.benchmark;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import test.Test;
+
+public final class TestBenchmarkResult {
+
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		/* the JSON output of a JMH run, with the allocation rate after each primary result */
+		List<BenchmarkResult> results = BenchmarkResult.read(resource("/jmh-results.json"));
+		t.ts1("R01", results.size() + "", "4");
+		t.ts1("R02", results.get(0).toString(), "ValidatorBenchmark.validate (thrpt) scale=1 scenario=CONTACTS: 6304.026 +- 37931.583 ops/s");
+		t.ts1("R03", results.get(1).toString(), "ValidatorBenchmark.validate:gc.alloc.rate.norm (thrpt) scale=1 scenario=CONTACTS: 19307.603 +- 5639.262 B/op");
+		t.ts1("R04", results.get(2).toString(), "ValueBenchmark.validate (avgt) type=INTEGER: 537.152 +- 5817.415 ns/op");
+		t.ts1("R05", results.get(3).toString(), "ValueBenchmark.validate:gc.alloc.rate.norm (avgt) type=INTEGER: 199.375 +- 233.014 B/op");
+		t.ts1("R06", results.get(0).getScenario() + " " + results.get(0).isHigherBetter() + " " + results.get(1).isHigherBetter() + " "
+			+ results.get(2).getScenario() + " " + results.get(2).isHigherBetter() + " " + results.get(0).getMetric() + " "
+			+ results.get(1).getMetric(), "CONTACTS true false null false null gc.alloc.rate.norm");
+
+		/* JMH writes an unknown error as NaN, in a string */
+		results = BenchmarkResult.read(resource("/jmh-results-short.json"));
+		t.ts1("R07", results.get(0).key() + " " + results.get(0).getError() + " " + results.get(1).getError() + " " + results.get(2).key(),
+			"ValueBenchmark.validate (avgt) type=INTEGER NaN NaN ValueBenchmark.validate (avgt) type=BOOLEAN");
+
+		/* a saved baseline reads back as the same results */
+		Path file = Files.createTempFile("baseline", ".json");
+		try {
+			results = Arrays.asList(
+				new BenchmarkResult("be.baur.sds.benchmark.ParserBenchmark.parse", "thrpt", Collections.singletonMap("scenario", "A \"B\""), 1.5, 0.25, "ops/s"),
+				new BenchmarkResult("be.baur.sds.benchmark.ParserBenchmark.parse", BenchmarkResult.ALLOCATION, "thrpt",
+					Collections.singletonMap("scenario", "A \"B\""), 96, 0.5, "B/op"),
+				new BenchmarkResult("be.baur.sds.benchmark.CompilerBenchmark.compile", "avgt", Collections.emptyMap(), 100, Double.NaN, "us/op"));
+			BenchmarkResult.write(file, results);
+			t.ts1("R08", BenchmarkResult.read(file).toString(), results.toString());
+			t.ts1("R09", results.toString(), "[ParserBenchmark.parse (thrpt) scenario=A \"B\": 1.500 +- 0.250 ops/s, "
+				+ "ParserBenchmark.parse:gc.alloc.rate.norm (thrpt) scenario=A \"B\": 96.000 +- 0.500 B/op, "
+				+ "CompilerBenchmark.compile (avgt): 100.000 +- NaN us/op]");
+
+			/* other JSON is not accepted */
+			Files.write(file, "{ \"results\": 1 }".getBytes(StandardCharsets.UTF_8));
+			t.ts1("F01", error(file), file + ": not a benchmark result file");
+			Files.write(file, "[ { \"benchmark\": \"b\" ]".getBytes(StandardCharsets.UTF_8));
+			t.ts1("F02", error(file), file + ": ',' or '}' expected at position 21");
+		} finally {
+			Files.delete(file);
+		}
+	}
+
+
+	private static Path resource(String name) throws Exception {
+		return Paths.get(TestBenchmarkResult.class.getResource(name).toURI());
+	}
+
+
+	/** Reads a file that should not be accepted, and returns the error message. */
+	private static String error(Path file) {
+		try {
+			return "no exception: " + BenchmarkResult.read(file);
+		} catch (IOException e) {
+			return e.getMessage();
+		}
+	}
+}
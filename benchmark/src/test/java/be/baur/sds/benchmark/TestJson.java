@@ -0,0 +1,35 @@
+package be.baur.sds.benchmark;
+
+import test.Test;
+
+public final class TestJson {
+
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return String.valueOf(Json.parse(s));
+		});
+
+		t.ts1("J01", "{ \"a\": [1, 2.5, -3e2], \"b\": \"x\\\"\\\\\\u0041\", \"c\": true, \"d\": null, \"e\": {} }",
+			"{a=[1.0, 2.5, -300.0], b=x\"\\A, c=true, d=null, e={}}");
+		t.ts1("J02", " [ ] ", "[]");
+		t.ts1("J03", "[\"NaN\", 0, false]", "[NaN, 0.0, false]");
+		t.ts1("J04", "{\"z\": 1, \"a\": 2, \"m\": 3}", "{z=1.0, a=2.0, m=3.0}");
+
+		t.ts1Error("F01", "", "unexpected end at position 0");
+		t.ts1Error("F02", "{\"a\" 1}", "':' expected at position 5");
+		t.ts1Error("F03", "{\"a\": 1]", "',' or '}' expected at position 7");
+		t.ts1Error("F04", "[1 2]", "',' or ']' expected at position 3");
+		t.ts1Error("F05", "{a: 1}", "name expected at position 1");
+		t.ts1Error("F06", "\"abc", "unterminated string at position 4");
+		t.ts1Error("F07", "[1.2.3]", "invalid number '1.2.3' at position 6");
+		t.ts1Error("F08", "[nul]", "invalid literal at position 1");
+		t.ts1Error("F09", "[] []", "unexpected content at position 3");
+
+		/* a quoted string reads back as the same string */
+		t = new Test(s -> {
+			return (String) Json.parse(Json.quote(s));
+		});
+		t.ts1("Q01", "a\"b\\c\n\r\t\u0001\u00e9", null);
+	}
+}
@@ -0,0 +1,190 @@
+package be.baur.sds.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.lang.reflect.Constructor;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+import be.baur.sds.DataType;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.serialization.SDSParseException;
+import be.baur.sds.util.SchemaClassGenerator;
+
+/**
+ * Parses every schema in the source directory, and generates a Java class for
+ * each one that builds the schema without parsing, see
+ * {@link SchemaClassGenerator}. The build fails if a schema is not valid. For
+ * example, {@code src/main/sds/orders/addressbook.sds} results in a class
+ * {@code <packageName>.orders.AddressbookSchema}. Generated classes are added
+ * to the compile source roots of the project, and are only rewritten if they
+ * have changed.
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.GENERATE_SOURCES, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+	private static final String EXTENSION = ".sds";
+
+	/** The directory with the schemas, which is searched recursively. */
+	@Parameter(defaultValue = "${project.basedir}/src/main/sds", required = true)
+	private File sourceDirectory;
+
+	/** The directory to which the generated classes are written. */
+	@Parameter(defaultValue = "${project.build.directory}/generated-sources/sds", required = true)
+	private File outputDirectory;
+
+	/** The package of the generated classes. */
+	@Parameter(required = true)
+	private String packageName;
+
+	/**
+	 * Custom data types used by the schemas, by type name and class name. Each
+	 * class must extend {@code DataType} and have a public constructor that takes
+	 * a node name, and must be on the classpath of the plugin, so it is usually
+	 * added as a plugin dependency.
+	 */
+	@Parameter
+	private Map<String, String> dataTypes = Collections.emptyMap();
+
+	/** Skips the generation of schema classes. */
+	@Parameter(property = "sds.skip", defaultValue = "false")
+	private boolean skip;
+
+	@Parameter(defaultValue = "${project}", readonly = true, required = true)
+	private MavenProject project;
+
+
+	@Override
+	public void execute() throws MojoExecutionException, MojoFailureException {
+
+		if (skip) {
+			getLog().info("Skipping schema generation"); return;
+		}
+		if (! sourceDirectory.isDirectory()) {
+			getLog().info("No schemas found in " + sourceDirectory); return;
+		}
+
+		registerDataTypes();
+
+		List<Path> schemas;
+		Path root = sourceDirectory.toPath();
+		try (Stream<Path> files = Files.walk(root)) {
+			schemas = files.filter(p -> p.toString().endsWith(EXTENSION) && Files.isRegularFile(p))
+				.sorted().collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new MojoExecutionException("Cannot read " + sourceDirectory, e);
+		}
+
+		List<String> failures = new ArrayList<>(); int written = 0;
+		for (Path file : schemas) {
+			Path relative = root.relativize(file);
+			try {
+				if (generate(file, relative)) ++written;
+			} catch (SDSParseException e) {
+				failures.add(relative + ": " + e.getMessage());
+			} catch (IOException | IllegalArgumentException e) {
+				throw new MojoExecutionException("Cannot generate a class for " + relative, e);
+			}
+		}
+
+		if (! failures.isEmpty()) {
+			for (String failure : failures) getLog().error(failure);
+			throw new MojoFailureException(failures.size() + " of " + schemas.size() + " schema(s) are not valid:\n"
+				+ String.join("\n", failures));
+		}
+
+		getLog().info(schemas.size() + " schema(s) verified, " + written + " class(es) written to " + outputDirectory);
+		project.addCompileSourceRoot(outputDirectory.getPath());
+	}
+
+
+	/** Registers the custom data types, unless already registered. */
+	private void registerDataTypes() throws MojoExecutionException {
+
+		for (Map.Entry<String, String> type : dataTypes.entrySet()) {
+			if (Schema.isDataType(type.getKey())) continue; // plugins may be reused in the same build
+			try {
+				Constructor<? extends DataType> constructor = Class.forName(type.getValue(), true, getClass().getClassLoader())
+					.asSubclass(DataType.class).getConstructor(String.class);
+				Schema.registerDataType(type.getKey(), name -> {
+					try {
+						return constructor.newInstance(name);
+					} catch (ReflectiveOperationException e) {
+						throw new IllegalStateException("cannot create data type " + type.getKey(), e);
+					}
+				});
+			} catch (ReflectiveOperationException | ClassCastException e) {
+				throw new MojoExecutionException("Cannot register data type " + type.getKey() + " (" + type.getValue() + ")", e);
+			}
+		}
+	}
+
+
+	/**
+	 * Parses a schema and writes the class that builds it, unless the existing
+	 * class is the same. Returns true if the class was written.
+	 */
+	private boolean generate(Path file, Path relative) throws IOException, SDSParseException {
+
+		Schema schema;
+		try (Reader input = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+			schema = SDS.parse(input);
+		}
+
+		String name = packageName;
+		for (int i = 0; i < relative.getNameCount() - 1; i++)
+			name += "." + identifier(relative.getName(i).toString(), false);
+		String base = relative.getFileName().toString();
+		name += "." + identifier(base.substring(0, base.length() - EXTENSION.length()), true) + "Schema";
+
+		StringWriter source = new StringWriter();
+		new SchemaClassGenerator(name).generate(schema, source);
+		byte[] bytes = source.toString().getBytes(StandardCharsets.UTF_8);
+
+		Path target = outputDirectory.toPath().resolve(name.replace('.', File.separatorChar) + ".java");
+		if (Files.exists(target) && Arrays.equals(Files.readAllBytes(target), bytes))
+			return false;
+		Files.createDirectories(target.getParent());
+		Files.write(target, bytes);
+		getLog().debug("Generated " + name + " from " + relative);
+		return true;
+	}
+
+
+	/**
+	 * Returns a Java identifier derived from a file name, by dropping invalid
+	 * characters and capitalizing the parts between them, if required.
+	 */
+	private static String identifier(String s, boolean capitalize) {
+
+		StringBuilder sb = new StringBuilder();
+		boolean upper = capitalize;
+		for (char c : s.toCharArray()) {
+			if (! Character.isJavaIdentifierPart(c) || c == '$') {
+				upper = capitalize; continue;
+			}
+			sb.append(upper ? Character.toUpperCase(c) : c); upper = false;
+		}
+		if (sb.length() == 0 || ! Character.isJavaIdentifierStart(sb.charAt(0))) sb.insert(0, '_');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,25 @@
+package be.baur.sds.jfr;
+
+/**
+ * This class tells whether the events in this package can be used. The SDS
+ * library targets Java 8, but the Flight Recorder API is only available as of
+ * Java 11 (and 8u272). Code that emits an event must check
+ * {@link #AVAILABLE} first, so the event classes are never loaded on a runtime
+ * that lacks the {@code jdk.jfr} package.
+ */
+public final class FlightRecording {
+
+	private FlightRecording() {} // cannot construct this
+
+	/** True if the Flight Recorder API is available on this runtime. */
+	public static final boolean AVAILABLE = available();
+
+	private static boolean available() {
+		try {
+			Class.forName("jdk.jfr.Event", false, FlightRecording.class.getClassLoader());
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+}
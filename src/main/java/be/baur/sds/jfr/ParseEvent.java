@@ -0,0 +1,32 @@
+package be.baur.sds.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for parsing a schema in SDS notation.
+ *
+ * @see FlightRecording
+ */
+@Name("be.baur.sds.Parse")
+@Label("SDS Parse")
+@Category("SDS")
+@Description("Parsing of a schema in SDS notation")
+@StackTrace(false)
+public final class ParseEvent extends jdk.jfr.Event {
+
+	@Label("Size")
+	@Description("The number of characters read")
+	public long size;
+
+	@Label("Global Types")
+	@Description("The number of global types in the schema")
+	public int globalTypes;
+
+	@Label("Failed")
+	@Description("Whether the schema could not be parsed")
+	public boolean failed;
+}
@@ -0,0 +1,32 @@
+package be.baur.sds.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A Flight Recorder event for the validation of a document.
+ *
+ * @see FlightRecording
+ */
+@Name("be.baur.sds.Validate")
+@Label("SDS Validate")
+@Category("SDS")
+@Description("Validation of an SDA document against a schema")
+@StackTrace(false)
+public final class ValidateEvent extends jdk.jfr.Event {
+
+	@Label("Root Type")
+	@Description("The name of the global type the document was validated against")
+	public String rootType;
+
+	@Label("Nodes")
+	@Description("The number of nodes that were validated")
+	public long nodes;
+
+	@Label("Errors")
+	@Description("The number of validation errors")
+	public long errors;
+}
@@ -0,0 +1,40 @@
+package be.baur.sds.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * A Flight Recorder event for a slow check of a node value against its data
+ * type, for example when matching a complex pattern. Only checks that take
+ * longer than the threshold (1 ms by default) are recorded.
+ *
+ * @see FlightRecording
+ */
+@Name("be.baur.sds.Value")
+@Label("SDS Slow Value Check")
+@Category("SDS")
+@Description("A check of a node value against its data type that exceeded the threshold")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class ValueEvent extends jdk.jfr.Event {
+
+	@Label("Data Type")
+	@Description("The name of the data type")
+	public String type;
+
+	@Label("Path")
+	@Description("The path of the node in the document")
+	public String path;
+
+	@Label("Value Length")
+	@Description("The length of the value")
+	public int length;
+
+	@Label("Valid")
+	@Description("Whether the value is valid")
+	public boolean valid;
+}
@@ -1,5 +1,6 @@
 package be.baur.sds.serialization;
 
+import java.io.FilterReader;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.List;
@@ -18,6 +19,8 @@ import be.baur.sds.NodeType;
 import be.baur.sds.Schema;
 import be.baur.sds.common.Interval;
 import be.baur.sds.common.NaturalInterval;
+import be.baur.sds.jfr.FlightRecording;
+import be.baur.sds.jfr.ParseEvent;
 import be.baur.sds.model.ChoiceGroup;
 import be.baur.sds.model.ModelGroup;
 import be.baur.sds.model.SequenceGroup;
@@ -81,13 +84,69 @@ public final class SDSParser implements Parser<Schema> {
 	@Override
 	public Schema parse(Reader input) throws IOException, SDSParseException {
 
-		DataNode sds = null;
+		if (FlightRecording.AVAILABLE) 
+			return recordParse(input);
+		return parse(readSDA(input));
+	}
+
+
+	/** Reads the SDS input into an SDA node. */
+	private static DataNode readSDA(Reader input) throws IOException, SDSParseException {
 		try {
-			sds = SDA.parse(input);
+			return SDA.parse(input);
 		} catch (SDAParseException e) {
 			throw new SDSParseException(null, e);
 		}
-		return parse(sds);
+	}
+
+
+	/**
+	 * Parses a schema like {@link #parse(Reader)} does, while recording the size,
+	 * the number of global types and the duration in a Flight Recorder event.
+	 */
+	private static Schema recordParse(Reader input) throws IOException, SDSParseException {
+
+		ParseEvent event = new ParseEvent();
+		if (! event.isEnabled())
+			return parse(readSDA(input));
+
+		CountingReader reader = new CountingReader(input);
+		event.begin(); event.failed = true;
+		try {
+			Schema schema = parse(readSDA(reader));
+			event.globalTypes = schema.nodes().size(); event.failed = false;
+			return schema;
+		} finally {
+			event.end();
+			if (event.shouldCommit()) {
+				event.size = reader.count; event.commit();
+			}
+		}
+	}
+
+
+	/** A reader that counts the number of characters read. */
+	private static final class CountingReader extends FilterReader {
+
+		private long count = 0;
+
+		CountingReader(Reader in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int c = super.read();
+			if (c >= 0) ++count;
+			return c;
+		}
+
+		@Override
+		public int read(char[] cbuf, int off, int len) throws IOException {
+			int n = super.read(cbuf, off, len);
+			if (n > 0) count += n;
+			return n;
+		}
 	}
 
 
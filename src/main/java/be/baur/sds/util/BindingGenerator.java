@@ -0,0 +1,449 @@
+package be.baur.sds.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import be.baur.sda.Node;
+import be.baur.sds.AnyType;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.NodeType;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.model.ChoiceGroup;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.types.BooleanType;
+import be.baur.sds.types.CharacterType;
+import be.baur.sds.types.ComparableType;
+
+/**
+ * A {@code BindingGenerator} writes the Java source code of classes that hold
+ * the content of documents of a schema, and of a reader that binds documents to
+ * them. For example:
+ *
+ * <pre>
+ * new BindingGenerator("com.example.Addressbooks").generate(schema, writer);
+ * </pre>
+ *
+ * generates a class {@code Addressbooks} with a nested class for every global
+ * type with complex content, like {@code Addressbooks.Addressbook}, which can be
+ * read like this:
+ *
+ * <pre>
+ * Addressbooks.Reader reader = new Addressbooks.Reader(schema);
+ * Addressbooks.Addressbook book = reader.readAddressbook(node);
+ * for (Addressbooks.Addressbook.Contact contact : book.contact)
+ *     System.out.println(contact.firstname);
+ * </pre>
+ *
+ * Every type in the content of a complex type becomes a public field. Simple
+ * content is held in the Java type of the data type, like {@code Integer} for
+ * an integer, and complex content in a nested class; references to a global
+ * type use the class of that type, and "any" content is held by the node
+ * itself. A field is a list if the type may occur more than once, and null if
+ * an optional type is absent.
+ * <p>
+ * Model groups that occur at most once are flattened into the class that holds
+ * them, and those that repeat become a nested class of their own. A choice
+ * becomes an abstract class with a subclass for every alternative, and no
+ * other subclasses, so the alternative can be found with {@code instanceof}.
+ * <p>
+ * The reader validates and binds a document in a single traversal, see
+ * {@link BindingReader}. It only accepts the schema the classes were generated
+ * from.
+ */
+public final class BindingGenerator {
+
+	private static final Set<String> KEYWORDS = new HashSet<>(Arrays.asList("abstract", "assert", "boolean",
+		"break", "byte", "case", "catch", "char", "class", "const", "continue", "default", "do", "double", "else",
+		"enum", "extends", "false", "final", "finally", "float", "for", "goto", "if", "implements", "import",
+		"instanceof", "int", "interface", "long", "native", "new", "null", "package", "private", "protected",
+		"public", "return", "short", "static", "strictfp", "super", "switch", "synchronized", "this", "throw",
+		"throws", "transient", "true", "try", "void", "volatile", "while", "_"));
+	private static final String READER = "Reader"; // the name of the nested reader class
+
+	private final String packageName; // empty for the default package
+	private final String className;
+
+	// state of the current generate() call
+	private Map<Component, Integer> ids;
+	private Map<String, Holder> globals; // by type name, for global types with complex content
+	private int[][] slots;
+	private List<int[]> containers;
+	private StringBuilder create, value, add, container, attach;
+
+
+	/** A generated class that holds content. */
+	private static final class Holder {
+
+		final String name, path; // the simple name and the name qualified by the enclosing classes
+		final Holder outer; // null for the top-level class
+		final String comment;
+		String superclass; boolean isAbstract;
+		String valueType; // the type of the simple content, if any
+		final List<String> fields = new ArrayList<>();
+		final List<Holder> nested = new ArrayList<>();
+		final Set<String> fieldNames = new HashSet<>(), classNames = new HashSet<>();
+
+		Holder(String name, Holder outer, String comment) {
+			this.name = name; this.outer = outer; this.comment = comment;
+			this.path = (outer == null) ? name : outer.path + "." + name;
+		}
+	}
+
+
+	/**
+	 * Creates a generator for a class with the specified name, which holds all
+	 * other generated classes.
+	 *
+	 * @param name a fully qualified class name, not null
+	 * @throws IllegalArgumentException if the name is not a valid class name
+	 */
+	public BindingGenerator(String name) {
+
+		Objects.requireNonNull(name, "name must not be null");
+		for (String part : name.split("\\.", -1))
+			if (! JavaSource.isIdentifier(part))
+				throw new IllegalArgumentException("invalid class name (" + name + ")");
+		int dot = name.lastIndexOf('.');
+		packageName = (dot < 0) ? "" : name.substring(0, dot);
+		className = name.substring(dot + 1);
+	}
+
+
+	/**
+	 * Writes the source code of the classes for the specified schema.
+	 *
+	 * @param schema a schema, not null
+	 * @param output a writer, not null
+	 * @throws IOException if an I/O operation failed
+	 */
+	public void generate(Schema schema, Writer output) throws IOException {
+
+		Objects.requireNonNull(schema, "schema must not be null");
+		Objects.requireNonNull(output, "output must not be null");
+
+		List<Component> components = BindingReader.components(schema);
+		ids = new IdentityHashMap<>();
+		for (int i = 0; i < components.size(); i++) ids.put(components.get(i), i);
+		slots = new int[components.size()][];
+		Arrays.fill(slots, new int[] { -1, 0, 0 });
+		containers = new ArrayList<>(); globals = new HashMap<>();
+		create = new StringBuilder(); value = new StringBuilder(); add = new StringBuilder();
+		container = new StringBuilder(); attach = new StringBuilder();
+
+		Holder top = new Holder(className, null, null);
+		top.classNames.add(READER);
+
+		List<NodeType> types = new ArrayList<>(); // create the classes of the global types first
+		for (Node node : schema.nodes()) {
+			if (! isComplex((Component) node)) continue;
+			NodeType type = (NodeType) node;
+			globals.put(type.getTypeName(), nested(top, type.getTypeName(), "the '" + type.getTypeName() + "' global type"));
+			types.add(type);
+		}
+		for (NodeType type : types) {
+			Holder h = globals.get(type.getTypeName());
+			int id = ids.get(type);
+			create.append("\t\t\tcase ").append(id).append(": return new ").append(h.path).append("();\n");
+			if (type instanceof DataType) {
+				h.valueType = javaType((DataType) type); h.fieldNames.add("value");
+				value(id, h);
+			}
+			content(h, type.nodes(), -1, new int[1]);
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append("// Generated from an SDS schema; do not edit.\n");
+		if (! packageName.isEmpty())
+			sb.append("package ").append(packageName).append(";\n");
+		sb.append("\n");
+		sb.append("import be.baur.sda.DataNode;\n");
+		sb.append("import be.baur.sds.Schema;\n");
+		sb.append("import be.baur.sds.util.BindingReader;\n");
+		sb.append("import be.baur.sds.validation.ValidationException;\n");
+		sb.append("\n");
+		sb.append("/** Holds the content of documents of a schema with ").append(schema.nodes().size()).append(" global type(s). */\n");
+		sb.append("@SuppressWarnings(\"unused\")\n");
+		sb.append("public final class ").append(className).append(" {\n\n");
+		sb.append("\tprivate ").append(className).append("() {}\n");
+		for (Holder h : top.nested) holder(h, 1, sb);
+		reader(schema, types, sb);
+		sb.append("}\n");
+
+		output.write(sb.toString());
+		output.flush();
+	}
+
+
+	/** Returns true if a component is a type with complex content. */
+	private static boolean isComplex(Component component) {
+		return component instanceof NodeType && (! (component instanceof DataType) || component.isParent());
+	}
+
+
+	/**
+	 * Adds fields and nested classes to a holder for the specified components,
+	 * which are found in the specified container (or none), starting at the
+	 * specified position within that container.
+	 */
+	private void content(Holder h, List<Node> components, int cid, int[] position) {
+
+		for (Node node : components) {
+			Component c = (Component) node;
+
+			if (c instanceof ChoiceGroup) { // a class with a subclass for every alternative
+				Holder choice = nested(h, "choice", "a choice; an instance is one of the subclasses");
+				choice.isAbstract = true;
+				boolean repeats = c.maxOccurs() > 1;
+				String field = field(h, "choice", choice.path, repeats);
+				int key = containers.size(), p = position[0]++;
+				for (Node alternative : c.nodes()) {
+					Component a = (Component) alternative;
+					Holder variant = nested(choice, (a instanceof Type) ? name((Type) a) : "group", "an alternative of the choice");
+					variant.superclass = choice.path;
+					int acid = containers.size();
+					containers.add(new int[] { cid, key, p, repeats ? 1 : 0 });
+					container(acid, variant, h, field, choice.path, repeats);
+					content(variant, Collections.singletonList(alternative), acid, new int[1]);
+				}
+			}
+
+			else if (c instanceof ModelGroup) {
+				if (c.maxOccurs() <= 1) { // flattened
+					content(h, c.nodes(), cid, position); continue;
+				}
+				Holder group = nested(h, "group", "a repeated " + ((ModelGroup) c).getName());
+				String field = field(h, "group", group.path, true);
+				int gcid = containers.size();
+				containers.add(new int[] { cid, gcid, position[0]++, 1 });
+				container(gcid, group, h, field, group.path, true);
+				content(group, c.nodes(), gcid, new int[1]);
+			}
+
+			else slot(h, (Type) c, cid, position[0]++);
+		}
+	}
+
+
+	/** Adds a field for a type to a holder, and the code to create and add its objects. */
+	private void slot(Holder h, Type t, int cid, int position) {
+
+		int id = ids.get(t);
+		boolean repeats = t.maxOccurs() > 1;
+		slots[id] = new int[] { cid, position, repeats ? 1 : 0 };
+
+		String type;
+		if (t instanceof AnyType) {
+			type = "DataNode";
+			create.append("\t\t\tcase ").append(id).append(": return node;\n");
+		}
+		else if (t.getGlobalType() != null && globals.containsKey(t.getGlobalType())) {
+			Holder g = globals.get(t.getGlobalType());
+			type = g.path;
+			create.append("\t\t\tcase ").append(id).append(": return new ").append(g.path).append("();\n");
+			if (t instanceof DataType) value(id, g);
+		}
+		else if (t.getGlobalType() == null && isComplex(t)) {
+			Holder n = nested(h, t.getTypeName(), "the '" + t.getTypeName() + "' node");
+			type = n.path;
+			create.append("\t\t\tcase ").append(id).append(": return new ").append(n.path).append("();\n");
+			if (t instanceof DataType) {
+				n.valueType = javaType((DataType) t); n.fieldNames.add("value");
+				value(id, n);
+			}
+			content(n, t.nodes(), -1, new int[1]);
+		}
+		else type = (t instanceof DataType) ? javaType((DataType) t) : "Object";
+
+		String field = field(h, name(t), type, repeats);
+		add.append("\t\t\tcase ").append(id).append(": ((").append(h.path).append(") holder).").append(field)
+			.append(repeats ? ".add((" + type + ") value)" : " = (" + type + ") value").append("; break;\n");
+	}
+
+
+	/** Adds the code to set the simple content of a holder. */
+	private void value(int id, Holder h) {
+		value.append("\t\t\tcase ").append(id).append(": ((").append(h.path).append(") target).value = (")
+			.append(h.valueType).append(") value; break;\n");
+	}
+
+
+	/** Adds the code to create a container instance and add it to its holder. */
+	private void container(int cid, Holder c, Holder h, String field, String type, boolean repeats) {
+		container.append("\t\t\tcase ").append(cid).append(": return new ").append(c.path).append("();\n");
+		attach.append("\t\t\tcase ").append(cid).append(": ((").append(h.path).append(") holder).").append(field)
+			.append(repeats ? ".add((" + type + ") instance)" : " = (" + type + ") instance").append("; break;\n");
+	}
+
+
+	/** Returns the name of a type, which is "any" for an unnamed any type. */
+	private static String name(Type t) {
+		return t.getTypeName().isEmpty() ? AnyType.NAME : t.getTypeName();
+	}
+
+
+	/** Adds a nested class to a holder, with a unique name derived from the specified one. */
+	private static Holder nested(Holder h, String name, String comment) {
+
+		String base = identifier(name, true), unique = base;
+		for (int i = 2; ! isFree(h, unique); i++) unique = base + i;
+		Holder n = new Holder(unique, h, comment);
+		h.classNames.add(unique); h.nested.add(n);
+		return n;
+	}
+
+
+	/** Returns true if a class name is not used by the nested classes of a holder, or any enclosing class. */
+	private static boolean isFree(Holder h, String name) {
+		if (h.classNames.contains(name)) return false;
+		for (Holder o = h; o != null; o = o.outer)
+			if (o.name.equals(name)) return false;
+		return true;
+	}
+
+
+	/** Adds a field to a holder, with a unique name derived from the specified one, and returns that name. */
+	private static String field(Holder h, String name, String type, boolean list) {
+
+		String base = identifier(name, false), unique = base;
+		for (int i = 2; h.fieldNames.contains(unique); i++) unique = base + i;
+		h.fieldNames.add(unique);
+		h.fields.add(list ? "public final java.util.List<" + type + "> " + unique + " = new java.util.ArrayList<>();"
+			: "public " + type + " " + unique + ";");
+		return unique;
+	}
+
+
+	/**
+	 * Returns a Java identifier derived from a node name, by dropping invalid
+	 * characters and capitalizing the parts between them.
+	 */
+	private static String identifier(String name, boolean capitalize) {
+
+		StringBuilder sb = new StringBuilder();
+		boolean upper = capitalize;
+		for (char c : name.toCharArray()) {
+			if (! Character.isJavaIdentifierPart(c) || c == '$') {
+				upper = true; continue;
+			}
+			sb.append(upper ? Character.toUpperCase(c) : c); upper = false;
+		}
+		if (sb.length() == 0 || ! Character.isJavaIdentifierStart(sb.charAt(0))) sb.insert(0, '_');
+		String s = sb.toString();
+		return KEYWORDS.contains(s) ? s + "_" : s;
+	}
+
+
+	/**
+	 * Returns the Java type of the values of a data type, which is the type of
+	 * the values returned by its value constructor, or a string for custom data
+	 * types without one.
+	 */
+	private static String javaType(DataType type) {
+
+		if (type instanceof BooleanType) return "Boolean";
+		if (! (type instanceof CharacterType || type instanceof ComparableType)) return "String";
+		for (Class<?> c = type.getClass(); c != null; c = c.getSuperclass()) {
+			java.lang.reflect.Type s = c.getGenericSuperclass();
+			if (! (s instanceof ParameterizedType)) continue;
+			ParameterizedType p = (ParameterizedType) s;
+			if (p.getRawType() != CharacterType.class && p.getRawType() != ComparableType.class) continue;
+			java.lang.reflect.Type t = p.getActualTypeArguments()[0];
+			if (! (t instanceof Class) || ((Class<?>) t).getCanonicalName() == null) return "Object";
+			Class<?> v = (Class<?>) t;
+			return (v.getPackage() != null && v.getPackage().getName().equals("java.lang")) ? v.getSimpleName() : v.getCanonicalName();
+		}
+		return "Object";
+	}
+
+
+	/** Appends the source code of a holder and its nested classes. */
+	private static void holder(Holder h, int level, StringBuilder sb) {
+
+		String indent = String.join("", Collections.nCopies(level, "\t"));
+		sb.append("\n").append(indent).append("/** Holds ").append(JavaSource.comment(h.comment)).append(". */\n");
+		sb.append(indent).append(h.isAbstract ? "public abstract static class " : "public static final class ").append(h.name);
+		if (h.superclass != null) sb.append(" extends ").append(h.superclass);
+		sb.append(" {\n");
+		if (h.isAbstract)
+			sb.append("\n").append(indent).append("\tprivate ").append(h.name).append("() {}\n");
+		if (h.valueType != null || ! h.fields.isEmpty()) sb.append("\n");
+		if (h.valueType != null)
+			sb.append(indent).append("\tpublic ").append(h.valueType).append(" value;\n");
+		for (String field : h.fields) sb.append(indent).append('\t').append(field).append("\n");
+		for (Holder n : h.nested) holder(n, level + 1, sb);
+		sb.append(indent).append("}\n");
+	}
+
+
+	/** Appends the source code of the reader. */
+	private void reader(Schema schema, List<NodeType> types, StringBuilder sb) {
+
+		sb.append("\n\t/** Validates documents and binds them to the classes above. A reader is not thread-safe. */\n");
+		sb.append("\tpublic static final class ").append(READER).append(" extends BindingReader {\n\n");
+		sb.append("\t\tprivate static final int[][] SLOTS = ").append(table(Arrays.asList(slots))).append(";\n");
+		sb.append("\t\tprivate static final int[][] CONTAINERS = ").append(table(containers)).append(";\n\n");
+
+		sb.append("\t\t/**\n\t\t * Creates a reader for the schema that the classes were generated from.\n\t\t *\n");
+		sb.append("\t\t * @param schema a schema, not null\n");
+		sb.append("\t\t * @throws IllegalArgumentException if the schema is not the same\n\t\t */\n");
+		sb.append("\t\tpublic ").append(READER).append("(Schema schema) {\n");
+		sb.append("\t\t\tsuper(schema, ").append(BindingReader.hash(schema)).append(", SLOTS, CONTAINERS);\n\t\t}\n");
+
+		Set<String> methods = new HashSet<>();
+		for (NodeType type : types) {
+			Holder h = globals.get(type.getTypeName());
+			String base = "read" + identifier(type.getTypeName(), true), method = base;
+			for (int i = 2; ! methods.add(method); i++) method = base + i;
+			sb.append("\n\t\t/**\n\t\t * Validates a node against the '").append(JavaSource.comment(type.getTypeName()))
+				.append("' type and returns its content.\n\t\t *\n");
+			sb.append("\t\t * @param node a node, not null\n\t\t * @return the content of the node\n");
+			sb.append("\t\t * @throws ValidationException if the node is not valid\n\t\t */\n");
+			sb.append("\t\tpublic ").append(h.path).append(" ").append(method).append("(DataNode node) throws ValidationException {\n");
+			sb.append("\t\t\treturn (").append(h.path).append(") read(node, \"")
+				.append(JavaSource.literal(type.getTypeName())).append("\");\n\t\t}\n");
+		}
+
+		method("Object create(int id, DataNode node)", "id", create, "\t\t\tdefault: return null;\n", sb);
+		method("void value(int id, Object target, Object value)", "id", value, "", sb);
+		method("void add(int id, Object holder, Object value)", "id", add, "", sb);
+		method("Object container(int container)", "container", container, "\t\t\tdefault: throw new IllegalArgumentException();\n", sb);
+		method("void attach(int container, Object holder, Object instance)", "container", attach, "", sb);
+		sb.append("\t}\n");
+	}
+
+
+	/** Appends a method of the reader that switches on the specified parameter. */
+	private static void method(String signature, String parameter, StringBuilder cases, String otherwise, StringBuilder sb) {
+
+		sb.append("\n\t\t@Override\n\t\tprotected ").append(signature).append(" {\n");
+		sb.append("\t\t\tswitch (").append(parameter).append(") {\n");
+		sb.append(cases).append(otherwise);
+		sb.append("\t\t\t}\n\t\t}\n");
+	}
+
+
+	/** Returns an array initializer for a table of integers. */
+	private static String table(List<int[]> rows) {
+
+		StringBuilder sb = new StringBuilder("{");
+		for (int i = 0; i < rows.size(); i++) {
+			sb.append((i % 8 == 0) ? "\n\t\t\t" : " ").append("{ ");
+			for (int j = 0; j < rows.get(i).length; j++) sb.append(j > 0 ? ", " : "").append(rows.get(i)[j]);
+			sb.append(" },");
+		}
+		return sb.append("\n\t\t}").toString();
+	}
+}
@@ -0,0 +1,312 @@
+package be.baur.sds.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.AnyType;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.types.BooleanType;
+import be.baur.sds.types.CharacterType;
+import be.baur.sds.types.ComparableType;
+import be.baur.sds.types.StringType;
+import be.baur.sds.validation.ValidationException;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * This is the superclass of the readers generated by a
+ * {@link BindingGenerator}. A reader validates a document and binds it to the
+ * generated classes in a single traversal: it listens to the validator, and
+ * creates an object for every node as soon as the node has been matched to a
+ * type. The generated subclass knows, by the position of the type in the
+ * schema, which class to create and which field to set, so nodes are never
+ * looked up by name.
+ * <p>
+ * A reader is not thread-safe; use a reader per thread. Since the reader uses
+ * a listener, memoization and the compiled fast path do not apply.
+ */
+public abstract class BindingReader {
+
+	private final Validator validator;
+	private final Map<Component, Integer> ids = new IdentityHashMap<>();
+	private final int[][] slots; // per type: container, position, repeats
+	private final int[][] containers; // per container: outer, key, position, repeats
+
+	// state of the current read() call
+	private final List<Frame> frames = new ArrayList<>();
+	private int depth;
+	private Object root;
+	private boolean failed; // an error was found, so binding has stopped
+	private RuntimeException exception; // the first exception thrown while binding
+
+
+	/** The objects that are bound to the content of a node. */
+	private static final class Frame {
+
+		int id; // the id of the type of the node, or -1 if unknown
+		Object target; // the object bound to the node, null for simple content
+		Object[] current; // the current instance of every container
+		Object[] owner; // the object that the current instance was added to
+		int[] last; // the position of the most recent content of every container
+		int[] active; // the most recently used container of every key
+	}
+
+
+	/**
+	 * Creates a reader for a schema, which must be the schema that the subclass
+	 * was generated from.
+	 *
+	 * @param schema     a schema, not null
+	 * @param hash       the hash of the schema the subclass was generated from
+	 * @param slots      the container, position and repetition of every type
+	 * @param containers the outer container, key, position and repetition of
+	 *                   every container
+	 * @throws IllegalArgumentException if the schema is not the same
+	 */
+	protected BindingReader(Schema schema, int hash, int[][] slots, int[][] containers) {
+
+		Objects.requireNonNull(schema, "schema must not be null");
+		if (hash(schema) != hash)
+			throw new IllegalArgumentException("schema does not match the generated classes");
+		List<Component> components = components(schema);
+		for (int i = 0; i < components.size(); i++) ids.put(components.get(i), i);
+		this.slots = slots; this.containers = containers;
+		this.validator = schema.newValidator();
+		this.validator.setListener(new Binder());
+	}
+
+
+	/** Returns the hash of a schema, to make sure that it has not changed. */
+	static int hash(Schema schema) {
+		return schema.toString().hashCode();
+	}
+
+
+	/**
+	 * Returns the components of a schema in a fixed order, which determines the
+	 * id of every component. The content of type references is that of the
+	 * referenced global type, and is not included again.
+	 */
+	static List<Component> components(Schema schema) {
+
+		List<Component> components = new ArrayList<>();
+		for (Node node : schema.nodes()) components((Component) node, components);
+		return components;
+	}
+
+	private static void components(Component component, List<Component> components) {
+
+		components.add(component);
+		if (component.getGlobalType() == null && ! (component instanceof AnyType))
+			for (Node node : component.nodes()) components((Component) node, components);
+	}
+
+
+	/**
+	 * Validates a node against a global type, and returns the object it is bound
+	 * to.
+	 *
+	 * @param node a node, not null
+	 * @param type the name of a global type, not null
+	 * @return the bound object
+	 * @throws ValidationException if the node is not valid
+	 */
+	protected final Object read(DataNode node, String type) throws ValidationException {
+
+		Objects.requireNonNull(node, "node must not be null");
+		depth = 0; root = null; failed = false; exception = null;
+		validator.setTypeName(type);
+		try {
+			Errors errors = validator.validate(node);
+			if (! errors.isEmpty())
+				throw new ValidationException(errors);
+			if (exception != null)
+				throw new IllegalStateException("cannot bind '" + node.getName() + "'", exception);
+			return root;
+		} finally {
+			for (Frame frame : frames) { // do not hold on to the objects
+				frame.target = null;
+				if (frame.current != null) {
+					Arrays.fill(frame.current, null); Arrays.fill(frame.owner, null);
+				}
+			}
+			root = null; exception = null;
+		}
+	}
+
+
+	/** The listener that binds the nodes while they are validated. */
+	private final class Binder implements ValidationListener {
+
+		@Override
+		public void enterType(DataNode node, Type type) {
+
+			if (depth == frames.size()) frames.add(new Frame());
+			Frame frame = frames.get(depth++);
+			Integer id = ids.get(type);
+			frame.id = (id == null || failed) ? -1 : id;
+			frame.target = null;
+			if (frame.current != null) Arrays.fill(frame.current, null);
+			if (frame.id < 0) return;
+			try {
+				frame.target = create(frame.id, node);
+			} catch (RuntimeException e) {
+				fail(e);
+			}
+		}
+
+		@Override
+		public void leaveType(DataNode node, Type type) {
+
+			Frame frame = frames.get(--depth);
+			if (frame.id < 0 || failed) return;
+			try {
+				Object target = frame.target;
+				if (type instanceof DataType) {
+					Object value = value((DataType) type, node.getValue());
+					if (target == null) target = value;
+					else value(frame.id, target, value);
+				}
+				if (depth == 0) root = target;
+				else add(frames.get(depth - 1), frame.id, target);
+			} catch (RuntimeException e) {
+				fail(e);
+			}
+		}
+
+		@Override
+		public void error(Result<Node> error) {
+			failed = true;
+		}
+	}
+
+
+	/** Stops binding after an exception, which is thrown if no error is found. */
+	private void fail(RuntimeException e) {
+		if (exception == null) exception = e;
+		failed = true;
+	}
+
+
+	/**
+	 * Returns the value of a node for a data type. Empty values of types other
+	 * than string are returned as null.
+	 */
+	private static Object value(DataType type, String value) {
+
+		if (type instanceof StringType) return value;
+		if (value.isEmpty()) return null;
+		if (type instanceof CharacterType) return ((CharacterType<?>) type).valueConstructor().apply(value);
+		if (type instanceof ComparableType) return ((ComparableType<?>) type).valueConstructor().apply(value);
+		if (type instanceof BooleanType) return BooleanType.valueOf(value);
+		return value;
+	}
+
+
+	/** Adds the object bound to a node to the object bound to its parent. */
+	private void add(Frame parent, int id, Object value) {
+
+		if (parent.target == null) return; // the parent is not bound
+		int container = slots[id][0];
+		Object holder = (container < 0) ? parent.target : instance(parent, container, slots[id][1], slots[id][2] != 0);
+		add(id, holder, value);
+	}
+
+
+	/**
+	 * Returns the instance of a container that content with the specified
+	 * position belongs to. A new instance is created, and added to the instance of
+	 * its own container, if the content cannot belong to the current one; that is,
+	 * if there is none, if another alternative of a choice was used last, or if
+	 * the content is not behind the most recent content of the current instance.
+	 */
+	private Object instance(Frame frame, int container, int position, boolean repeats) {
+
+		if (frame.current == null) {
+			int n = containers.length;
+			frame.current = new Object[n]; frame.owner = new Object[n];
+			frame.last = new int[n]; frame.active = new int[n];
+		}
+
+		int[] c = containers[container]; int outer = c[0], key = c[1];
+		Object current = frame.current[container];
+		if (current != null && frame.active[key] == container
+			&& frame.owner[container] == (outer < 0 ? frame.target : frame.current[outer])
+			&& (position > frame.last[container] || position == frame.last[container] && repeats)) {
+			frame.last[container] = position;
+			return current;
+		}
+
+		Object holder = (outer < 0) ? frame.target : instance(frame, outer, c[2], c[3] != 0);
+		current = container(container);
+		attach(container, holder, current);
+		frame.current[container] = current; frame.owner[container] = holder;
+		frame.active[key] = container; frame.last[container] = position;
+		return current;
+	}
+
+
+	/**
+	 * Returns a new object for a node of the type with the specified id, or null
+	 * if the type has simple content only. For an "any" type, the node itself is
+	 * returned.
+	 *
+	 * @param id   the id of a type
+	 * @param node the node that matched the type
+	 * @return an object, may be null
+	 */
+	protected abstract Object create(int id, DataNode node);
+
+
+	/**
+	 * Sets the value of an object created for a type with complex and simple
+	 * content.
+	 *
+	 * @param id     the id of a type
+	 * @param target the object created for the type
+	 * @param value  the value, may be null
+	 */
+	protected abstract void value(int id, Object target, Object value);
+
+
+	/**
+	 * Adds the object or value bound to a node to the object that holds it.
+	 *
+	 * @param id     the id of the type of the node
+	 * @param holder the object bound to the parent node, or a container instance
+	 * @param value  the object or value, may be null
+	 */
+	protected abstract void add(int id, Object holder, Object value);
+
+
+	/**
+	 * Returns a new instance of a container, which is a model group that repeats
+	 * or an alternative of a choice.
+	 *
+	 * @param container the index of a container
+	 * @return an object
+	 */
+	protected abstract Object container(int container);
+
+
+	/**
+	 * Adds a container instance to the object that holds it.
+	 *
+	 * @param container the index of a container
+	 * @param holder    the object bound to the parent node, or an instance of the
+	 *                  outer container
+	 * @param instance  the container instance
+	 */
+	protected abstract void attach(int container, Object holder, Object instance);
+}
@@ -0,0 +1,391 @@
+package be.baur.sds.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import be.baur.sda.Node;
+import be.baur.sds.AnyType;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.NodeType;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.common.Interval;
+import be.baur.sds.common.NaturalInterval;
+import be.baur.sds.model.ChoiceGroup;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.model.UnorderedGroup;
+import be.baur.sds.types.BinaryType;
+import be.baur.sds.types.BooleanType;
+import be.baur.sds.types.CharacterType;
+import be.baur.sds.types.ComparableType;
+import be.baur.sds.types.DateTimeType;
+import be.baur.sds.types.DateType;
+import be.baur.sds.types.DecimalType;
+import be.baur.sds.types.IntegerType;
+import be.baur.sds.types.StringType;
+
+/**
+ * A {@code DocumentGenerator} produces synthetic SDA documents from a
+ * {@code Schema}, for example to test or benchmark validation at scale. The
+ * generator walks the content model of a global type and writes SDA output
+ * while it goes, so documents of any size can be produced without keeping them
+ * in memory. For example:
+ *
+ * <pre>
+ * DocumentGenerator generator = new DocumentGenerator(schema, 42);
+ * generator.generate(writer, "addressbook", 100_000_000);
+ * </pre>
+ *
+ * Generated documents respect the multiplicity of components, choice and
+ * unordered groups, and the length, value and pattern facets of data types.
+ * An error rate can be set to have the generator deliberately produce invalid
+ * nodes. Output is fully determined by the schema, the seed and the settings.
+ * <p>
+ * Values for custom data types cannot be generated from the facets alone; a
+ * value generator must be set for those, or they will be given a limiting value
+ * of their interval (if any) or an empty value.
+ */
+public final class DocumentGenerator {
+
+	private static final int MAX_DEPTH = 64; // beyond this depth, optional content is omitted
+	private static final String UNEXPECTED = "unexpected"; // name of injected unexpected nodes
+	private static final String INVALID = "#invalid#"; // injected invalid value
+
+	private final Schema schema;
+	private final Random random;
+	private final Map<String, Function<Random, String>> valueGenerators = new HashMap<>();
+	private final Map<Pattern, PatternGenerator> patternGenerators = new IdentityHashMap<>();
+
+	private int maxRepeat = 3; // maximum extra occurrences beyond the minimum
+	private double errorRate = 0; // probability of an injected error per node
+	private boolean indent = true; // whether to indent the output
+
+	// state of the current generate() call
+	private Writer output;
+	private long written, target, nodes, injected;
+
+
+	/**
+	 * Creates a generator for the specified schema, with a seed for the random
+	 * number generator.
+	 *
+	 * @param schema a schema, not null
+	 * @param seed   a random seed
+	 */
+	public DocumentGenerator(Schema schema, long seed) {
+		this.schema = Objects.requireNonNull(schema, "schema must not be null");
+		this.random = new Random(seed);
+	}
+
+
+	/**
+	 * Sets the maximum number of occurrences of a component beyond its minimum,
+	 * for components that are not used to reach the target size. The default is
+	 * 3. The formal multiplicity of the component is never exceeded.
+	 *
+	 * @param max a non-negative integer
+	 */
+	public void setMaxRepeat(int max) {
+		if (max < 0) throw new IllegalArgumentException("max must not be negative");
+		this.maxRepeat = max;
+	}
+
+
+	/**
+	 * Sets the probability that an error is injected in a generated node. An
+	 * error is either an invalid value, or an unexpected node in place of the
+	 * node that was due. The default rate is 0, so all output is valid.
+	 *
+	 * @param rate a probability between 0 and 1 (inclusive)
+	 */
+	public void setErrorRate(double rate) {
+		if (rate < 0 || rate > 1) throw new IllegalArgumentException("rate must be between 0 and 1");
+		this.errorRate = rate;
+	}
+
+
+	/**
+	 * Sets whether the output is indented (one node per line) or written as a
+	 * single line of text. Output is indented by default.
+	 *
+	 * @param indent true or false
+	 */
+	public void setIndent(boolean indent) {
+		this.indent = indent;
+	}
+
+
+	/**
+	 * Sets the value generator for a data type, overriding the default one. The
+	 * generator should return valid values with respect to the facets that are
+	 * used in the schema for that type.
+	 *
+	 * @param type      the name of a data type, not null
+	 * @param generator a function returning a value, or null to remove it
+	 */
+	public void setValueGenerator(String type, Function<Random, String> generator) {
+		Objects.requireNonNull(type, "type must not be null");
+		if (generator == null) valueGenerators.remove(type);
+		else valueGenerators.put(type, generator);
+	}
+
+
+	/**
+	 * Returns the number of errors that were injected in the most recently
+	 * generated document.
+	 *
+	 * @return a non-negative number
+	 */
+	public long getInjectedErrors() {
+		return injected;
+	}
+
+
+	/**
+	 * Writes a document to the output, based on the specified global type. The
+	 * target size is the (approximate) number of characters to generate. It is
+	 * reached by repeating components of the root type that may occur more than
+	 * once, so if the root type has none, the document may be smaller.
+	 *
+	 * @param output   a writer, not null
+	 * @param typeName the name of a global type, not null
+	 * @param size     the target size in characters
+	 * @return the number of nodes written
+	 * @throws IOException              if an I/O operation failed
+	 * @throws IllegalArgumentException if the type is not found in the schema
+	 */
+	public long generate(Writer output, String typeName, long size) throws IOException {
+
+		Objects.requireNonNull(output, "output must not be null");
+		NodeType type = schema.getGlobalType(typeName);
+		if (type == null)
+			throw new IllegalArgumentException("no such global type (" + typeName + ")");
+
+		this.output = output; this.target = size;
+		written = 0; nodes = 0; injected = 0;
+		type(type, 0);
+		if (indent) write("\n");
+		output.flush();
+		return nodes;
+	}
+
+
+	/** Generates a node for a type, at a specific depth (root is 0). */
+	private void type(Type type, int depth) throws IOException {
+
+		++nodes;
+		if (indent && depth > 0) {
+			write("\n");
+			for (int i = 0; i < depth; i++) write("\t");
+		}
+
+		if (type instanceof AnyType) { // any value will do, so we inject no errors here
+			write(((AnyType) type).isNamed() ? type.getTypeName() : "any");
+			write(" "); quote("" + random.nextInt(1000));
+			return;
+		}
+
+		boolean inject = errorRate > 0 && random.nextDouble() < errorRate;
+
+		String name = type.getTypeName(), value = null;
+		if (type instanceof DataType) {
+			value = value((DataType) type);
+			if (inject) {
+				String invalid = invalid((DataType) type);
+				if (invalid != null) { value = invalid; inject = false; ++injected; }
+			}
+		}
+		if (inject) { // we could not make the value invalid, so the node is unexpected
+			name = UNEXPECTED; ++injected;
+		}
+
+		write(name);
+		if (value != null) {
+			write(" "); quote(value);
+		}
+		if (type.isLeaf()) return;
+
+		write(" {");
+		for (Node child : type.nodes())
+			component((Component) child, depth + 1);
+
+		if (indent) {
+			write("\n");
+			for (int i = 0; i < depth; i++) write("\t");
+		} else write(" ");
+		write("}");
+	}
+
+
+	/** Generates the occurrences of a component within its context. */
+	private void component(Component comp, int depth) throws IOException {
+
+		int min = comp.getMultiplicity().min, max = comp.getMultiplicity().max;
+		int count;
+		if (depth >= MAX_DEPTH)
+			count = min; // stop recursion as soon as we can
+		else if (depth == 1 && max > 1)
+			count = -1; // grow towards the target size
+		else
+			count = min + random.nextInt(Math.min(max - min, maxRepeat) + 1);
+
+		for (int i = 0; count < 0 ? (i < min || written < target) && i < max : i < count; i++) {
+			if (comp instanceof ModelGroup) group((ModelGroup) comp, depth);
+			else type((Type) comp, depth);
+		}
+	}
+
+
+	/** Generates one occurrence of a model group. */
+	private void group(ModelGroup group, int depth) throws IOException {
+
+		List<Component> components = new ArrayList<>();
+		for (Node child : group.nodes()) components.add((Component) child);
+
+		if (group instanceof ChoiceGroup) {
+			component(components.get(random.nextInt(components.size())), depth);
+			return;
+		}
+		if (group instanceof UnorderedGroup)
+			Collections.shuffle(components, random);
+
+		for (Component comp : components) component(comp, depth);
+	}
+
+
+	/** Returns a valid value for a data type. */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private String value(DataType type) {
+
+		Function<Random, String> generator = valueGenerators.get(type.getType());
+		if (generator != null) return generator.apply(random);
+
+		NaturalInterval length = (type instanceof CharacterType)
+			? ((CharacterType<?>) type).getLength() : NaturalInterval.ZERO_TO_MAX;
+
+		if (type.getPattern() != null) {
+			PatternGenerator pg = patternGenerators.computeIfAbsent(type.getPattern(), PatternGenerator::new);
+			String value = pg.generate(random, length.min, length.max);
+			if (value == null) throw new IllegalArgumentException("cannot generate a value for '"
+				+ type.getTypeName() + "' with pattern '" + type.getPattern() + "'");
+			return value;
+		}
+
+		if (type instanceof StringType) {
+			int n = length.min + random.nextInt(Math.min(length.max - length.min, 16) + 1);
+			if (n == 0 && ! type.isNullable()) n = 1;
+			StringBuilder sb = new StringBuilder(n);
+			for (int i = 0; i < n; i++) sb.append((char) ('a' + random.nextInt(26)));
+			return sb.toString();
+		}
+		if (type instanceof BinaryType) {
+			int n = length.min + random.nextInt(Math.min(length.max - length.min, 16) + 1);
+			if (n == 0 && ! type.isNullable()) n = 1;
+			byte[] bytes = new byte[n]; random.nextBytes(bytes);
+			return Base64.getEncoder().encodeToString(bytes);
+		}
+		if (type instanceof BooleanType)
+			return random.nextBoolean() ? BooleanType.TRUE : BooleanType.FALSE;
+
+		if (type instanceof ComparableType) {
+			Interval range = ((ComparableType<?>) type).getInterval();
+
+			if (type instanceof IntegerType) {
+				long lo = (range.min == null) ? 0 : (Integer) range.min;
+				long hi = (range.max == null) ? lo + 1000 : (Integer) range.max;
+				if ((range.type & Interval.LEFT_OPEN) > 0 && range.min != null) ++lo;
+				if ((range.type & Interval.RIGHT_OPEN) > 0 && range.max != null) --hi;
+				if (range.min == null && hi < lo) lo = hi - 1000;
+				return "" + (lo + (long) (random.nextDouble() * (hi - lo + 1)));
+			}
+			if (type instanceof DecimalType) {
+				double lo = (range.min == null) ? 0 : (Double) range.min;
+				double hi = (range.max == null) ? lo + 1000 : (Double) range.max;
+				if (range.min == null && hi < lo) lo = hi - 1000;
+				double value; // avoid the limits, in case they are exclusive
+				do value = lo + random.nextDouble() * (hi - lo); while (range.contains(value) != 0 && lo < hi);
+				return "" + value;
+			}
+			if (type instanceof DateType) {
+				long lo = (range.min == null) ? LocalDate.of(1970, 1, 1).toEpochDay() : ((LocalDate) range.min).toEpochDay();
+				long hi = (range.max == null) ? lo + 36500 : ((LocalDate) range.max).toEpochDay();
+				if ((range.type & Interval.LEFT_OPEN) > 0 && range.min != null) ++lo;
+				if ((range.type & Interval.RIGHT_OPEN) > 0 && range.max != null) --hi;
+				if (range.min == null && hi < lo) lo = hi - 36500;
+				return LocalDate.ofEpochDay(lo + (long) (random.nextDouble() * (hi - lo + 1))).toString();
+			}
+			if (type instanceof DateTimeType) {
+				long lo = (range.min == null) ? 0 : ((ZonedDateTime) range.min).toEpochSecond() + 1;
+				long hi = (range.max == null) ? lo + 3153600000L : ((ZonedDateTime) range.max).toEpochSecond() - 1;
+				if (range.min == null && hi < lo) lo = hi - 3153600000L;
+				ZonedDateTime value = ZonedDateTime.ofInstant(java.time.Instant.ofEpochSecond(
+					lo + (long) (random.nextDouble() * (hi - lo + 1))), ZoneOffset.UTC);
+				return value.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+			}
+			// a custom type, all we can do is use a limiting value
+			if (range.min != null && (range.type & Interval.LEFT_OPEN) == 0) return range.min.toString();
+			if (range.max != null && (range.type & Interval.RIGHT_OPEN) == 0) return range.max.toString();
+		}
+		return "";
+	}
+
+
+	/** Returns an invalid value for a data type, or null if there is no such value. */
+	private String invalid(DataType type) {
+
+		if (! type.isNullable()) return ""; // an empty value is invalid
+		if (! (type instanceof StringType)) return INVALID; // not in the lexical space
+
+		NaturalInterval length = ((StringType) type).getLength();
+		if (length.max < Integer.MAX_VALUE) { // too long
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i <= length.max; i++) sb.append('x');
+			return sb.toString();
+		}
+		if (length.min > 1) { // too short, but not empty
+			StringBuilder sb = new StringBuilder();
+			for (int i = 1; i < length.min; i++) sb.append('x');
+			return sb.toString();
+		}
+		if (type.getPattern() != null && ! type.getPattern().matcher(INVALID).matches())
+			return INVALID; // not matching
+		return null; // any string will do
+	}
+
+
+	/** Writes a quoted value, escaping quotes and backslashes. */
+	private void quote(String value) throws IOException {
+
+		write("\"");
+		int from = 0;
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"' || c == '\\') {
+				write(value.substring(from, i)); write("\\"); from = i;
+			}
+		}
+		write(value.substring(from));
+		write("\"");
+	}
+
+
+	private void write(String s) throws IOException {
+		output.write(s); written += s.length();
+	}
+}
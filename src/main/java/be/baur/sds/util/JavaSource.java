@@ -0,0 +1,58 @@
+package be.baur.sds.util;
+
+/**
+ * This class has the methods that the generators of this library share to
+ * write Java source code. It is public only because the generators are in more
+ * than one package, and is not meant to be used by applications.
+ */
+public final class JavaSource {
+
+	private JavaSource() {} // cannot construct this
+
+
+	/**
+	 * Returns true if a string is a valid Java identifier.
+	 *
+	 * @param s a string, not null
+	 * @return true or false
+	 */
+	public static boolean isIdentifier(String s) {
+
+		if (s.isEmpty() || ! Character.isJavaIdentifierStart(s.charAt(0))) return false;
+		for (int i = 1; i < s.length(); i++)
+			if (! Character.isJavaIdentifierPart(s.charAt(i))) return false;
+		return true;
+	}
+
+
+	/**
+	 * Returns a string with the characters escaped for use in a Java string
+	 * literal.
+	 *
+	 * @param s a string, not null
+	 * @return the escaped string
+	 */
+	public static String literal(String s) {
+
+		StringBuilder sb = new StringBuilder();
+		for (char c : s.toCharArray()) {
+			if (c == '"' || c == '\\') sb.append('\\').append(c);
+			else if (c < 0x20) sb.append(String.format("\\%03o", (int) c));
+			else if (c > 0x7e) sb.append(String.format("\\u%04x", (int) c));
+			else sb.append(c);
+		}
+		return sb.toString();
+	}
+
+
+	/**
+	 * Returns a string with any characters that are not safe in a Java comment
+	 * replaced by a question mark.
+	 *
+	 * @param s a string, not null
+	 * @return the safe string
+	 */
+	public static String comment(String s) {
+		return s.replaceAll("[^A-Za-z0-9_.' ;-]", "?");
+	}
+}
@@ -0,0 +1,213 @@
+package be.baur.sds.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * This non-public class generates random strings that match a regular
+ * expression. It supports the constructs commonly found in schema patterns:
+ * literals, escapes (like \d, \w and \s), the dot, character classes (ranges
+ * and negation), groups (capturing and non-capturing), alternation, and the
+ * quantifiers ?, *, +, {n}, {n,} and {n,m}. Anchors are ignored. Unbounded
+ * quantifiers produce a limited number of repetitions.
+ */
+final class PatternGenerator {
+
+	private static final int UNBOUNDED_EXTRA = 4; // max extra repetitions for * + and {n,}
+	private static final char[] PRINTABLE = printable(); // all printable ASCII characters
+
+	private final Pattern pattern; // the pattern that generated strings must match
+	private final Element root; // the parsed expression
+	private final String regex; private int pos; // parser state
+
+
+	/** An element of a parsed regular expression. */
+	private interface Element {
+		void generate(StringBuilder sb, Random random);
+	}
+
+
+	/**
+	 * Creates a generator for the specified pattern.
+	 *
+	 * @param pattern a pattern, not null
+	 * @throws IllegalArgumentException if the pattern uses unsupported constructs
+	 */
+	PatternGenerator(Pattern pattern) {
+		this.pattern = pattern;
+		this.regex = pattern.pattern();
+		this.root = alternation();
+		if (pos < regex.length())
+			throw unsupported();
+	}
+
+
+	/**
+	 * Returns a string that matches the pattern, and whose length lies within the
+	 * specified limits. Since the length is not under direct control, a number of
+	 * attempts is made, and null is returned if all of them fail.
+	 */
+	String generate(Random random, int minLength, int maxLength) {
+
+		StringBuilder sb = new StringBuilder();
+		for (int attempt = 0; attempt < 100; attempt++) {
+			sb.setLength(0); root.generate(sb, random);
+			if (sb.length() >= minLength && sb.length() <= maxLength && pattern.matcher(sb).matches())
+				return sb.toString();
+		}
+		return null;
+	}
+
+
+	// code below this line is a simple recursive descent parser
+
+
+	private Element alternation() {
+
+		List<Element> alternatives = new ArrayList<>();
+		alternatives.add(sequence());
+		while (pos < regex.length() && regex.charAt(pos) == '|') {
+			++pos; alternatives.add(sequence());
+		}
+		if (alternatives.size() == 1) return alternatives.get(0);
+		return (sb, random) -> alternatives.get(random.nextInt(alternatives.size())).generate(sb, random);
+	}
+
+
+	private Element sequence() {
+
+		List<Element> elements = new ArrayList<>();
+		while (pos < regex.length() && regex.charAt(pos) != '|' && regex.charAt(pos) != ')') {
+			Element atom = atom();
+			if (atom != null) elements.add(quantifier(atom));
+		}
+		return (sb, random) -> { for (Element e : elements) e.generate(sb, random); };
+	}
+
+
+	private Element atom() {
+
+		char c = regex.charAt(pos++);
+		switch (c) {
+			case '^': case '$': return null; // anchors are implied
+			case '.': return chars(PRINTABLE);
+			case '[': return characterClass();
+			case '\\': return chars(escape(false));
+			case '(':
+				if (regex.startsWith("?:", pos)) pos += 2;
+				else if (pos < regex.length() && regex.charAt(pos) == '?') throw unsupported();
+				Element group = alternation();
+				if (pos >= regex.length() || regex.charAt(pos++) != ')') throw unsupported();
+				return group;
+			case '*': case '+': case '?': case '{': throw unsupported();
+			default: return (sb, random) -> sb.append(c);
+		}
+	}
+
+
+	private Element quantifier(Element atom) {
+
+		if (pos >= regex.length()) return atom;
+		int min, max; char c = regex.charAt(pos);
+		switch (c) {
+			case '?': min = 0; max = 1; break;
+			case '*': min = 0; max = UNBOUNDED_EXTRA; break;
+			case '+': min = 1; max = 1 + UNBOUNDED_EXTRA; break;
+			case '{':
+				int close = regex.indexOf('}', pos);
+				if (close < 0) throw unsupported();
+				String[] limits = regex.substring(pos + 1, close).split(",", -1);
+				try {
+					min = Integer.parseInt(limits[0].trim());
+					max = (limits.length == 1) ? min : limits[1].trim().isEmpty()
+						? min + UNBOUNDED_EXTRA : Integer.parseInt(limits[1].trim());
+				} catch (NumberFormatException e) {
+					throw unsupported();
+				}
+				pos = close; break;
+			default: return atom;
+		}
+		++pos;
+		if (pos < regex.length() && (regex.charAt(pos) == '?' || regex.charAt(pos) == '+'))
+			++pos; // reluctant and possessive quantifiers make no difference here
+
+		final int lo = min, hi = max;
+		return (sb, random) -> {
+			int n = lo + random.nextInt(hi - lo + 1);
+			for (int i = 0; i < n; i++) atom.generate(sb, random);
+		};
+	}
+
+
+	/** Parses a character class, the opening bracket has been consumed. */
+	private Element characterClass() {
+
+		boolean negate = pos < regex.length() && regex.charAt(pos) == '^';
+		if (negate) ++pos;
+
+		StringBuilder set = new StringBuilder();
+		boolean first = true;
+		while (pos < regex.length() && (regex.charAt(pos) != ']' || first)) {
+			first = false;
+			char c = regex.charAt(pos++);
+			if (c == '[') throw unsupported(); // no unions or intersections
+			if (c == '\\') { set.append(escape(true)); continue; }
+			if (pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+				char to = regex.charAt(pos + 1); pos += 2;
+				if (to == '\\') throw unsupported();
+				for (char r = c; r <= to; r++) set.append(r);
+			}
+			else set.append(c);
+		}
+		if (pos >= regex.length()) throw unsupported();
+		++pos; // skip the closing bracket
+
+		if (! negate) return chars(set.toString().toCharArray());
+		StringBuilder complement = new StringBuilder();
+		for (char c : PRINTABLE) if (set.indexOf(String.valueOf(c)) < 0) complement.append(c);
+		return chars(complement.toString().toCharArray());
+	}
+
+
+	/** Parses an escape sequence, the backslash has been consumed. */
+	private char[] escape(boolean inClass) {
+
+		if (pos >= regex.length()) throw unsupported();
+		char c = regex.charAt(pos++);
+		switch (c) {
+			case 'd': return "0123456789".toCharArray();
+			case 'w': return "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789_".toCharArray();
+			case 's': return new char[] {' '};
+			case 'D': case 'W': case 'S':
+				Pattern p = Pattern.compile("\\" + c); StringBuilder sb = new StringBuilder();
+				for (char x : PRINTABLE) if (p.matcher(String.valueOf(x)).matches()) sb.append(x);
+				return sb.toString().toCharArray();
+			case 't': return new char[] {'\t'};
+			case 'n': return new char[] {'\n'};
+			case 'r': return new char[] {'\r'};
+			default:
+				if (Character.isLetterOrDigit(c)) throw unsupported(); // \b, \p{..}, back references, etc.
+				return new char[] {c};
+		}
+	}
+
+
+	private static Element chars(char[] set) {
+		if (set.length == 0) throw new IllegalArgumentException("empty character class");
+		return (sb, random) -> sb.append(set[random.nextInt(set.length)]);
+	}
+
+
+	private IllegalArgumentException unsupported() {
+		return new IllegalArgumentException("unsupported pattern '" + regex + "'");
+	}
+
+
+	private static char[] printable() {
+		char[] chars = new char[0x7F - 0x20];
+		for (int i = 0; i < chars.length; i++) chars[i] = (char) (0x20 + i);
+		return chars;
+	}
+}
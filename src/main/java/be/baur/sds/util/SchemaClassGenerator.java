@@ -0,0 +1,227 @@
+package be.baur.sds.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+import be.baur.sda.Node;
+import be.baur.sds.AnyType;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.NodeType;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.common.NaturalInterval;
+import be.baur.sds.model.ChoiceGroup;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.model.SequenceGroup;
+import be.baur.sds.model.UnorderedGroup;
+import be.baur.sds.types.CharacterType;
+import be.baur.sds.types.ComparableType;
+
+/**
+ * A {@code SchemaClassGenerator} writes the Java source code of a class that
+ * builds a schema with the component API, so that the schema can be loaded at
+ * runtime without reading and parsing SDS. This is intended to be used at build
+ * time, for example:
+ *
+ * <pre>
+ * Schema schema = SDS.parse(reader); // fails if the schema is not valid
+ * new SchemaClassGenerator("com.example.AddressbookSchema").generate(schema, writer);
+ * </pre>
+ *
+ * The generated class has a static {@code schema()} method that returns a new
+ * instance of the schema every time it is called:
+ *
+ * <pre>
+ * Validator validator = AddressbookSchema.schema().newValidator();
+ * </pre>
+ *
+ * Data types are created with {@link Schema#getDataType}, so custom data types
+ * used by the schema must be registered before the schema is built. Patterns
+ * and value ranges are still compiled when the schema is built, but from their
+ * own notation only.
+ */
+public final class SchemaClassGenerator {
+
+	private final String packageName; // empty for the default package
+	private final String className;
+
+	// state of the current generate() call
+	private Writer output;
+	private int methods; // the number of methods generated so far
+
+
+	/**
+	 * Creates a generator for a class with the specified name.
+	 *
+	 * @param name a fully qualified class name, not null
+	 * @throws IllegalArgumentException if the name is not a valid class name
+	 */
+	public SchemaClassGenerator(String name) {
+
+		Objects.requireNonNull(name, "name must not be null");
+		for (String part : name.split("\\.", -1))
+			if (! JavaSource.isIdentifier(part))
+				throw new IllegalArgumentException("invalid class name (" + name + ")");
+		int dot = name.lastIndexOf('.');
+		packageName = (dot < 0) ? "" : name.substring(0, dot);
+		className = name.substring(dot + 1);
+	}
+
+
+	/**
+	 * Writes the source code of a class that builds the specified schema.
+	 *
+	 * @param schema a schema, not null
+	 * @param output a writer, not null
+	 * @throws IOException if an I/O operation failed
+	 */
+	public void generate(Schema schema, Writer output) throws IOException {
+
+		Objects.requireNonNull(schema, "schema must not be null");
+		this.output = Objects.requireNonNull(output, "output must not be null");
+		methods = 0;
+
+		write("// Generated from an SDS schema; do not edit.\n");
+		if (! packageName.isEmpty())
+			write("package " + packageName + ";\n");
+		write("\n");
+		write("import be.baur.sds.AnyType;\n");
+		write("import be.baur.sds.Component;\n");
+		write("import be.baur.sds.DataType;\n");
+		write("import be.baur.sds.NodeType;\n");
+		write("import be.baur.sds.Schema;\n");
+		write("import be.baur.sds.common.Interval;\n");
+		write("import be.baur.sds.common.NaturalInterval;\n");
+		write("import be.baur.sds.model.ChoiceGroup;\n");
+		write("import be.baur.sds.model.SequenceGroup;\n");
+		write("import be.baur.sds.model.UnorderedGroup;\n");
+		write("import be.baur.sds.types.CharacterType;\n");
+		write("import be.baur.sds.types.ComparableType;\n");
+		write("import java.util.regex.Pattern;\n");
+		write("\n");
+		write("/** Builds a schema with " + schema.nodes().size() + " global type(s). */\n");
+		write("@SuppressWarnings({ \"unchecked\", \"rawtypes\", \"unused\" })\n");
+		write("public final class " + className + " {\n\n");
+		write("\tprivate " + className + "() {}\n\n");
+
+		StringBuilder body = new StringBuilder(); // the methods of the global types are written first
+		for (Node node : schema.nodes())
+			body.append("\t\tschema.add(").append(method((Component) node)).append("());\n");
+		write("\t/** Returns a new instance of the schema. */\n");
+		write("\tpublic static Schema schema() {\n");
+		write("\t\tSchema schema = new Schema();\n");
+		write(body.toString());
+		write("\t\treturn schema;\n\t}\n\n");
+
+		write("\tprivate static DataType type(String type, String name) {\n");
+		write("\t\tDataType t = Schema.getDataType(type, name);\n");
+		write("\t\tif (t == null) throw new IllegalStateException(\"type '\" + type + \"' is unknown\");\n");
+		write("\t\treturn t;\n\t}\n\n");
+		write("\tprivate static void value(Component type, String interval) {\n");
+		write("\t\t((ComparableType) type).setInterval(Interval.from(interval, ((ComparableType) type).valueConstructor()));\n");
+		write("\t}\n");
+		write("}\n");
+		output.flush();
+	}
+
+
+	/**
+	 * Writes a method that creates a component with its content, and any methods
+	 * that create complex child components, and returns the name of the method.
+	 * Every complex component gets a method of its own, which keeps the size of
+	 * the methods in check.
+	 */
+	private String method(Component component) throws IOException {
+
+		String name = "c" + (++methods);
+		StringBuilder sb = new StringBuilder();
+		sb.append("\t/** ").append(comment(component)).append(" */\n");
+		sb.append("\tprivate static Component ").append(name).append("() {\n");
+		sb.append("\t\tComponent c, t;\n");
+		create(component, "c", sb);
+		for (Node node : component.nodes()) {
+			Component child = (Component) node;
+			if (isComplex(child))
+				sb.append("\t\tc.add(").append(method(child)).append("());\n");
+			else {
+				create(child, "t", sb);
+				sb.append("\t\tc.add(t);\n");
+			}
+		}
+		sb.append("\t\treturn c;\n\t}\n\n");
+		write(sb.toString());
+		return name;
+	}
+
+
+	/** Returns true if a component has content of its own. */
+	private static boolean isComplex(Component component) {
+		return component.getGlobalType() == null && component.isParent();
+	}
+
+
+	/**
+	 * Appends the statements that create a component (not its content) to the
+	 * method body, and assign it to the specified variable.
+	 */
+	private static void create(Component component, String v, StringBuilder sb) {
+
+		sb.append("\t\t").append(v).append(" = ");
+		if (component instanceof ModelGroup) {
+			String group = (component instanceof ChoiceGroup) ? ChoiceGroup.class.getSimpleName()
+				: (component instanceof UnorderedGroup) ? UnorderedGroup.class.getSimpleName()
+				: SequenceGroup.class.getSimpleName();
+			sb.append("new ").append(group).append("();\n");
+		}
+		else if (component instanceof AnyType)
+			sb.append("new AnyType(\"").append(JavaSource.literal(((AnyType) component).getTypeName())).append("\");\n");
+		else if (component instanceof DataType) {
+			DataType type = (DataType) component;
+			sb.append("type(\"").append(JavaSource.literal(type.getType())).append("\", \"")
+				.append(JavaSource.literal(type.getTypeName())).append("\");\n");
+			String d = "((DataType) " + v + ")";
+			sb.append("\t\t").append(d).append(".setNullable(").append(type.isNullable()).append(");\n");
+			Pattern pattern = type.getPattern();
+			if (pattern != null) {
+				sb.append("\t\t").append(d).append(".setPattern(Pattern.compile(\"").append(JavaSource.literal(pattern.pattern())).append('"');
+				if (pattern.flags() != 0) sb.append(", ").append(pattern.flags());
+				sb.append("));\n");
+			}
+			if (type instanceof CharacterType) {
+				NaturalInterval length = ((CharacterType<?>) type).getLength();
+				if (length.min != 0 || length.max != Integer.MAX_VALUE)
+					sb.append("\t\t((CharacterType) ").append(v).append(").setLength(NaturalInterval.from(")
+						.append(length.min).append(", ").append(length.max).append("));\n");
+			}
+			if (type instanceof ComparableType) {
+				ComparableType<?> t = (ComparableType<?>) type;
+				if (t.getInterval().min != null || t.getInterval().max != null)
+					sb.append("\t\tvalue(").append(v).append(", \"").append(JavaSource.literal(t.getInterval().toString())).append("\");\n");
+			}
+		}
+		else sb.append("new NodeType(\"").append(JavaSource.literal(((NodeType) component).getTypeName())).append("\");\n");
+
+		if (component.getGlobalType() != null)
+			sb.append("\t\t").append(v).append(".setGlobalType(\"").append(JavaSource.literal(component.getGlobalType())).append("\");\n");
+		NaturalInterval occurs = component.getMultiplicity();
+		if (occurs.min != 1 || occurs.max != 1)
+			sb.append("\t\t").append(v).append(".setMultiplicity(NaturalInterval.from(")
+				.append(occurs.min).append(", ").append(occurs.max).append("));\n");
+	}
+
+
+	/** Returns a short description of a component for use in a comment. */
+	private static String comment(Component component) {
+
+		String name = (component instanceof Type) ? ((Type) component).getTypeName() : component.getName();
+		return JavaSource.comment(name);
+	}
+
+
+	private void write(String s) throws IOException {
+		output.write(s);
+	}
+}
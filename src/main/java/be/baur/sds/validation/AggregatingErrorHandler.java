@@ -0,0 +1,178 @@
+package be.baur.sds.validation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+
+/**
+ * An {@code ErrorHandler} that groups similar errors rather than keeping every
+ * one of them. Errors are similar if they are of the same kind, and were found
+ * at the same location in the schema, that is, at the same path when sibling
+ * positions are ignored. For example, a wrong node in every record of a list
+ * yields a single group. It is used like this:
+ *
+ * <pre>
+ * AggregatingErrorHandler aggregate = new AggregatingErrorHandler(5);
+ * validator.validate(document, aggregate);
+ * for (AggregatingErrorHandler.Group group : aggregate.getGroups())
+ *     System.out.println(group); // count, location, message and sample paths
+ * </pre>
+ *
+ * Each group keeps the number of errors, the message of the first one, and the
+ * paths of the first few, so memory use depends on the number of groups rather
+ * than the number of errors. An aggregating handler is not thread-safe; use a
+ * new one for every validation.
+ */
+public final class AggregatingErrorHandler implements ErrorHandler {
+
+	private final int samples; // the maximum number of sample paths per group
+	private final Map<Key, Group> groups = new HashMap<>();
+	private final List<Group> ordered = new ArrayList<>(); // in order of appearance
+	private long count = 0; // the number of errors handled
+
+	private Node parent; private String location; // the location of the most recent parent
+
+
+	/** A group of similar errors. */
+	public static final class Group {
+
+		private final String location;
+		private final String message;
+		private long count = 0;
+		private final List<String> samples = new ArrayList<>();
+
+		private Group(String location, String message) {
+			this.location = location; this.message = message;
+		}
+
+		/** Returns the path of the errors in this group, without sibling positions. */
+		public String getLocation() { return location; }
+
+		/** Returns the message of the first error in this group. */
+		public String getMessage() { return message; }
+
+		/** Returns the number of errors in this group. */
+		public long getCount() { return count; }
+
+		/** Returns the paths of the first errors in this group. */
+		public List<String> getSamples() { return Collections.unmodifiableList(samples); }
+
+		@Override
+		public String toString() {
+			return String.format("%d x %s: %s %s", count, location, message, samples);
+		}
+	}
+
+
+	/** The kind and location of an error. */
+	private static final class Key {
+
+		final String template, location;
+
+		Key(String template, String location) {
+			this.template = template; this.location = location;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (! (o instanceof Key)) return false;
+			Key k = (Key) o;
+			return template.equals(k.template) && location.equals(k.location);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * template.hashCode() + location.hashCode();
+		}
+	}
+
+
+	/** Creates a handler that keeps 10 sample paths per group. */
+	public AggregatingErrorHandler() {
+		this(10);
+	}
+
+
+	/**
+	 * Creates a handler that keeps the specified number of sample paths per group.
+	 *
+	 * @param samples the maximum number of sample paths, not negative
+	 * @throws IllegalArgumentException if the number is negative
+	 */
+	public AggregatingErrorHandler(int samples) {
+		if (samples < 0) throw new IllegalArgumentException("samples must not be negative");
+		this.samples = samples;
+	}
+
+
+	/**
+	 * Adds an error to its group, and continues validation.
+	 *
+	 * @return true
+	 */
+	@Override
+	public boolean error(Result<Node> error) {
+
+		String template = (error instanceof Validator.Error) ? ((Validator.Error) error).template : error.getMessage();
+		Key key = new Key(template, location(error.getValue()));
+		Group group = groups.get(key);
+		if (group == null) {
+			group = new Group(key.location, error.getMessage());
+			groups.put(key, group); ordered.add(group);
+		}
+		if (group.samples.size() < samples)
+			group.samples.add((error instanceof Validator.Error) ? ((Validator.Error) error).path() : error.getValue().path());
+		++group.count; ++count;
+		return true;
+	}
+
+
+	/** Returns the path of a node without sibling positions, like "/a/b/c". */
+	private String location(Node node) {
+
+		Node p = node.getParent();
+		if (p == null) return "/" + node.getName();
+		if (p != parent) { // siblings are usually reported in a row, so we remember the parent
+			ArrayDeque<String> names = new ArrayDeque<>();
+			for (Node n = p; n != null; n = n.getParent()) names.push(n.getName());
+			StringBuilder sb = new StringBuilder();
+			for (String name : names) sb.append('/').append(name);
+			parent = p; location = sb.toString();
+		}
+		return location + "/" + node.getName();
+	}
+
+
+	/**
+	 * Returns the groups of errors, in order of appearance.
+	 *
+	 * @return a list of groups, empty if no errors were handled
+	 */
+	public List<Group> getGroups() {
+		return Collections.unmodifiableList(ordered);
+	}
+
+
+	/**
+	 * Returns the number of errors that were handled.
+	 *
+	 * @return a non-negative number
+	 */
+	public long getErrorCount() {
+		return count;
+	}
+
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Group group : ordered) sb.append(group).append('\n');
+		return sb.toString();
+	}
+}
@@ -0,0 +1,69 @@
+package be.baur.sds.validation;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.DataType;
+import be.baur.sds.Type;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * This non-public class forwards all events to a number of listeners, in the
+ * order in which they were specified.
+ *
+ * @see ValidationListener#of
+ */
+final class CompositeListener implements ValidationListener {
+
+	private final ValidationListener[] listeners;
+
+	CompositeListener(ValidationListener[] listeners) {
+		this.listeners = listeners;
+	}
+
+	@Override
+	public void beginDocument(DataNode document) {
+		for (ValidationListener l : listeners) l.beginDocument(document);
+	}
+
+	@Override
+	public void endDocument(DataNode document, long nodes, Errors errors) {
+		for (ValidationListener l : listeners) l.endDocument(document, nodes, errors);
+	}
+
+	@Override
+	public void enterType(DataNode node, Type type) {
+		for (ValidationListener l : listeners) l.enterType(node, type);
+	}
+
+	@Override
+	public void leaveType(DataNode node, Type type) {
+		for (ValidationListener l : listeners) l.leaveType(node, type);
+	}
+
+	@Override
+	public void enterGroup(DataNode node, ModelGroup group) {
+		for (ValidationListener l : listeners) l.enterGroup(node, group);
+	}
+
+	@Override
+	public void leaveGroup(DataNode node, ModelGroup group, boolean matched) {
+		for (ValidationListener l : listeners) l.leaveGroup(node, group, matched);
+	}
+
+	@Override
+	public void enterValue(DataNode node, DataType type) {
+		for (ValidationListener l : listeners) l.enterValue(node, type);
+	}
+
+	@Override
+	public void leaveValue(DataNode node, DataType type, boolean valid) {
+		for (ValidationListener l : listeners) l.leaveValue(node, type, valid);
+	}
+
+	@Override
+	public void error(Result<Node> error) {
+		for (ValidationListener l : listeners) l.error(error);
+	}
+}
@@ -0,0 +1,36 @@
+package be.baur.sds.validation;
+
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+
+/**
+ * An {@code ErrorHandler} receives validation errors as soon as they are found,
+ * so they need not be collected in memory. This is useful for large documents
+ * that may contain many errors, for example to log or count them. For example:
+ *
+ * <pre>
+ * boolean valid = validator.validate(document, error -&gt; {
+ *     log.warn(error.toString());
+ *     return ++count &lt; 1000; // give up after 1000 errors
+ * });
+ * </pre>
+ *
+ * Errors are reported in the same order as they appear in the list returned by
+ * {@link Validator#validate(be.baur.sda.DataNode)}, on the thread that performs
+ * the validation. When validation is aborted, either by the handler or because
+ * a limit is exceeded, the handler receives a final error that reports why.
+ * A handler must not modify the document or the schema.
+ *
+ * @see Validator#validate(be.baur.sda.DataNode, ErrorHandler)
+ */
+@FunctionalInterface
+public interface ErrorHandler {
+
+	/**
+	 * Called when a validation error is found.
+	 *
+	 * @param error the validation error, not null
+	 * @return true to continue validation, false to abort it
+	 */
+	boolean error(Result<Node> error);
+}
@@ -0,0 +1,167 @@
+package be.baur.sds.validation;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.Type;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * An {@code IncrementalValidation} keeps the outcome of validating a document
+ * node by node, so that it can be revalidated quickly after small edits. This
+ * is intended for applications like editors, that repeatedly change a small
+ * part of a large document. For example:
+ *
+ * <pre>
+ * IncrementalValidation session = validator.validateIncrementally(document);
+ * ...
+ * node.setValue("new value");
+ * Errors errors = session.revalidate(node);
+ * </pre>
+ *
+ * For every node that was matched to a type, the type and the errors found in
+ * its subtree are retained. Upon revalidation, the changed nodes and their
+ * ancestors are validated again, which includes matching the content model of
+ * every parent that contains a change. A node that has not changed, and that is
+ * matched to the same type as before, is not validated again; the retained
+ * errors are reported instead. The errors are the same as those of a complete
+ * validation, in the same order.
+ * <p>
+ * The retained state is discarded for the changed nodes only. To release the
+ * state of nodes that were removed from the document, pass them along with
+ * the changes. An incremental validation is not thread-safe, and the validator
+ * must not be reconfigured while it is in use. Note that a listener is not
+ * notified of the content of a node for which the outcome is reused.
+ *
+ * @see Validator#validateIncrementally
+ */
+public final class IncrementalValidation {
+
+	private static final Validator.Error[] NO_ERRORS = new Validator.Error[0];
+
+	private final Validator validator;
+	private final DataNode document;
+	private final Map<DataNode, Outcome> outcomes = new IdentityHashMap<>();
+	private Errors errors; // the errors of the most recent validation
+
+
+	/** The outcome of the validation of a node and its subtree. */
+	static final class Outcome {
+		final Type type; // the type the node was matched to
+		final long nodes; // the number of nodes that were matched
+		final Validator.Error[] errors; // the errors in the subtree, in order
+
+		Outcome(Type type, long nodes, Validator.Error[] errors) {
+			this.type = type; this.nodes = nodes; this.errors = errors;
+		}
+	}
+
+
+	/**
+	 * Creates an incremental validation and validates the document in full.
+	 *
+	 * @param validator a validator, not null
+	 * @param document  the node to be validated, not null
+	 */
+	IncrementalValidation(Validator validator, DataNode document) {
+		this.validator = Objects.requireNonNull(validator, "validator must not be null");
+		this.document = Objects.requireNonNull(document, "document must not be null");
+		this.errors = validator.validate(document, this);
+	}
+
+
+	/**
+	 * Returns the document being validated.
+	 *
+	 * @return a data node, not null
+	 */
+	public DataNode getDocument() {
+		return document;
+	}
+
+
+	/**
+	 * Returns the errors found by the most recent (re)validation.
+	 *
+	 * @return an error list, empty if no validation errors were found
+	 */
+	public Errors getErrors() {
+		return errors;
+	}
+
+
+	/**
+	 * Revalidates the document after the specified nodes have been changed. A
+	 * node is changed if its name or value was modified, or if child nodes were
+	 * added or removed. Nodes that were added need not be passed, as long as
+	 * their parent is. Nodes that were removed from the document may be passed
+	 * to release any state that was retained for them.
+	 *
+	 * @param changed the nodes that were changed
+	 * @return an error list, empty if no validation errors were found
+	 */
+	public Errors revalidate(DataNode... changed) {
+		return revalidate(Arrays.asList(changed));
+	}
+
+
+	/**
+	 * Revalidates the document after the specified nodes have been changed, like
+	 * {@link #revalidate(DataNode...)} does.
+	 *
+	 * @param changed the nodes that were changed, not null
+	 * @return an error list, empty if no validation errors were found
+	 */
+	public Errors revalidate(Collection<? extends DataNode> changed) {
+
+		if (changed.isEmpty()) return errors;
+
+		for (DataNode node : changed) {
+			Node top = node; // find out if the node is (still) part of the document
+			while (top.getParent() != null) top = top.getParent();
+			if (top == document) // forget the outcome of the node and its ancestors
+				for (Node n = node; n != null; n = n.getParent()) outcomes.remove(n);
+			else forget(node); // it was removed, so forget its entire subtree
+		}
+		return errors = validator.validate(document, this);
+	}
+
+
+	/** Discards the outcomes of a node and all of its descendants. */
+	private void forget(DataNode node) {
+
+		ArrayDeque<DataNode> stack = new ArrayDeque<>();
+		stack.push(node);
+		while (! stack.isEmpty()) {
+			DataNode n = stack.pop();
+			outcomes.remove(n);
+			if (! n.isLeaf())
+				for (Node child : n.nodes()) stack.push((DataNode) child);
+		}
+	}
+
+
+	/**
+	 * Returns the retained outcome of a node if it was matched to the specified
+	 * type, or null otherwise.
+	 */
+	Outcome outcome(DataNode node, Type type) {
+		Outcome outcome = outcomes.get(node);
+		return (outcome != null && outcome.type == type) ? outcome : null;
+	}
+
+
+	/** Retains the outcome of the validation of a node against a type. */
+	void retain(DataNode node, Type type, long nodes, List<Result<Node>> errors) {
+		Validator.Error[] array = errors.isEmpty() ? NO_ERRORS : errors.toArray(new Validator.Error[errors.size()]);
+		outcomes.put(node, new Outcome(type, nodes, array));
+	}
+}
@@ -0,0 +1,108 @@
+package be.baur.sds.validation;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import be.baur.sda.Node;
+
+/**
+ * This non-public class is a lightweight handle to the path of a node, which is
+ * rendered the way {@link Node#path()} does, but only when needed. Handles form
+ * a tree that mirrors the document, so the handles of sibling nodes share the
+ * handle of their parent, and every prefix is rendered only once.
+ * <p>
+ * The position of a node among its siblings with the same name is determined
+ * once for all siblings, so rendering the paths of many siblings does not take
+ * quadratic time. Rendered paths reflect the document at the time they were
+ * first rendered. This class is safe for use by multiple threads, since all
+ * lazily computed state is immutable once published.
+ */
+final class NodePath {
+
+	private static final int SCAN = 8; // siblings of smaller parents are scanned
+
+	private final NodePath parent; // null for the document node
+	private final Node node;
+	private volatile String path; // rendered lazily
+	private volatile Map<Node, Integer> ordinals; // of the child nodes, computed lazily
+
+
+	private NodePath(NodePath parent, Node node) {
+		this.parent = parent; this.node = node;
+	}
+
+
+	/** Returns a handle to the path of a node. */
+	static NodePath of(Node node) {
+
+		ArrayDeque<Node> ancestors = new ArrayDeque<>();
+		for (Node n = node; n != null; n = n.getParent()) ancestors.push(n);
+		NodePath path = null;
+		while (! ancestors.isEmpty()) path = new NodePath(path, ancestors.pop());
+		return path;
+	}
+
+
+	/** Returns a handle to the path of a child node of the node of this handle. */
+	NodePath child(Node child) {
+		return new NodePath(this, child);
+	}
+
+
+	/** Returns the path of the node, like {@link Node#path()} does. */
+	@Override
+	public String toString() {
+
+		String rendered = path;
+		if (rendered != null) return rendered;
+
+		ArrayDeque<NodePath> pending = new ArrayDeque<>(); // render the prefixes first
+		for (NodePath p = this; p != null && p.path == null; p = p.parent) pending.push(p);
+		while (! pending.isEmpty()) {
+			NodePath p = pending.pop();
+			p.path = (p.parent == null) ? "/" + p.node.getName() : p.parent.path + p.parent.segment(p.node);
+		}
+		return path;
+	}
+
+
+	/** Returns the last segment of the path of a child node, like "/name[2]". */
+	private String segment(Node child) {
+
+		List<Node> siblings = node.nodes();
+		String name = child.getName();
+		int ordinal = 0, count = 0;
+		if (siblings.size() <= SCAN) {
+			for (Node sibling : siblings)
+				if (sibling.getName().equals(name)) {
+					++count; if (sibling == child) ordinal = count;
+				}
+		}
+		else {
+			Map<Node, Integer> table = ordinals;
+			if (table == null) ordinals = table = ordinals(siblings);
+			Integer o = table.get(child);
+			if (o != null) { ordinal = o; count = 2; } // it has siblings with the same name
+		}
+		return (count > 1) ? "/" + name + "[" + ordinal + "]" : "/" + name;
+	}
+
+
+	/** Returns the ordinals of the child nodes that have siblings with the same name. */
+	private static Map<Node, Integer> ordinals(List<Node> siblings) {
+
+		Map<String, Integer> counts = new HashMap<>();
+		for (Node sibling : siblings) counts.merge(sibling.getName(), 1, Integer::sum);
+
+		Map<Node, Integer> ordinals = new IdentityHashMap<>();
+		Map<String, Integer> seen = new HashMap<>();
+		for (Node sibling : siblings) {
+			String name = sibling.getName();
+			if (counts.get(name) > 1) ordinals.put(sibling, seen.merge(name, 1, Integer::sum));
+		}
+		return ordinals;
+	}
+}
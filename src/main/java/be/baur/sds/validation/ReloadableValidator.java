@@ -0,0 +1,200 @@
+package be.baur.sds.validation;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import be.baur.sda.DataNode;
+import be.baur.sds.Schema;
+import be.baur.sds.serialization.SDSParseException;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * A {@code ReloadableValidator} is a handle to a validator for a schema that
+ * may change during the lifetime of an application. The schema is obtained
+ * from a {@code SchemaSource}, and when the source changes, a new schema and
+ * validator are prepared and swapped in atomically. For example:
+ *
+ * <pre>
+ * ReloadableValidator handle = new ReloadableValidator(SchemaSource.of(path), null);
+ * handle.watch(10, TimeUnit.SECONDS);
+ * ...
+ * Errors errors = handle.validate(document);
+ * </pre>
+ *
+ * Loading, parsing and preparing a new validator happens in the thread that
+ * calls {@link #reload}, or in a background thread when the source is being
+ * watched, so it does not affect validation in progress. Validations that are
+ * in flight during a swap complete against the old version, and subsequent
+ * ones will use the new version. Obtaining the current validator is lock-free.
+ * <p>
+ * Since a new validator is created on every reload, any settings must be
+ * applied by the <i>configurer</i> that is supplied upon construction, rather
+ * than to the current validator.
+ *
+ * @see SchemaSource
+ * @see Validator
+ */
+public final class ReloadableValidator {
+
+	private final SchemaSource source; // where the schema is loaded from
+	private final Consumer<Validator> configurer; // configures each new validator
+	private final AtomicReference<Loaded> current = new AtomicReference<>();
+
+	private volatile Consumer<Exception> errorHandler = e -> {}; // reports failed background reloads
+	private ScheduledExecutorService watcher = null; // polls the source if it is being watched
+
+	/** A private class that holds a validator and the version it was created from. */
+	private static final class Loaded {
+
+		final Validator validator;
+		final long version;
+
+		Loaded(Validator validator, long version) {
+			this.validator = validator; this.version = version;
+		}
+	}
+
+
+	/**
+	 * Creates a handle for the specified schema source, and loads the initial
+	 * version. The (optional) configurer is applied to every validator that is
+	 * created by this handle, for example to set the type name.
+	 *
+	 * @param source     a schema source, not null
+	 * @param configurer a validator configurer, may be null
+	 * @throws IOException       if an I/O operation failed
+	 * @throws SDSParseException if an SDS parse exception occurs
+	 */
+	public ReloadableValidator(SchemaSource source, Consumer<Validator> configurer) throws IOException, SDSParseException {
+		this.source = Objects.requireNonNull(source, "source must not be null");
+		this.configurer = (configurer == null) ? v -> {} : configurer;
+		current.set(load(source.version()));
+	}
+
+
+	/*
+	 * Loads and prepares a validator from the source. Everything that may take time
+	 * or fail happens here, before anything is swapped in.
+	 */
+	private Loaded load(long version) throws IOException, SDSParseException {
+
+		Schema schema = source.load();
+		Validator validator = schema.newValidator();
+		configurer.accept(validator);
+		return new Loaded(validator, version);
+	}
+
+
+	/**
+	 * Returns the current validator. The returned instance will not change, so
+	 * callers can use it to validate several documents against the same version.
+	 *
+	 * @return a validator, not null
+	 */
+	public Validator get() {
+		return current.get().validator;
+	}
+
+
+	/**
+	 * Validates a data node against the current version of the schema.
+	 *
+	 * @param node the node to be validated
+	 * @return an error list, empty if no validation errors were found
+	 * @see Validator#validate
+	 */
+	public Errors validate(DataNode node) {
+		return current.get().validator.validate(node);
+	}
+
+
+	/**
+	 * Reloads the schema from the source if it has changed since it was last
+	 * loaded, and swaps in a new validator. If loading fails, an exception is
+	 * thrown and the current validator remains in effect.
+	 *
+	 * @return true if a new validator was swapped in, false otherwise
+	 * @throws IOException       if an I/O operation failed
+	 * @throws SDSParseException if an SDS parse exception occurs
+	 */
+	public boolean reload() throws IOException, SDSParseException {
+		return reload(false);
+	}
+
+
+	/**
+	 * Reloads the schema from the source, and swaps in a new validator. Unless
+	 * forced, nothing is done if the source version has not changed. If loading
+	 * fails, an exception is thrown and the current validator remains in effect.
+	 *
+	 * @param force reload even if the version has not changed
+	 * @return true if a new validator was swapped in, false otherwise
+	 * @throws IOException       if an I/O operation failed
+	 * @throws SDSParseException if an SDS parse exception occurs
+	 */
+	public synchronized boolean reload(boolean force) throws IOException, SDSParseException {
+
+		long version = source.version();
+		if (! force && version == current.get().version)
+			return false;
+		current.set(load(version));
+		return true;
+	}
+
+
+	/**
+	 * Sets a handler for exceptions that occur while reloading in the background.
+	 * Failed reloads are ignored by default.
+	 *
+	 * @param handler an exception handler, may be null
+	 */
+	public void setErrorHandler(Consumer<Exception> handler) {
+		this.errorHandler = (handler == null) ? e -> {} : handler;
+	}
+
+
+	/**
+	 * Starts watching the schema source, by checking its version periodically in
+	 * a background (daemon) thread, and reloading when it has changed. Calling
+	 * this method when the source is already being watched has no effect.
+	 *
+	 * @param period the time between checks, must be positive
+	 * @param unit   the time unit of the period, not null
+	 * @see #close
+	 */
+	public synchronized void watch(long period, TimeUnit unit) {
+
+		if (period <= 0)
+			throw new IllegalArgumentException("period must be positive");
+		if (watcher != null) return;
+
+		watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "sds-schema-watcher (" + source + ")");
+			thread.setDaemon(true);
+			return thread;
+		});
+		watcher.scheduleWithFixedDelay(() -> {
+			try {
+				reload(false);
+			} catch (Exception e) {
+				errorHandler.accept(e);
+			}
+		}, period, period, unit);
+	}
+
+
+	/**
+	 * Stops watching the schema source. The current validator remains usable.
+	 */
+	public synchronized void close() {
+
+		if (watcher == null) return;
+		watcher.shutdownNow();
+		watcher = null;
+	}
+}
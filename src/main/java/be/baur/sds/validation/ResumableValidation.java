@@ -0,0 +1,115 @@
+package be.baur.sds.validation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sds.AnyType;
+import be.baur.sds.DataType;
+import be.baur.sds.Type;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * A {@code ResumableValidation} validates a document that only grows at the
+ * end, like a log file that is appended to, in time proportional to the content
+ * that was added. For example:
+ *
+ * <pre>
+ * ResumableValidation session = validator.validateResumably(log);
+ * ...
+ * log.add(entry);
+ * Errors errors = session.resume();
+ * </pre>
+ *
+ * The validation keeps a frame for every node on the path from the document
+ * root to the last node, with the position in the content model of its type,
+ * and the errors found in its complete child nodes. All child nodes but the
+ * last are complete, and are validated only once. The last child node may still
+ * grow, and validation resumes there. A resumed validation reports the errors
+ * of a complete validation, in the same order.
+ * <p>
+ * Content may only be added to the last node at every level, and nodes must
+ * not be changed or removed after they were validated. Resuming requires that
+ * the content model of the type of an open node has no model groups at its top
+ * level; otherwise the content of that node is validated from the start every
+ * time. A resumable validation is not thread-safe, and the validator must not
+ * be reconfigured while it is in use.
+ *
+ * @see Validator#validateResumably
+ */
+public final class ResumableValidation {
+
+	private final Validator validator;
+	private final DataNode document;
+	Frame root; // the frame of the document node, null if it does not match a type
+	private Errors errors; // the errors of the most recent validation
+
+
+	/** The retained state of a node that may still grow. */
+	static final class Frame {
+		final DataNode node; // the node
+		final Type type; // the type it matches
+		final boolean resumable; // whether the content model allows resumption
+		int k = 0, cur = 0; // position in the content model and number of matches there
+		int done = 0; // the number of complete child nodes that were validated
+		long nodes = 0; // the number of nodes that were matched in those child nodes
+		final List<Validator.Error> errors = new ArrayList<>(); // and the errors found in them
+		Validator.Error failed; // the error that ended content validation, if any
+		Frame open; // the frame of the last child node, if any
+
+		Frame(DataNode node, Type type) {
+			this.node = node; this.type = type;
+			boolean resumable = ! (type instanceof AnyType) && ! (type instanceof DataType && type.isLeaf());
+			for (Node component : type.nodes())
+				if (component instanceof ModelGroup) resumable = false;
+			this.resumable = resumable;
+		}
+	}
+
+
+	/**
+	 * Creates a resumable validation and validates the document as it is.
+	 *
+	 * @param validator a validator, not null
+	 * @param document  the node to be validated, not null
+	 */
+	ResumableValidation(Validator validator, DataNode document) {
+		this.validator = Objects.requireNonNull(validator, "validator must not be null");
+		this.document = Objects.requireNonNull(document, "document must not be null");
+		this.errors = validator.resume(this);
+	}
+
+
+	/**
+	 * Returns the document being validated.
+	 *
+	 * @return a data node, not null
+	 */
+	public DataNode getDocument() {
+		return document;
+	}
+
+
+	/**
+	 * Returns the errors found by the most recent validation.
+	 *
+	 * @return an error list, empty if no validation errors were found
+	 */
+	public Errors getErrors() {
+		return errors;
+	}
+
+
+	/**
+	 * Resumes validation after content was appended to the document, and returns
+	 * all errors found so far, including those in content validated before.
+	 *
+	 * @return an error list, empty if no validation errors were found
+	 */
+	public Errors resume() {
+		return errors = validator.resume(this);
+	}
+}
@@ -0,0 +1,260 @@
+package be.baur.sds.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.model.ChoiceGroup;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.model.UnorderedGroup;
+
+/**
+ * A {@code ValidationListener} that records which components of a schema are
+ * exercised when validating a corpus of documents, how often, and how much
+ * time is spent in them. For example:
+ *
+ * <pre>
+ * SchemaCoverage coverage = new SchemaCoverage(schema);
+ * validator.setListener(coverage);
+ * for (DataNode document : corpus) validator.validate(document);
+ * System.out.println(coverage);
+ * </pre>
+ *
+ * A type is hit when a node matches it, so the hits of the members of a choice
+ * or unordered group show which branches actually occur in the corpus. A model
+ * group is hit every time the validator attempts to match it, and the number
+ * of successful matches is recorded separately. Components that are never hit
+ * are likely dead definitions. A global type is also hit when a node matches
+ * a type that refers to it.
+ * <p>
+ * The report follows the structure of the schema in SDS notation, so that
+ * every line can be traced back to its definition. Counters are striped, so
+ * a single instance can be shared by validators on multiple threads.
+ */
+public final class SchemaCoverage implements ValidationListener {
+
+	private final Schema schema;
+	private final Map<Component, Entry> entries = new IdentityHashMap<>(); // read-only once constructed
+	private final List<Entry> order = new ArrayList<>(); // the entries in schema order
+	private final ThreadLocal<TimingStack> stack = ThreadLocal.withInitial(TimingStack::new);
+
+
+	/** The coverage of a single component. */
+	private static final class Entry {
+		final Component component;
+		final int depth; // nesting level in the schema
+		final LongAdder hits = new LongAdder();
+		final LongAdder matches = new LongAdder();
+		final LongAdder nanos = new LongAdder();
+		Entry global; // the entry of the global type that a type refers to, if any
+
+		Entry(Component component, int depth) {
+			this.component = component; this.depth = depth;
+		}
+	}
+
+
+	/**
+	 * Creates a coverage collector for the specified schema. Events for
+	 * components of another schema are ignored.
+	 *
+	 * @param schema a schema, not null
+	 */
+	public SchemaCoverage(Schema schema) {
+		this.schema = schema;
+		for (Node node : schema.nodes()) index((Component) node, 0);
+		for (Entry entry : order)
+			if (entry.component.getGlobalType() != null)
+				entry.global = entries.get(schema.getGlobalType(entry.component.getGlobalType()));
+	}
+
+
+	/**
+	 * Adds a component and everything it contains to the index, in schema order.
+	 * The content of a type reference is that of the global type, so it is not
+	 * added again.
+	 */
+	private void index(Component component, int depth) {
+		Entry entry = new Entry(component, depth);
+		entries.put(component, entry); order.add(entry);
+		if (component.getGlobalType() == null && ! component.isLeaf())
+			for (Node child : component.nodes()) index((Component) child, depth + 1);
+	}
+
+
+	/**
+	 * Returns the schema this collector was created for.
+	 *
+	 * @return a schema, not null
+	 */
+	public Schema getSchema() {
+		return schema;
+	}
+
+
+	@Override
+	public void enterType(DataNode node, Type type) {
+		stack.get().push(type);
+	}
+
+
+	@Override
+	public void leaveType(DataNode node, Type type) {
+		long elapsed = stack.get().pop();
+		Entry entry = entries.get(type);
+		if (entry == null) return;
+		entry.hits.increment(); entry.matches.increment(); entry.nanos.add(elapsed);
+		if (entry.global != null) { // a reference uses the global type as well
+			entry.global.hits.increment(); entry.global.matches.increment(); entry.global.nanos.add(elapsed);
+		}
+	}
+
+
+	@Override
+	public void enterGroup(DataNode node, ModelGroup group) {
+		stack.get().push(group);
+	}
+
+
+	@Override
+	public void leaveGroup(DataNode node, ModelGroup group, boolean matched) {
+		long elapsed = stack.get().pop();
+		Entry entry = entries.get(group);
+		if (entry == null) return;
+		entry.hits.increment(); entry.nanos.add(elapsed);
+		if (matched) entry.matches.increment();
+	}
+
+
+	/**
+	 * Returns how many times a component was hit. For a type, this is the number
+	 * of nodes that matched it; for a model group it is the number of attempts to
+	 * match it.
+	 *
+	 * @param component a component of the schema
+	 * @return a hit count, 0 if the component is not part of the schema
+	 */
+	public long getHits(Component component) {
+		Entry entry = entries.get(component);
+		return entry == null ? 0 : entry.hits.sum();
+	}
+
+
+	/**
+	 * Returns how many times a component was matched. For a type this is the
+	 * same as the number of hits.
+	 *
+	 * @param component a component of the schema
+	 * @return a match count, 0 if the component is not part of the schema
+	 */
+	public long getMatches(Component component) {
+		Entry entry = entries.get(component);
+		return entry == null ? 0 : entry.matches.sum();
+	}
+
+
+	/**
+	 * Returns the cumulative time spent in a component, in nanoseconds. For a type
+	 * this includes the time spent in the components nested within it, and for a
+	 * model group the time spent matching nodes to it.
+	 *
+	 * @param component a component of the schema
+	 * @return a time in nanoseconds, 0 if the component is not part of the schema
+	 */
+	public long getNanos(Component component) {
+		Entry entry = entries.get(component);
+		return entry == null ? 0 : entry.nanos.sum();
+	}
+
+
+	/**
+	 * Returns the components of the schema that were never hit, in schema order.
+	 * Note that the content of an unused component is not reported separately.
+	 *
+	 * @return a list of components, may be empty
+	 */
+	public List<Component> getUnused() {
+		List<Component> unused = new ArrayList<>();
+		for (Entry entry : order) {
+			if (entry.hits.sum() > 0) continue;
+			Node parent = entry.component.getParent();
+			Entry outer = (parent instanceof Component) ? entries.get(parent) : null;
+			if (outer == null || outer.hits.sum() > 0) unused.add(entry.component);
+		}
+		return Collections.unmodifiableList(unused);
+	}
+
+
+	/**
+	 * Returns the fraction of the schema components that were hit at least once.
+	 *
+	 * @return a value between 0 and 1
+	 */
+	public double getCoverage() {
+		if (order.isEmpty()) return 0;
+		long hit = order.stream().filter(e -> e.hits.sum() > 0).count();
+		return (double) hit / order.size();
+	}
+
+
+	/**
+	 * Discards all counts collected so far. This should not be called while
+	 * validation is in progress.
+	 */
+	public void reset() {
+		for (Entry entry : order) {
+			entry.hits.reset(); entry.matches.reset(); entry.nanos.reset();
+		}
+	}
+
+
+	/**
+	 * Returns a coverage report that follows the structure of the schema. Every
+	 * line shows a component like it appears in SDS notation, followed by its
+	 * hits (and matches for a model group) and the cumulative time.
+	 */
+	@Override
+	public String toString() {
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("%s { coverage %.1f%%", Schema.TAG, 100 * getCoverage()));
+		sb.append(System.lineSeparator());
+		for (Entry entry : order) {
+			for (int i = 0; i <= entry.depth; i++) sb.append("   ");
+			sb.append(label(entry.component)).append(": ");
+			long hits = entry.hits.sum();
+			if (hits == 0) sb.append("unused");
+			else {
+				sb.append("hits=").append(hits);
+				if (entry.component instanceof ModelGroup)
+					sb.append(", matches=").append(entry.matches.sum());
+				sb.append(String.format(", time=%.3fms", entry.nanos.sum() / 1e6));
+			}
+			sb.append(System.lineSeparator());
+		}
+		return sb.append("}").toString();
+	}
+
+
+	/** Returns a component the way it starts in SDS notation. */
+	private static String label(Component component) {
+		DataNode sds = component.toSDA();
+		String label = sds.getValue().isEmpty() ? sds.getName() : sds.getName() + " \"" + sds.getValue() + "\"";
+		if (component instanceof ChoiceGroup || component instanceof UnorderedGroup)
+			label += " (" + component.nodes().size() + " members)";
+		else if (component.getGlobalType() != null)
+			label += " { type \"" + component.getGlobalType() + "\" }";
+		else if (component instanceof DataType)
+			label += " { type \"" + ((DataType) component).getType() + "\" }";
+		return label;
+	}
+}
@@ -0,0 +1,89 @@
+package be.baur.sds.validation;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.serialization.SDSParseException;
+
+/**
+ * A {@code SchemaSource} supplies a {@code Schema} to a
+ * {@code ReloadableValidator}, and reports a version that changes whenever the
+ * underlying definition has changed. Applications can implement this interface
+ * to load schema from a database, a class path resource or a remote location;
+ * a source for SDS files is available from {@link #of(Path)}.
+ *
+ * @see ReloadableValidator
+ */
+public interface SchemaSource {
+
+	/**
+	 * Loads and returns a (new) schema from this source.
+	 *
+	 * @return a schema, not null
+	 * @throws IOException       if an I/O operation failed
+	 * @throws SDSParseException if an SDS parse exception occurs
+	 */
+	Schema load() throws IOException, SDSParseException;
+
+
+	/**
+	 * Returns the current version of the schema definition. The value itself has
+	 * no meaning, but it must change when the definition changes, so that a
+	 * watching validator knows when to reload. The default implementation returns
+	 * 0, which means the source is never reloaded automatically.
+	 *
+	 * @return a version
+	 * @throws IOException if an I/O operation failed
+	 */
+	default long version() throws IOException {
+		return 0;
+	}
+
+
+	/**
+	 * Returns a source that reads a schema in SDS notation from a (UTF-8 encoded)
+	 * file. The version of this source is a hash of the content of the file, so an
+	 * edit is detected even if the modification time and size are the same.
+	 *
+	 * @param file the path of an SDS file, not null
+	 * @return a schema source
+	 */
+	static SchemaSource of(Path file) {
+
+		Objects.requireNonNull(file, "file must not be null");
+		return new SchemaSource() {
+
+			@Override
+			public Schema load() throws IOException, SDSParseException {
+				try (Reader input = new InputStreamReader(Files.newInputStream(file), StandardCharsets.UTF_8)) {
+					return SDS.parse(input);
+				}
+			}
+
+			@Override
+			public long version() throws IOException {
+				try {
+					byte[] digest = MessageDigest.getInstance("SHA-256").digest(Files.readAllBytes(file));
+					return ByteBuffer.wrap(digest).getLong();
+				} catch (NoSuchAlgorithmException e) { // every Java platform supports SHA-256
+					throw new IllegalStateException(e);
+				}
+			}
+
+			@Override
+			public String toString() {
+				return file.toString();
+			}
+		};
+	}
+}
@@ -0,0 +1,219 @@
+package be.baur.sds.validation;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.Type;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * A {@code ValidationListener} that keeps the slowest validations seen so far,
+ * up to a fixed number of entries. For example:
+ *
+ * <pre>
+ * SlowDocumentLog log = new SlowDocumentLog(10);
+ * validator.setListener(log);
+ * ...
+ * System.out.println(log); // on demand
+ * </pre>
+ *
+ * Every entry records the root type, the number of nodes and errors, the
+ * duration, the path of the deepest node and the path of the node with the
+ * highest <i>self time</i>; the time spent matching its content, excluding the
+ * time spent in its child nodes. Since the time spent matching model groups is
+ * included in the self time of the enclosing node, the latter is a good
+ * indication of where backtracking occurs.
+ * <p>
+ * Paths are only rendered for documents that make it into the log. This class
+ * is thread-safe, so it can be shared by validators on multiple threads.
+ */
+public final class SlowDocumentLog implements ValidationListener {
+
+	private final int capacity;
+	private final PriorityQueue<Entry> entries; // the fastest entry first
+	private volatile long threshold = -1; // duration of the fastest entry when full
+	private final ThreadLocal<Tracker> tracker = ThreadLocal.withInitial(Tracker::new);
+
+
+	/** A slow validation. */
+	public static final class Entry {
+
+		private final Instant time;
+		private final String rootType;
+		private final long nodes;
+		private final int errors;
+		private final long nanos;
+		private final String deepestPath;
+		private final int depth;
+		private final String slowestPath;
+		private final long slowestNanos;
+
+		private Entry(Tracker t, long nodes, int errors, long nanos) {
+			this.time = Instant.now();
+			this.rootType = t.rootType; this.nodes = nodes; this.errors = errors; this.nanos = nanos;
+			this.deepestPath = (t.deepest == null) ? null : t.deepest.path(); this.depth = t.maxDepth;
+			this.slowestPath = (t.slowest == null) ? null : t.slowest.path(); this.slowestNanos = t.slowestNanos;
+		}
+
+		/** Returns the time at which validation completed. */
+		public Instant getTime() { return time; }
+
+		/** Returns the name of the type the document was validated against. */
+		public String getRootType() { return rootType; }
+
+		/** Returns the number of nodes that were matched to a type. */
+		public long getNodes() { return nodes; }
+
+		/** Returns the number of validation errors. */
+		public int getErrors() { return errors; }
+
+		/** Returns the duration of the validation, in nanoseconds. */
+		public long getNanos() { return nanos; }
+
+		/** Returns the path of the deepest matched node, may be null. */
+		public String getDeepestPath() { return deepestPath; }
+
+		/** Returns the depth of the deepest matched node, where the root is at depth 1. */
+		public int getDepth() { return depth; }
+
+		/** Returns the path of the node with the highest self time, may be null. */
+		public String getSlowestPath() { return slowestPath; }
+
+		/** Returns the self time of the slowest node, in nanoseconds. */
+		public long getSlowestNanos() { return slowestNanos; }
+
+		@Override
+		public String toString() {
+			return String.format("%s %s: %.3fms, nodes=%d, errors=%d, deepest=%s (%d), slowest=%s (%.3fms)",
+				time, rootType, nanos / 1e6, nodes, errors, deepestPath, depth, slowestPath, slowestNanos / 1e6);
+		}
+	}
+
+
+	/** The bookkeeping of the document being validated by a single thread. */
+	private static final class Tracker {
+
+		long start;
+		String rootType;
+		int depth, maxDepth, errors;
+		DataNode deepest, slowest;
+		long slowestNanos;
+		long[] starts = new long[32], nested = new long[32]; // per level: start time and time spent in children
+
+		void reset(DataNode document) {
+			start = System.nanoTime(); rootType = document.getName();
+			depth = maxDepth = errors = 0; deepest = slowest = null; slowestNanos = -1;
+		}
+	}
+
+
+	/**
+	 * Creates a log that keeps the specified number of slowest validations.
+	 *
+	 * @param capacity the maximum number of entries, must be positive
+	 */
+	public SlowDocumentLog(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		this.capacity = capacity;
+		this.entries = new PriorityQueue<>(capacity, (a, b) -> Long.compare(a.nanos, b.nanos));
+	}
+
+
+	@Override
+	public void beginDocument(DataNode document) {
+		tracker.get().reset(document);
+	}
+
+
+	@Override
+	public void enterType(DataNode node, Type type) {
+		Tracker t = tracker.get();
+		if (t.depth == 0) t.rootType = type.getTypeName();
+		if (t.depth == t.starts.length) {
+			t.starts = Arrays.copyOf(t.starts, t.depth * 2);
+			t.nested = Arrays.copyOf(t.nested, t.depth * 2);
+		}
+		t.starts[t.depth] = System.nanoTime(); t.nested[t.depth] = 0;
+		if (++t.depth > t.maxDepth) {
+			t.maxDepth = t.depth; t.deepest = node;
+		}
+	}
+
+
+	@Override
+	public void leaveType(DataNode node, Type type) {
+		Tracker t = tracker.get();
+		long elapsed = System.nanoTime() - t.starts[--t.depth];
+		long self = elapsed - t.nested[t.depth];
+		if (self > t.slowestNanos) {
+			t.slowestNanos = self; t.slowest = node;
+		}
+		if (t.depth > 0) t.nested[t.depth - 1] += elapsed;
+	}
+
+
+	@Override
+	public void endDocument(DataNode document, long nodes, Errors errors) {
+
+		Tracker t = tracker.get();
+		long nanos = System.nanoTime() - t.start;
+		if (nanos > threshold) add(new Entry(t, nodes, t.errors, nanos));
+		t.deepest = t.slowest = null; // do not retain the document
+	}
+
+
+	@Override
+	public void error(Result<Node> error) {
+		tracker.get().errors++;
+	}
+
+
+	private synchronized void add(Entry entry) {
+
+		if (entries.size() == capacity) {
+			if (entry.nanos <= entries.peek().nanos) return;
+			entries.poll();
+		}
+		entries.add(entry);
+		if (entries.size() == capacity) threshold = entries.peek().nanos;
+	}
+
+
+	/**
+	 * Returns the entries in the log, the slowest validation first.
+	 *
+	 * @return a list of entries, may be empty
+	 */
+	public synchronized List<Entry> getEntries() {
+		List<Entry> list = new ArrayList<>(entries);
+		Collections.sort(list, (a, b) -> Long.compare(b.nanos, a.nanos));
+		return list;
+	}
+
+
+	/**
+	 * Removes all entries from the log.
+	 */
+	public synchronized void clear() {
+		entries.clear(); threshold = -1;
+	}
+
+
+	/**
+	 * Returns the entries in the log, one per line, the slowest validation first.
+	 */
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		for (Entry entry : getEntries()) sb.append(entry).append(System.lineSeparator());
+		return sb.toString();
+	}
+}
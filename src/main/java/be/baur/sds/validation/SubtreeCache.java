@@ -0,0 +1,238 @@
+package be.baur.sds.validation;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sds.Type;
+
+/**
+ * This non-public class is a bounded cache of validation outcomes, keyed by
+ * the structural hash of a subtree and the type it was validated against. It
+ * is used by a validator to avoid validating identical subtrees over and over.
+ * <p>
+ * A structural hash covers the names and values of a node and all of its
+ * descendants, in document order. It consists of two independent 64 bit
+ * hashes, so that the chance of two different subtrees sharing a key is
+ * negligible; no reference to a validated document is retained. An outcome
+ * holds the errors found in a subtree, with the nodes they refer to expressed
+ * as child index paths relative to the root of the subtree, so they can be
+ * rebound to another copy of the same subtree.
+ * <p>
+ * The least recently used outcome is evicted when the cache is full. This
+ * class is thread-safe.
+ */
+final class SubtreeCache {
+
+	/** Subtrees with fewer nodes are not worth caching. */
+	static final int MIN_NODES = 8;
+
+	/** Subtrees with more errors than this are not cached. */
+	static final int MAX_ERRORS = 32;
+
+	/** Subtrees with errors nested deeper than this are not cached. */
+	static final int MAX_DEPTH = 64;
+
+	private static final long M1 = 0x9E3779B97F4A7C15L, M2 = 0xC2B2AE3D27D4EB4FL; // mixing constants
+
+	private final Map<Key, Outcome> outcomes;
+	final int capacity; // the maximum number of outcomes
+	final LongAdder hits = new LongAdder(), misses = new LongAdder();
+
+
+	/** The key of a cached outcome. */
+	static final class Key {
+		final Type type; final long h1, h2;
+
+		Key(Type type, Hash hash) {
+			this.type = type; this.h1 = hash.h1; this.h2 = hash.h2;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (! (o instanceof Key)) return false;
+			Key k = (Key) o;
+			return type == k.type && h1 == k.h1 && h2 == k.h2;
+		}
+
+		@Override
+		public int hashCode() {
+			return (int) (h1 ^ (h1 >>> 32)) * 31 + System.identityHashCode(type);
+		}
+	}
+
+
+	/** The structural hash of a subtree, and that of its largest child subtree. */
+	static final class Hash {
+		final DataNode node; // the root of the subtree
+		final long h1, h2; // the two hashes
+		final long size; // the number of nodes
+		final Hash largest; // of the largest child subtree that is not a leaf, may be null
+
+		Hash(DataNode node, long h1, long h2, long size, Hash largest) {
+			this.node = node; this.h1 = h1; this.h2 = h2; this.size = size; this.largest = largest;
+		}
+	}
+
+
+	/** The outcome of the validation of a subtree. */
+	static final class Outcome {
+		final long nodes; // the number of nodes that were matched
+		final int[][] paths; // the relative location of each error
+		final String[] templates; // the message template of each error
+		final Object[][] args; // the message arguments of each error
+
+		Outcome(long nodes, int[][] paths, String[] templates, Object[][] args) {
+			this.nodes = nodes; this.paths = paths; this.templates = templates; this.args = args;
+		}
+	}
+
+
+	/**
+	 * Creates a cache with the specified capacity.
+	 *
+	 * @param capacity the maximum number of outcomes, must be positive
+	 */
+	@SuppressWarnings("serial")
+	SubtreeCache(int capacity) {
+		if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+		this.capacity = capacity;
+		outcomes = new LinkedHashMap<Key, Outcome>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Key, Outcome> eldest) {
+				return size() > capacity;
+			}
+		};
+	}
+
+
+	/** Returns the outcome for a key, or null if it is not in the cache. */
+	synchronized Outcome get(Key key) {
+		return outcomes.get(key);
+	}
+
+
+	/** Adds an outcome to the cache, possibly evicting another one. */
+	synchronized void put(Key key, Outcome outcome) {
+		outcomes.put(key, outcome);
+	}
+
+
+	/**
+	 * Returns the structural hash of a subtree. The hashes of all nodes in the
+	 * subtree are computed bottom-up on an explicit stack, so the subtree may be
+	 * nested arbitrarily deep, but only those along the path of largest subtrees
+	 * are kept. So when a child node is validated, its hash is known if it is the
+	 * largest, and otherwise its subtree is at most half the size of that of the
+	 * parent. This way, every node is hashed a number of times that is at most
+	 * logarithmic in the size of the document.
+	 */
+	static Hash hash(DataNode node) {
+
+		DataNode[] stack = new DataNode[16]; int[] next = new int[16];
+		long[] acc = new long[48]; // the partial hash and size of each node on the stack
+		Hash[] largest = new Hash[16]; // the hash of the largest child subtree of each node on the stack
+		int top = 0;
+		start(node, stack, next, acc, 0);
+		while (true) {
+			List<Node> nodes = stack[top].nodes();
+			if (next[top] < nodes.size()) {
+				DataNode child = (DataNode) nodes.get(next[top]++);
+				if (child.isLeaf()) {
+					fold(acc, top, mix1(child.getValue(), mix1(child.getName(), 17)),
+						mix2(child.getValue(), mix2(child.getName(), 31)), 1);
+					continue;
+				}
+				if (++top == stack.length) {
+					int length = top * 2;
+					stack = Arrays.copyOf(stack, length); next = Arrays.copyOf(next, length);
+					acc = Arrays.copyOf(acc, length * 3); largest = Arrays.copyOf(largest, length);
+				}
+				start(child, stack, next, acc, top);
+				continue;
+			}
+			
+			int i = top * 3; // all child nodes have been hashed
+			Hash hash = new Hash(stack[top], acc[i], acc[i + 1], acc[i + 2], largest[top]);
+			stack[top] = null; largest[top] = null;
+			if (top == 0) return hash;
+			fold(acc, --top, hash.h1, hash.h2, hash.size);
+			if (largest[top] == null || hash.size > largest[top].size) largest[top] = hash;
+		}
+	}
+
+
+	/** Puts a parent node on the stack, with the partial hash of its name and value. */
+	private static void start(DataNode node, DataNode[] stack, int[] next, long[] acc, int top) {
+		stack[top] = node; next[top] = 0;
+		int i = top * 3; // a parent differs from a leaf
+		acc[i] = step1(mix1(node.getValue(), mix1(node.getName(), 17)), 1);
+		acc[i + 1] = step2(mix2(node.getValue(), mix2(node.getName(), 31)), 1);
+		acc[i + 2] = 1;
+	}
+
+
+	/** Adds the hash and size of a child node to those of the node on the stack. */
+	private static void fold(long[] acc, int top, long h1, long h2, long size) {
+		int i = top * 3;
+		acc[i] = step1(acc[i], h1); acc[i + 1] = step2(acc[i + 1], h2); acc[i + 2] += size;
+	}
+
+
+	/**
+	 * Returns the relative location of a node within a subtree, or null if it is
+	 * outside, or nested more than {@link #MAX_DEPTH} levels deep.
+	 */
+	static int[] path(Node root, Node node) {
+
+		int depth = 0;
+		for (Node n = node; n != root; n = n.getParent()) {
+			if (n == null || depth == MAX_DEPTH) return null; ++depth;
+		}
+		int[] path = new int[depth];
+		for (Node n = node; n != root; n = n.getParent()) {
+			List<Node> siblings = n.getParent().nodes();
+			int i = 0; while (siblings.get(i) != n) ++i;
+			path[--depth] = i;
+		}
+		return path;
+	}
+
+
+	/** Returns the node at a relative location within a subtree. */
+	static DataNode resolve(DataNode root, int[] path) {
+		DataNode node = root;
+		for (int i : path) node = (DataNode) node.nodes().get(i);
+		return node;
+	}
+
+
+	// two different hash functions, so that their collisions are independent
+
+	private static long mix1(String s, long h) {
+		for (int i = 0; i < s.length(); i++) h = step1(h, s.charAt(i));
+		return step1(h, s.length());
+	}
+
+
+	private static long mix2(String s, long h) {
+		for (int i = 0; i < s.length(); i++) h = step2(h, s.charAt(i));
+		return step2(h, s.length());
+	}
+
+
+	private static long step1(long h, long v) {
+		h = (h ^ v) * M1;
+		return h ^ (h >>> 29);
+	}
+
+
+	private static long step2(long h, long v) {
+		h = Long.rotateLeft(h + v * M2, 27) * 5 + 0x52DCE729L;
+		return h ^ (h >>> 33);
+	}
+}
@@ -0,0 +1,54 @@
+package be.baur.sds.validation;
+
+import java.util.Arrays;
+
+import be.baur.sds.Component;
+
+/**
+ * This non-public class keeps track of the components entered by a single
+ * validating thread and the time at which they were entered, for listeners
+ * that measure elapsed time. It is meant to be held in a thread local.
+ */
+final class TimingStack {
+
+	private Component[] components = new Component[32];
+	private long[] starts = new long[32];
+	private int depth = 0;
+	private long valueStart;
+
+
+	/** Enters a component and records the current time. */
+	void push(Component component) {
+		if (depth == components.length) {
+			components = Arrays.copyOf(components, depth * 2);
+			starts = Arrays.copyOf(starts, depth * 2);
+		}
+		components[depth] = component; starts[depth++] = System.nanoTime();
+	}
+
+
+	/** Leaves the innermost component and returns the elapsed time in nanoseconds. */
+	long pop() {
+		long now = System.nanoTime();
+		components[--depth] = null;
+		return now - starts[depth];
+	}
+
+
+	/** Returns the innermost component, or null if none was entered. */
+	Component peek() {
+		return depth > 0 ? components[depth - 1] : null;
+	}
+
+
+	/** Records the start of a value check, these are never nested. */
+	void startValue() {
+		valueStart = System.nanoTime();
+	}
+
+
+	/** Returns the time elapsed since the start of the value check. */
+	long stopValue() {
+		return System.nanoTime() - valueStart;
+	}
+}
@@ -0,0 +1,47 @@
+package be.baur.sds.validation;
+
+import be.baur.sda.Node;
+import be.baur.sda.ProcessingException;
+import be.baur.sda.util.Result;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * A {@code ValidationException} is thrown when a document is not valid, and
+ * the operation cannot continue, like binding the document to objects. The
+ * message is that of the first error.
+ *
+ * @see Errors
+ */
+@SuppressWarnings("serial")
+public final class ValidationException extends ProcessingException {
+
+	private final transient Errors errors;
+
+	/**
+	 * Creates a validation exception with the errors that were found.
+	 *
+	 * @param errors the validation errors, not null or empty
+	 */
+	public ValidationException(Errors errors) {
+		super(first(errors).getValue(), first(errors).getMessage());
+		this.errors = errors;
+	}
+
+
+	/** Returns the first error. */
+	private static Result<Node> first(Errors errors) {
+		if (errors.isEmpty())
+			throw new IllegalArgumentException("errors must not be empty");
+		return errors.get(0);
+	}
+
+
+	/**
+	 * Returns the errors that were found.
+	 *
+	 * @return the validation errors, not empty
+	 */
+	public Errors getErrors() {
+		return errors;
+	}
+}
@@ -0,0 +1,163 @@
+package be.baur.sds.validation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@code ValidationLimits} object holds the resources that a single validation
+ * may consume, to protect an application against documents that are hostile or
+ * broken. For example:
+ *
+ * <pre>
+ * ValidationLimits limits = new ValidationLimits();
+ * limits.setMaxDepth(100);
+ * limits.setMaxValueLength(64 * 1024);
+ * limits.setTimeout(250, TimeUnit.MILLISECONDS);
+ * validator.setLimits(limits);
+ * </pre>
+ *
+ * When a limit is exceeded, validation is aborted, and the errors returned end
+ * with an error that reports which limit was exceeded; see
+ * {@link Validator.Errors#isAborted}. Validation is also aborted when the thread
+ * that performs it is interrupted, which allows a validation to be cancelled.
+ * The timeout and interrupt status are checked periodically rather than for
+ * every node, so a validation may take slightly longer than the timeout.
+ * <p>
+ * By default, there are no limits.
+ *
+ * @see Validator#setLimits
+ */
+public final class ValidationLimits {
+
+	private int maxDepth = Integer.MAX_VALUE;
+	private long maxNodes = Long.MAX_VALUE;
+	private int maxValueLength = Integer.MAX_VALUE;
+	private int maxErrors = Integer.MAX_VALUE;
+	private long timeout = 0; // in nanoseconds, 0 if there is no timeout
+
+
+	/** Creates limits that do not limit anything. */
+	public ValidationLimits() {}
+
+
+	/** Creates a copy of the specified limits. */
+	ValidationLimits(ValidationLimits limits) {
+		maxDepth = limits.maxDepth; maxNodes = limits.maxNodes;
+		maxValueLength = limits.maxValueLength; maxErrors = limits.maxErrors;
+		timeout = limits.timeout;
+	}
+
+
+	/**
+	 * Returns the maximum nesting depth of a document; the document node itself is
+	 * at depth 1.
+	 *
+	 * @return a positive number
+	 */
+	public int getMaxDepth() {
+		return maxDepth;
+	}
+
+
+	/**
+	 * Sets the maximum nesting depth of a document.
+	 *
+	 * @param depth a positive number
+	 * @throws IllegalArgumentException if the depth is not positive
+	 */
+	public void setMaxDepth(int depth) {
+		if (depth <= 0) throw new IllegalArgumentException("depth must be positive");
+		this.maxDepth = depth;
+	}
+
+
+	/**
+	 * Returns the maximum number of nodes in a document.
+	 *
+	 * @return a positive number
+	 */
+	public long getMaxNodes() {
+		return maxNodes;
+	}
+
+
+	/**
+	 * Sets the maximum number of nodes in a document. Validation is aborted as
+	 * soon as the child nodes of a node would exceed this number, so a huge
+	 * fan-out is detected before the child nodes are examined.
+	 *
+	 * @param nodes a positive number
+	 * @throws IllegalArgumentException if the number is not positive
+	 */
+	public void setMaxNodes(long nodes) {
+		if (nodes <= 0) throw new IllegalArgumentException("nodes must be positive");
+		this.maxNodes = nodes;
+	}
+
+
+	/**
+	 * Returns the maximum length of a node value, in characters.
+	 *
+	 * @return a non-negative number
+	 */
+	public int getMaxValueLength() {
+		return maxValueLength;
+	}
+
+
+	/**
+	 * Sets the maximum length of a node value, in characters.
+	 *
+	 * @param length a non-negative number
+	 * @throws IllegalArgumentException if the length is negative
+	 */
+	public void setMaxValueLength(int length) {
+		if (length < 0) throw new IllegalArgumentException("length must not be negative");
+		this.maxValueLength = length;
+	}
+
+
+	/**
+	 * Returns the number of errors after which validation is aborted.
+	 *
+	 * @return a positive number
+	 */
+	public int getMaxErrors() {
+		return maxErrors;
+	}
+
+
+	/**
+	 * Sets the number of errors after which validation is aborted.
+	 *
+	 * @param errors a positive number
+	 * @throws IllegalArgumentException if the number is not positive
+	 */
+	public void setMaxErrors(int errors) {
+		if (errors <= 0) throw new IllegalArgumentException("errors must be positive");
+		this.maxErrors = errors;
+	}
+
+
+	/**
+	 * Returns the maximum duration of a validation in the specified unit.
+	 *
+	 * @param unit a time unit, not null
+	 * @return a duration, 0 if there is no timeout
+	 */
+	public long getTimeout(TimeUnit unit) {
+		return unit.convert(timeout, TimeUnit.NANOSECONDS);
+	}
+
+
+	/**
+	 * Sets the maximum duration of a validation.
+	 *
+	 * @param timeout a duration, 0 for no timeout
+	 * @param unit    the time unit of the duration, not null
+	 * @throws IllegalArgumentException if the duration is negative
+	 */
+	public void setTimeout(long timeout, TimeUnit unit) {
+		if (timeout < 0) throw new IllegalArgumentException("timeout must not be negative");
+		this.timeout = unit.toNanos(timeout);
+	}
+}
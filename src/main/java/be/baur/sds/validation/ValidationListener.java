@@ -0,0 +1,129 @@
+package be.baur.sds.validation;
+
+import java.util.Objects;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.DataType;
+import be.baur.sds.Type;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * A {@code ValidationListener} is notified by a {@code Validator} as it works
+ * its way through a document, for example to find out where validation time is
+ * spent. All methods have an empty default implementation, so applications only
+ * need to override the events of interest.
+ * <p>
+ * Events are reported on the thread that performs the validation, and
+ * enter/leave events are always properly nested. Listeners should return
+ * quickly, and must not modify the document or the schema.
+ *
+ * @see Validator#setListener
+ * @see ValidationStatistics
+ */
+public interface ValidationListener {
+
+	/**
+	 * Called when the validation of a document starts.
+	 *
+	 * @param document the node to be validated, not null
+	 */
+	default void beginDocument(DataNode document) {}
+
+
+	/**
+	 * Called when the validation of a document has completed. This is not called
+	 * if validation ends with an exception.
+	 *
+	 * @param document the node that was validated, not null
+	 * @param nodes    the number of nodes that were matched to a type
+	 * @param errors   the errors that were found, not null; empty if they were
+	 *                 passed to an {@link ErrorHandler}
+	 */
+	default void endDocument(DataNode document, long nodes, Errors errors) {}
+
+
+	/**
+	 * Called when a node has been matched to a type, before its content is
+	 * validated.
+	 *
+	 * @param node the node being validated, not null
+	 * @param type the matching type, not null
+	 */
+	default void enterType(DataNode node, Type type) {}
+
+
+	/**
+	 * Called when validation of the content of a matched node has completed.
+	 *
+	 * @param node the node that was validated, not null
+	 * @param type the matching type, not null
+	 */
+	default void leaveType(DataNode node, Type type) {}
+
+
+	/**
+	 * Called when the validator tries to match a node to a model group. Note that
+	 * the content of the nodes that match the group is validated after the group
+	 * has been left, so only matching takes place between these events.
+	 *
+	 * @param node  the first node to be matched, not null
+	 * @param group the model group, not null
+	 */
+	default void enterGroup(DataNode node, ModelGroup group) {}
+
+
+	/**
+	 * Called when the validator is done matching a node to a model group.
+	 *
+	 * @param node    the first node to be matched, not null
+	 * @param group   the model group, not null
+	 * @param matched whether the node matched the group
+	 */
+	default void leaveGroup(DataNode node, ModelGroup group, boolean matched) {}
+
+
+	/**
+	 * Called before the value of a node is checked against a data type.
+	 *
+	 * @param node the node whose value is checked, not null
+	 * @param type the data type, not null
+	 */
+	default void enterValue(DataNode node, DataType type) {}
+
+
+	/**
+	 * Called after the value of a node has been checked against a data type.
+	 *
+	 * @param node  the node whose value was checked, not null
+	 * @param type  the data type, not null
+	 * @param valid whether the value is valid
+	 */
+	default void leaveValue(DataNode node, DataType type, boolean valid) {}
+
+
+	/**
+	 * Called when a validation error is found, before it is added to the result or
+	 * passed to the error handler.
+	 *
+	 * @param error the validation error, not null
+	 */
+	default void error(Result<Node> error) {}
+
+
+	/**
+	 * Returns a listener that forwards all events to the specified listeners, in
+	 * the specified order. This allows a validator to use several listeners, for
+	 * example to publish statistics and log slow documents at the same time.
+	 *
+	 * @param listeners one or more listeners, not null
+	 * @return a listener
+	 */
+	static ValidationListener of(ValidationListener... listeners) {
+		for (ValidationListener l : listeners)
+			Objects.requireNonNull(l, "listener must not be null");
+		return (listeners.length == 1) ? listeners[0] : new CompositeListener(listeners.clone());
+	}
+}
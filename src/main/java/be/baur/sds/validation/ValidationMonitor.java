@@ -0,0 +1,231 @@
+package be.baur.sds.validation;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.Schema;
+import be.baur.sds.serialization.SDSParseException;
+import be.baur.sds.validation.Validator.Errors;
+
+/**
+ * A {@code ValidationListener} that publishes live validation statistics as an
+ * MXBean, so they can be monitored through JMX. For example:
+ *
+ * <pre>
+ * ValidationMonitor monitor = new ValidationMonitor();
+ * monitor.register("orders");
+ * validator.setListener(monitor);
+ * </pre>
+ *
+ * makes the statistics available as {@code be.baur.sds:type=ValidationMonitor,name=orders}.
+ * Schema load times are recorded when the schema is loaded from a source that
+ * is wrapped by {@link #timed(SchemaSource)}.
+ * <p>
+ * A monitor only keeps track of whole documents and errors, not of individual
+ * components. All counters are lock-free, so a single instance can be shared
+ * by validators on multiple threads.
+ */
+public final class ValidationMonitor implements ValidationListener, ValidationMonitorMXBean {
+
+	/** The JMX domain in which monitors are registered. */
+	public static final String DOMAIN = "be.baur.sds";
+
+	private final LongAdder documents = new LongAdder();
+	private final LongAdder nodes = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder nanos = new LongAdder(); // total validation time
+	private final Map<String, LongAdder> templates = new ConcurrentHashMap<>();
+	private final LatencyHistogram latency = new LatencyHistogram();
+	private final ThreadLocal<long[]> start = ThreadLocal.withInitial(() -> new long[1]);
+
+	private final LongAdder schemaLoads = new LongAdder();
+	private final LongAdder schemaLoadNanos = new LongAdder();
+	private volatile long lastSchemaLoadNanos = 0;
+
+	private ObjectName objectName = null; // if registered
+
+
+	@Override
+	public void beginDocument(DataNode document) {
+		start.get()[0] = System.nanoTime();
+	}
+
+
+	@Override
+	public void endDocument(DataNode document, long nodes, Errors errors) {
+		long elapsed = System.nanoTime() - start.get()[0];
+		this.documents.increment(); this.nodes.add(nodes);
+		this.nanos.add(elapsed);
+		latency.record(elapsed);
+	}
+
+
+	@Override
+	public void error(Result<Node> error) {
+		String template = (error instanceof Validator.Error) ? ((Validator.Error) error).template : error.getMessage();
+		LongAdder count = templates.get(template);
+		if (count == null) count = templates.computeIfAbsent(template, t -> new LongAdder());
+		count.increment(); errors.increment(); // counted here, since handled errors are not collected
+	}
+
+
+	/**
+	 * Records the time it took to load (parse and prepare) a schema.
+	 *
+	 * @param nanos a duration in nanoseconds
+	 */
+	public void recordSchemaLoad(long nanos) {
+		schemaLoads.increment(); schemaLoadNanos.add(nanos);
+		lastSchemaLoadNanos = nanos;
+	}
+
+
+	/**
+	 * Returns a schema source that records the load time of every schema that is
+	 * loaded from the specified source, for example to construct a
+	 * {@code ReloadableValidator}.
+	 *
+	 * @param source a schema source, not null
+	 * @return a schema source
+	 */
+	public SchemaSource timed(SchemaSource source) {
+		return new SchemaSource() {
+			@Override
+			public Schema load() throws IOException, SDSParseException {
+				long begin = System.nanoTime();
+				Schema schema = source.load();
+				recordSchemaLoad(System.nanoTime() - begin);
+				return schema;
+			}
+			@Override
+			public long version() throws IOException {
+				return source.version();
+			}
+			@Override
+			public String toString() {
+				return source.toString();
+			}
+		};
+	}
+
+
+	/**
+	 * Registers this monitor with the platform MBean server, under the name
+	 * {@code be.baur.sds:type=ValidationMonitor,name=<name>}.
+	 *
+	 * @param name a name that identifies the monitored schema or validator
+	 * @return the object name of the registered MXBean
+	 * @throws JMException if registration fails, for example if the name is taken
+	 */
+	public synchronized ObjectName register(String name) throws JMException {
+		if (objectName != null)
+			throw new IllegalStateException("monitor is already registered as " + objectName);
+		ObjectName on = new ObjectName(DOMAIN + ":type=ValidationMonitor,name=" + ObjectName.quote(name));
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, on);
+		return objectName = on;
+	}
+
+
+	/**
+	 * Unregisters this monitor from the platform MBean server. Nothing is done if
+	 * the monitor is not registered.
+	 *
+	 * @throws JMException if unregistration fails
+	 */
+	public synchronized void unregister() throws JMException {
+		if (objectName == null) return;
+		ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+		objectName = null;
+	}
+
+
+	@Override
+	public long getDocumentsValidated() {
+		return documents.sum();
+	}
+
+
+	@Override
+	public long getNodesValidated() {
+		return nodes.sum();
+	}
+
+
+	@Override
+	public double getNodesPerSecond() {
+		long time = nanos.sum();
+		return time == 0 ? 0 : nodes.sum() * 1e9 / time;
+	}
+
+
+	@Override
+	public long getErrorCount() {
+		return errors.sum();
+	}
+
+
+	@Override
+	public Map<String, Long> getErrorCountsByTemplate() {
+		Map<String, Long> map = new TreeMap<>();
+		templates.forEach((template, count) -> map.put(template, count.sum()));
+		return map;
+	}
+
+
+	@Override
+	public double getLatencyP50Millis() {
+		return latency.percentile(0.50) / 1e6;
+	}
+
+
+	@Override
+	public double getLatencyP99Millis() {
+		return latency.percentile(0.99) / 1e6;
+	}
+
+
+	@Override
+	public double getLatencyMaxMillis() {
+		return latency.max() / 1e6;
+	}
+
+
+	@Override
+	public long getSchemaLoadCount() {
+		return schemaLoads.sum();
+	}
+
+
+	@Override
+	public double getLastSchemaLoadMillis() {
+		return lastSchemaLoadNanos / 1e6;
+	}
+
+
+	@Override
+	public double getTotalSchemaLoadMillis() {
+		return schemaLoadNanos.sum() / 1e6;
+	}
+
+
+	/**
+	 * Resets all statistics, except for the time it took to load the current
+	 * schema.
+	 */
+	@Override
+	public void reset() {
+		documents.reset(); nodes.reset(); errors.reset(); nanos.reset();
+		templates.clear(); latency.reset();
+		schemaLoads.reset(); schemaLoadNanos.reset();
+	}
+}
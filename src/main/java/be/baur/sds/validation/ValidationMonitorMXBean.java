@@ -0,0 +1,48 @@
+package be.baur.sds.validation;
+
+import java.util.Map;
+
+/**
+ * The management interface of a {@code ValidationMonitor}, as it is published
+ * through JMX.
+ *
+ * @see ValidationMonitor
+ */
+public interface ValidationMonitorMXBean {
+
+	/** Returns the number of documents validated. */
+	long getDocumentsValidated();
+
+	/** Returns the number of nodes validated, in all documents. */
+	long getNodesValidated();
+
+	/** Returns the number of nodes validated per second of validation time. */
+	double getNodesPerSecond();
+
+	/** Returns the number of validation errors, in all documents. */
+	long getErrorCount();
+
+	/** Returns the number of validation errors for each message template. */
+	Map<String, Long> getErrorCountsByTemplate();
+
+	/** Returns the median validation time of a document, in milliseconds. */
+	double getLatencyP50Millis();
+
+	/** Returns the 99th percentile of the validation time of a document, in milliseconds. */
+	double getLatencyP99Millis();
+
+	/** Returns the longest validation time of a document, in milliseconds. */
+	double getLatencyMaxMillis();
+
+	/** Returns the number of times a schema was loaded. */
+	long getSchemaLoadCount();
+
+	/** Returns the time it took to load the current schema, in milliseconds. */
+	double getLastSchemaLoadMillis();
+
+	/** Returns the total time spent loading schemas, in milliseconds. */
+	double getTotalSchemaLoadMillis();
+
+	/** Resets all statistics, except for the time it took to load the current schema. */
+	void reset();
+}
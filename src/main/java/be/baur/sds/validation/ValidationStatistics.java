@@ -0,0 +1,214 @@
+package be.baur.sds.validation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.util.Result;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.Type;
+import be.baur.sds.model.ModelGroup;
+
+/**
+ * A {@code ValidationListener} that aggregates counts, timings and error rates
+ * per schema component. For example:
+ *
+ * <pre>
+ * ValidationStatistics stats = new ValidationStatistics();
+ * validator.setListener(stats);
+ * validator.validate(node);
+ * System.out.println(stats);
+ * </pre>
+ *
+ * Timings are inclusive, so the time spent in a type includes the time spent
+ * in the components nested within it; for a model group, it only includes the
+ * time spent matching nodes to the group. An error is attributed to the
+ * innermost type that was being validated when it was reported. Errors in
+ * content that does not fit a model group are reported after the group has
+ * been left, so they are attributed to the type whose content holds the group,
+ * and the error count of a group is always 0; its mismatches show how often it
+ * did not match. This class is thread-safe, so it can be used with a validator
+ * that is shared by multiple threads.
+ */
+public final class ValidationStatistics implements ValidationListener {
+
+	private final Map<Component, Counter> counters = new ConcurrentHashMap<>();
+	private final ThreadLocal<TimingStack> frames = ThreadLocal.withInitial(TimingStack::new);
+
+
+	/**
+	 * The statistics for a single schema component. Counters are updated without
+	 * locking, so values read during validation may be slightly out of date.
+	 */
+	public static final class Counter {
+
+		private final Component component;
+		private final LongAdder count = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+		private final LongAdder mismatches = new LongAdder();
+		private final LongAdder errors = new LongAdder();
+		private final LongAdder values = new LongAdder();
+		private final LongAdder valueNanos = new LongAdder();
+		private final LongAdder invalidValues = new LongAdder();
+
+		private Counter(Component component) {
+			this.component = component;
+		}
+
+		/** Returns the schema component, either a type or a model group. */
+		public Component getComponent() { return component; }
+
+		/** Returns how many times the component was entered. */
+		public long getCount() { return count.sum(); }
+
+		/** Returns the total time spent in the component, in nanoseconds. */
+		public long getNanos() { return nanos.sum(); }
+
+		/** Returns how many times a model group did not match; 0 for a type. */
+		public long getMismatches() { return mismatches.sum(); }
+
+		/** Returns the number of errors attributed to the component; 0 for a model group. */
+		public long getErrors() { return errors.sum(); }
+
+		/** Returns how many values were checked against a data type. */
+		public long getValueChecks() { return values.sum(); }
+
+		/** Returns the total time spent checking values, in nanoseconds. */
+		public long getValueNanos() { return valueNanos.sum(); }
+
+		/** Returns how many values were found to be invalid. */
+		public long getInvalidValues() { return invalidValues.sum(); }
+
+		/** Returns the ratio of errors to the number of times the component was entered. */
+		public double getErrorRate() {
+			long n = count.sum();
+			return n == 0 ? 0 : (double) errors.sum() / n;
+		}
+
+		/** Returns a label that identifies the component in a report. */
+		private String label() {
+			String name = (component instanceof Type)
+				? "'" + ((Type) component).getTypeName() + "'" : component.getName();
+			return name + " at " + component.path();
+		}
+	}
+
+
+	private Counter counter(Component component) {
+		Counter counter = counters.get(component);
+		return (counter != null) ? counter : counters.computeIfAbsent(component, Counter::new);
+	}
+
+
+	@Override
+	public void enterType(DataNode node, Type type) {
+		frames.get().push(type);
+	}
+
+
+	@Override
+	public void leaveType(DataNode node, Type type) {
+		long elapsed = frames.get().pop();
+		Counter counter = counter(type);
+		counter.count.increment(); counter.nanos.add(elapsed);
+	}
+
+
+	@Override
+	public void enterGroup(DataNode node, ModelGroup group) {
+		frames.get().push(group);
+	}
+
+
+	@Override
+	public void leaveGroup(DataNode node, ModelGroup group, boolean matched) {
+		long elapsed = frames.get().pop();
+		Counter counter = counter(group);
+		counter.count.increment(); counter.nanos.add(elapsed);
+		if (! matched) counter.mismatches.increment();
+	}
+
+
+	@Override
+	public void enterValue(DataNode node, DataType type) {
+		frames.get().startValue();
+	}
+
+
+	@Override
+	public void leaveValue(DataNode node, DataType type, boolean valid) {
+		long elapsed = frames.get().stopValue();
+		Counter counter = counter(type);
+		counter.values.increment(); counter.valueNanos.add(elapsed);
+		if (! valid) counter.invalidValues.increment();
+	}
+
+
+	@Override
+	public void error(Result<Node> error) {
+		Component current = frames.get().peek();
+		if (current != null) counter(current).errors.increment();
+	}
+
+
+	/**
+	 * Returns the counters collected so far, one for each component that was
+	 * entered at least once, in no particular order.
+	 *
+	 * @return a list of counters, may be empty
+	 */
+	public List<Counter> getCounters() {
+		return new ArrayList<>(counters.values());
+	}
+
+
+	/**
+	 * Returns the counter for the specified component.
+	 *
+	 * @param component a schema component
+	 * @return a counter, null if the component was not entered
+	 */
+	public Counter getCounter(Component component) {
+		return counters.get(component);
+	}
+
+
+	/**
+	 * Discards all statistics collected so far. This should not be called while
+	 * validation is in progress.
+	 */
+	public void reset() {
+		counters.clear();
+	}
+
+
+	/**
+	 * Returns a report of the statistics, one line per component, with the most
+	 * time consuming components first.
+	 */
+	@Override
+	public String toString() {
+
+		List<Counter> list = getCounters();
+		Collections.sort(list, (a, b) -> Long.compare(b.getNanos(), a.getNanos()));
+
+		StringBuilder sb = new StringBuilder();
+		for (Counter c : list) {
+			sb.append(String.format("%s: count=%d, time=%.3fms, errors=%d (%.1f%%)", c.label(),
+				c.getCount(), c.getNanos() / 1e6, c.getErrors(), 100 * c.getErrorRate()));
+			if (c.getMismatches() > 0)
+				sb.append(String.format(", mismatches=%d", c.getMismatches()));
+			if (c.getValueChecks() > 0)
+				sb.append(String.format(", values=%d, value time=%.3fms, invalid=%d",
+					c.getValueChecks(), c.getValueNanos() / 1e6, c.getInvalidValues()));
+			sb.append(System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
@@ -1,10 +1,17 @@
 package be.baur.sds.validation;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntBiFunction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -20,6 +27,9 @@ import be.baur.sds.Schema;
 import be.baur.sds.Type;
 import be.baur.sds.common.Interval;
 import be.baur.sds.common.NaturalInterval;
+import be.baur.sds.jfr.FlightRecording;
+import be.baur.sds.jfr.ValidateEvent;
+import be.baur.sds.jfr.ValueEvent;
 import be.baur.sds.model.ChoiceGroup;
 import be.baur.sds.model.ModelGroup;
 import be.baur.sds.model.SequenceGroup;
@@ -74,25 +84,110 @@ public abstract class Validator {
 	private static final String VALUE_EXCEEDS_MAX = "value '%s' exceeds the maximum of %s";
 	private static final String VALUE_NOT_INCLUSIVE = "value '%s' is not inclusive";
 	
+	private static final String VALIDATION_ABORTED = "validation aborted; %s";
+	private static final String MAX_DEPTH_EXCEEDED = "maximum depth of %d exceeded";
+	private static final String MAX_NODES_EXCEEDED = "maximum of %d nodes exceeded";
+	private static final String MAX_LENGTH_EXCEEDED = "value length of %d exceeds the maximum of %d";
+	private static final String MAX_ERRORS_REACHED = "maximum of %d errors reached";
+	private static final String TIMEOUT_EXCEEDED = "timeout of %d ms exceeded";
+	private static final String THREAD_INTERRUPTED = "thread was interrupted";
+	private static final String STOPPED_BY_HANDLER = "stopped by the error handler";
+	
+	/** The stack of frames of the current thread, kept for reuse between validations. */
+	private static final ThreadLocal<Frame[]> STACK = new ThreadLocal<>();
+	private static final int MAX_STACK = 1024; // larger stacks are not kept
+	
 	/** The name of the type for validation, may be null. */
 	private String typeName;
+	
+	/** The listener to notify during validation, may be null. */
+	private ValidationListener listener;
+	
+	/** The cache of subtree validation outcomes, null if memoization is off. */
+	private SubtreeCache memo;
+	
+	/** The caches of value validation outcomes, null if value caching is off. */
+	private Map<DataType, ValueCache> valueCaches;
+	
+	/** The error handler used by {@link #isValid}, which stops at the first error. */
+	private static final ErrorHandler FAIL_FAST = error -> false;
+	
+	/** The resource limits of a validation, may be null. */
+	private ValidationLimits limits;
+	
+	/** The number of content errors after which child nodes are skipped, 0 if none. */
+	private int pruning = 0;
+	
+	/** The compiled check of the schema, null if there is none; see ValidatorCompiler. */
+	ToIntBiFunction<DataNode, Object> compiled;
+
+	/** The global types that the compiled check applies to, null if there is none. */
+	Set<NodeType> compiledTypes;
+
+	/**
+	 * A non-public class to hold a validation error. The message is formatted
+	 * from the template and arguments when it is first requested, so an error
+	 * that is only counted costs no formatting at all. The arguments must not be
+	 * changed, since they may be shared by errors replayed from a cache.
+	 */
+	static final class Error extends Result<Node> {
+
+		final String template; // the format string of the message
+		final Object[] args; // the arguments of the template
+		NodePath path; // a handle to the path of the node, may be null
+		private String message; // formatted lazily; races are benign
+
+		Error(Node node, String template, Object[] args) {
+			super(false, node, null);
+			this.template = template; this.args = args;
+		}
 
-	/** A private class to hold a validation error */
-	private static final class Error extends Result<Node> {
+		@Override
+		public String getMessage() {
+			String formatted = message;
+			if (formatted == null) message = formatted = String.format(template, args);
+			return formatted;
+		}
 
-		public Error(Node node, String message) {
-			super(false, node, message);
+		/** Returns the path of the node, like {@link Node#path()} does. */
+		String path() {
+			return (path != null) ? path.toString() : this.getValue().path();
 		}
 
 		@Override
 		public String toString() {
-			return this.getValue().path() + ": " + this.getMessage();
+			return this.path() + ": " + this.getMessage();
 		}
 	}
 
 	/** A private method to create a validation error */
 	private static Error error(Node node, String format, Object... args) {
-		return new Error(node, String.format(format, args));
+		return new Error(node, format, args);
+	}
+
+
+	/**
+	 * A private exception that is thrown to abort validation when a limit is
+	 * exceeded. It carries the error to be reported, and has no stack trace.
+	 * When an error is found by {@link #isValid}, the preallocated {@code FAILED}
+	 * instance is thrown instead, which carries no error.
+	 */
+	@SuppressWarnings("serial")
+	private static final class Abort extends RuntimeException {
+		
+		static final Abort FAILED = new Abort();
+		
+		final Error error;
+		
+		private Abort() {
+			super(null, null, false, false);
+			this.error = null;
+		}
+		
+		Abort(Node node, String format, Object... args) {
+			super(null, null, false, false);
+			this.error = error(node, VALIDATION_ABORTED, new Error(node, format, args).getMessage());
+		}
 	}
 
 
@@ -111,9 +206,204 @@ public abstract class Validator {
 	@SuppressWarnings("serial")
 	public final class Errors extends Results<Node> {
 
+		private boolean aborted = false;
+		
 		private boolean add(Error error) {
 			return super.addError(error);
 		}
+		
+		/**
+		 * Returns whether validation was aborted because a limit was exceeded, in
+		 * which case the last error reports the limit, and the document may have
+		 * other errors that were not found.
+		 * 
+		 * @return true if validation was aborted
+		 * @see ValidationLimits
+		 */
+		public boolean isAborted() {
+			return aborted;
+		}
+	}
+	
+	
+	/**
+	 * A private class to hold the state of a single validation. It is passed along
+	 * by the validation logic, so the validator itself remains stateless.
+	 */
+	private static final class Context {
+		
+		final Errors errors; // the errors found so far, unless they are handled
+		final ErrorHandler handler; // may be null, in which case errors are collected
+		final ValidationListener listener; // may be null
+		final SubtreeCache memo; // may be null
+		final Map<DataType, ValueCache> values; // may be null
+		final IncrementalValidation session; // may be null
+		final ValidationLimits limits; // may be null
+		int pruning; // the number of errors in a subtree after which child nodes are skipped
+		final long start = System.nanoTime(); // when validation started
+		long nodes = 0; // the number of nodes matched so far
+		long count = 0; // the number of errors found so far
+		Error[] recent; // the most recent errors, if they are handled and memoization is on
+		List<Object> script; // the script being built, while matching content
+		Frame[] frames; int depth = 0; // the stack of frames, reused during validation
+		int levels = 0; // the nesting depth outside the stack of frames
+		int ticks = 0; // counts down to the next check of the clock
+		
+		Context(Errors errors, ErrorHandler handler, ValidationListener listener, SubtreeCache memo, Map<DataType, ValueCache> values, 
+				IncrementalValidation session, ValidationLimits limits) {
+			this.errors = errors; this.handler = handler; this.listener = listener; this.memo = memo; 
+			this.values = values; this.session = session; this.limits = limits;
+			if (memo != null && handler != null && handler != FAIL_FAST) recent = new Error[SubtreeCache.MAX_ERRORS + 1];
+		}
+		
+		/**
+		 * Adds an error (if not null) to the current script, or to the result otherwise.
+		 * Errors in a script are never discarded, so if validation stops at the first
+		 * error, it stops right away.
+		 */
+		void add(Error error) {
+			if (error == null) return;
+			if (script != null && handler != FAIL_FAST) script.add(error);
+			else emit(error);
+		}
+		
+		/**
+		 * Adds an error to the result, or passes it to the handler, and notifies the
+		 * listener. Handled errors are not collected, except for the most recent ones
+		 * if memoization is on, since outcomes with few errors are memoized.
+		 */
+		void emit(Error error) {
+			error.path = path(error.getValue());
+			if (listener != null) listener.error(error);
+			if (handler == null) errors.add(error);
+			else if (recent != null) recent[(int) (count % recent.length)] = error;
+			++count;
+			if (handler == FAIL_FAST) throw Abort.FAILED;
+			if (handler != null && ! handler.error(error))
+				throw new Abort(error.getValue(), STOPPED_BY_HANDLER);
+			if (limits != null && count >= limits.getMaxErrors()) 
+				throw new Abort(error.getValue(), MAX_ERRORS_REACHED, limits.getMaxErrors());
+		}
+		
+		/**
+		 * Returns the error with the specified index, which must be one of the
+		 * most recent errors if they are handled.
+		 */
+		Error error(long index) {
+			return (Error) (handler == null ? errors.get((int) index) : recent[(int) (index % recent.length)]);
+		}
+		
+		/**
+		 * Aborts validation if the timeout has expired or the thread is interrupted.
+		 * This is checked only every so many calls, because reading the clock is
+		 * relatively expensive.
+		 */
+		void tick(Node node) {
+			if (--ticks > 0) return;
+			ticks = 256;
+			if (Thread.currentThread().isInterrupted()) 
+				throw new Abort(node, THREAD_INTERRUPTED);
+			long timeout = limits.getTimeout(TimeUnit.NANOSECONDS);
+			if (timeout > 0 && System.nanoTime() - start > timeout) 
+				throw new Abort(node, TIMEOUT_EXCEEDED, limits.getTimeout(TimeUnit.MILLISECONDS));
+		}
+		
+		/**
+		 * Unwinds the stack down to the specified depth when validation is aborted,
+		 * so the listener is notified of every type that was left.
+		 */
+		void unwind(int base) {
+			script = null;
+			while (depth > base) {
+				Frame frame = frames[depth - 1];
+				if (listener != null) listener.leaveType(frame.node, frame.type);
+				pop();
+			}
+		}
+		
+		/**
+		 * Ends an aborted validation, and adds or handles the error that reports why,
+		 * if any; there is none when validation stops at the first error.
+		 */
+		void abort(Error error) {
+			unwind(0); levels = 0;
+			if (error == null) return;
+			if (listener != null) listener.error(error);
+			if (handler != null) handler.error(error);
+			else errors.add(error);
+			errors.aborted = true; ++count;
+		}
+		
+		/** Returns a cleared frame on top of the stack. */
+		Frame push() {
+			if (frames == null) { // take the stack of the current thread, if any
+				frames = STACK.get();
+				if (frames == null) frames = new Frame[16];
+				else STACK.remove();
+			}
+			else if (depth == frames.length) frames = Arrays.copyOf(frames, 2 * depth);
+			Frame frame = frames[depth];
+			if (frame == null) frames[depth] = frame = new Frame();
+			++depth; return frame;
+		}
+		
+		/**
+		 * Returns a handle to the path of a node if it is the node of the top frame
+		 * or one of its child nodes, or null otherwise. The handles of the frames on
+		 * the stack are created when first needed, so they cost nothing unless an
+		 * error is found, and they share their prefixes.
+		 */
+		NodePath path(Node node) {
+			
+			if (depth == 0) return null;
+			Frame top = frames[depth - 1];
+			if (node != top.node && node.getParent() != top.node) return null;
+			
+			if (top.path == null) {
+				int level = depth - 1; // the lowest frame with a handle, if any
+				while (level > 0 && frames[level - 1].path == null) --level;
+				for (; level < depth; level++) {
+					Frame frame = frames[level];
+					frame.path = (level == 0) ? NodePath.of(frame.node) : frames[level - 1].path.child(frame.node);
+				}
+			}
+			return (node == top.node) ? top.path : top.path.child(node);
+		}
+		
+		/** Removes the frame on top of the stack. */
+		void pop() {
+			frames[--depth].clear();
+		}
+		
+		/** Hands the stack back to the current thread when validation is done. */
+		void release() {
+			if (frames != null && depth == 0 && frames.length <= MAX_STACK) STACK.set(frames);
+			frames = null;
+		}
+	}
+
+
+	/**
+	 * A private class to hold the state of a node that is being validated. Frames
+	 * are kept on an explicit stack, and reused for subsequent nodes.
+	 */
+	private static final class Frame {
+		
+		DataNode node; Type type; // the node and the type it matches
+		final List<Object> script = new ArrayList<>(); // errors, and child nodes followed by their type
+		int next; // the index of the next item in the script
+		long first, nodes; // the number of errors and nodes when the frame was pushed
+		int pending; // the number of errors in the script that were not emitted yet, if pruning
+		long excluded; // the number of errors in pruned subtrees below the node, if pruning
+		SubtreeCache.Key key; // to memoize the outcome, may be null
+		boolean retain; // whether to retain the outcome for incremental validation
+		SubtreeCache.Hash hash; // the structural hash of the node, if memoization is on
+		NodePath path; // a handle to the path of the node, created when needed
+		
+		void clear() {
+			node = null; type = null; script.clear(); next = 0; key = null; retain = false; hash = null; path = null;
+			pending = 0; excluded = 0;
+		}
 	}
 
 	
@@ -137,6 +427,139 @@ public abstract class Validator {
 	}
 	
 	
+	/**
+	 * Sets a listener to be notified of validation events, for example to collect
+	 * statistics. A null reference removes the listener; there is no overhead if
+	 * no listener is set.
+	 * <p>
+	 * Applications must not (re)set the listener while validation is in progress
+	 * or when multiple threads are using the validator. A listener that is set on
+	 * a validator used by multiple threads must itself be thread-safe.
+	 * 
+	 * @param listener a validation listener, may be null
+	 * @see ValidationListener
+	 */
+	public void setListener(ValidationListener listener) {
+		this.listener = listener;
+	}
+	
+	
+	/**
+	 * Turns memoization on or off. When on, the validator remembers the outcome of
+	 * validating a subtree against a type, keyed by a structural hash of the
+	 * subtree. When an identical subtree is validated against the same type, the
+	 * outcome is reused, and any errors are reported for the new location. This
+	 * pays off for documents that repeat the same content many times, like the
+	 * same address under thousands of contacts.
+	 * <p>
+	 * Only subtrees of some size are memoized, and the cache holds at most the
+	 * specified number of outcomes, evicting the least recently used one when
+	 * full. Note that a listener is not notified of the content of a subtree for
+	 * which an outcome is reused. Setting memoization discards any outcomes that
+	 * were memoized before.
+	 * <p>
+	 * Applications must not change memoization while validation is in progress
+	 * or when multiple threads are using the validator.
+	 * 
+	 * @param capacity the maximum number of outcomes to keep, 0 turns memoization off
+	 */
+	public void setMemoization(int capacity) {
+		if (capacity < 0)
+			throw new IllegalArgumentException("capacity must not be negative");
+		this.memo = (capacity == 0) ? null : new SubtreeCache(capacity);
+	}
+
+	
+	/**
+	 * Sets the resource limits of every validation, or removes them if null.
+	 * When a limit is exceeded, validation is aborted, and the errors returned end
+	 * with an error that reports the limit. The limits are copied, so subsequent
+	 * changes to the specified object have no effect on this validator.
+	 * <p>
+	 * Applications must not change the limits while validation is in progress or
+	 * when multiple threads are using the validator.
+	 * 
+	 * @param limits validation limits, may be null
+	 * @see ValidationLimits
+	 */
+	public void setLimits(ValidationLimits limits) {
+		this.limits = (limits == null) ? null : new ValidationLimits(limits);
+	}
+	
+	
+	/**
+	 * Returns whether this validator has a fast path that was compiled from the
+	 * schema, rather than interpreting it for every document.
+	 * 
+	 * @return true if compiled
+	 * @see ValidatorCompiler
+	 */
+	public boolean isCompiled() {
+		return compiled != null;
+	}
+	
+	
+	/**
+	 * Returns whether this validator has a fast path that was compiled from the
+	 * schema for documents of the specified global type. Not all types can be
+	 * compiled; see {@link ValidatorCompiler}.
+	 * 
+	 * @param type a global type of the schema
+	 * @return true if compiled
+	 */
+	public boolean isCompiled(NodeType type) {
+		return compiled != null && compiledTypes.contains(type);
+	}
+	
+	
+	/**
+	 * Turns pruning on or off. When on, the remaining child nodes of a node are
+	 * not validated once the specified number of errors has been found in its
+	 * subtree, including the errors in its own content, like nodes that are
+	 * missing, unexpected or out of order. The errors in its content are always
+	 * reported, but the follow-on errors in its subtree are not, and no time is
+	 * spent on data that is already rejected. A child node that reaches the number
+	 * of errors in its own subtree is pruned itself, and its errors do not count
+	 * for its parent, so its siblings are still validated. Pruning does not apply
+	 * to a resumable validation.
+	 * <p>
+	 * Setting pruning discards any outcomes that were memoized before, and any
+	 * incremental validation should be started again. Applications must not change
+	 * pruning while validation is in progress or when multiple threads are using
+	 * the validator.
+	 * 
+	 * @param errors the number of errors in a subtree, 0 turns pruning off
+	 * @throws IllegalArgumentException if the number is negative
+	 */
+	public void setPruning(int errors) {
+		if (errors < 0)
+			throw new IllegalArgumentException("errors must not be negative");
+		this.pruning = errors;
+		if (memo != null) memo = new SubtreeCache(memo.capacity);
+	}
+	
+	
+	/**
+	 * Turns value caching on or off. When on, the validator keeps a small cache for
+	 * each data type, that maps values to the outcome of validating them. This pays
+	 * off for fields that take a limited number of distinct values, like country
+	 * codes, currencies or status flags, because it saves parsing the value and
+	 * checking its facets and pattern every time.
+	 * <p>
+	 * Caching adapts to the data: a cache is disabled for a data type whose values
+	 * are mostly distinct, and tried again after a while. Long values are never
+	 * cached. Setting value caching discards any cached values.
+	 * <p>
+	 * Applications must not change value caching while validation is in progress
+	 * or when multiple threads are using the validator.
+	 * 
+	 * @param enabled true to turn value caching on, false to turn it off
+	 */
+	public void setValueCaching(boolean enabled) {
+		this.valueCaches = enabled ? new ConcurrentHashMap<>() : null;
+	}
+	
+	
 	/**
 	 * This method validates a data node (and any child nodes) against the schema
 	 * associated with this validator.
@@ -150,36 +573,209 @@ public abstract class Validator {
 	 * @see #setTypeName
 	 */
 	public Errors validate(DataNode node) {
+		return validate(node, (IncrementalValidation) null);
+	}
+
 
-		final Schema schema = getSchema();  // the schema we are associated with
-		Errors errors = new Errors();	// result that will be returned at the end
-		NodeType nodeType; // the type to validate against, determination logic below
+	/**
+	 * Validates a data node like {@link #validate(DataNode)} does, but passes each
+	 * error to the specified handler as soon as it is found, rather than collecting
+	 * all errors in a list. Memory use therefore does not grow with the number of
+	 * errors, and the handler can abort validation at any time.
+	 * 
+	 * @param node    the node to be validated
+	 * @param handler the handler of validation errors, not null
+	 * @return true if no validation errors were found
+	 * @see ErrorHandler
+	 */
+	public boolean validate(DataNode node, ErrorHandler handler) {
 		
-		if (typeName == null || typeName.isEmpty()) {
-			/*
-			 * no type name has been set, so try to find an appropriate type to validate
-			 * the supplied node against. If no type is found quit right away (fatal).
-			 */
-			nodeType = schema.getGlobalType(node.getName());
+		Objects.requireNonNull(handler, "handler must not be null");
+		return validate(node, null, handler).count == 0;
+	}
 
-			if (nodeType == null) {
-				errors.add(error(node, NO_DECLARATION_FOUND, node.getName()));
-				return errors;
+
+	/**
+	 * Returns whether a data node (and any child nodes) is valid. This is like
+	 * {@link #validate(DataNode)}, but stops at the first error, rather than
+	 * completing the content model of the node in which it was found. It is the
+	 * cheapest way to validate documents that are usually valid; to find out
+	 * what is wrong with an invalid one, it can be validated again.
+	 * <p>
+	 * A listener is notified of the first error as soon as it is found, and the
+	 * list of errors passed at the end of the document is always empty.
+	 * 
+	 * @param node the node to be validated
+	 * @return true if the node is valid
+	 */
+	public boolean isValid(DataNode node) {
+		return validate(node, null, FAIL_FAST).count == 0;
+	}
+
+
+	/**
+	 * Starts an incremental validation of a document. The document is validated
+	 * like {@link #validate} does, and the outcome for each node is retained, so
+	 * that the document can be revalidated after it has been edited, in time
+	 * proportional to the extent of the changes rather than the document size.
+	 * 
+	 * @param document the node to be validated, not null
+	 * @return an incremental validation
+	 * @see IncrementalValidation
+	 */
+	public IncrementalValidation validateIncrementally(DataNode document) {
+		return new IncrementalValidation(this, document);
+	}
+
+
+	/**
+	 * Starts a resumable validation of a document that only grows at the end, like
+	 * a log file. The document is validated like {@link #validate} does, and the
+	 * position in the content model is retained, so that validation can resume
+	 * from there when content is appended to the document.
+	 * 
+	 * @param document the node to be validated, not null
+	 * @return a resumable validation
+	 * @see ResumableValidation
+	 */
+	public ResumableValidation validateResumably(DataNode document) {
+		return new ResumableValidation(this, document);
+	}
+
+
+	/**
+	 * Validates a growing document, resuming from the state retained by the
+	 * specified resumable validation, and returns all errors found so far.
+	 */
+	Errors resume(ResumableValidation session) {
+		
+		final DataNode node = session.getDocument();
+		Context ctx = new Context(new Errors(), null, listener, memo, valueCaches, null, limits);
+		Errors errors = ctx.errors;
+		if (listener != null) listener.beginDocument(node);
+		
+		try {
+			if (session.root == null) { // determine the type like validateDocument does
+				NodeType nodeType = documentType(node);
+				if (nodeType == null) 
+					ctx.add(error(node, NO_DECLARATION_FOUND, node.getName()));
+				else if (! matchName(node, nodeType))
+					ctx.add(error(node, GOT_NODE_BUT_EXPECTED, node.getName(), new Expected(nodeType)));
+				else session.root = new ResumableValidation.Frame(node, nodeType);
 			}
+			if (session.root != null) resumeType(session.root, ctx);
+		} catch (Abort abort) {
+			session.root = null; // the retained state may be inconsistent, so start over next time
+			ctx.abort(abort.error);
+		}
+		
+		ctx.release();
+		if (listener != null) listener.endDocument(node, ctx.nodes, errors);
+		return errors;
+	}
+
+
+	/**
+	 * Validates a document, and retains the outcome for each node in the specified
+	 * incremental validation, if not null.
+	 */
+	Errors validate(DataNode node, IncrementalValidation session) {
+		return validate(node, session, null).errors;
+	}
+
+
+	/**
+	 * Validates a document, retains the outcome for each node in the specified
+	 * incremental validation if not null, and passes each error to the specified
+	 * handler, or collects them if it is null. Returns the state of the validation.
+	 */
+	private Context validate(DataNode node, IncrementalValidation session, ErrorHandler handler) {
+		
+		if (FlightRecording.AVAILABLE) 
+			return recordValidate(node, session, handler);
+		return validateDocument(node, session, handler);
+	}
+
+
+	/**
+	 * Validates a document like {@link #validate} does, while recording the root
+	 * type, node count, error count and duration in a Flight Recorder event.
+	 */
+	private Context recordValidate(DataNode node, IncrementalValidation session, ErrorHandler handler) {
+		
+		ValidateEvent event = new ValidateEvent();
+		if (! event.isEnabled()) return validateDocument(node, session, handler);
+		
+		event.begin();
+		Context ctx = validateDocument(node, session, handler);
+		event.end();
+		if (event.shouldCommit()) {
+			event.rootType = (typeName == null || typeName.isEmpty()) ? node.getName() : typeName;
+			event.nodes = ctx.nodes; event.errors = ctx.count;
+			event.commit();
 		}
-		else 
-		{
-			// a type was specified, so get it (should never return null)
-			nodeType = schema.getGlobalType(typeName);
-			if (nodeType == null) // impossible, unless associated schema was modified
-				throw new IllegalStateException(String.format(NO_DECLARATION_FOUND, typeName));
+		return ctx;
+	}
+
+
+	/** Validates a document and returns the state of the validation. */
+	private Context validateDocument(DataNode node, IncrementalValidation session, ErrorHandler handler) {
+
+		Context ctx = new Context(new Errors(), handler, listener, memo, valueCaches, session, limits); // state of this validation
+		ctx.pruning = pruning;
+		
+		int valid = checkCompiled(node, session); // try the fast path first
+		if (valid == 1) return ctx;
+		if (valid == 0 && handler == FAIL_FAST) { ctx.count = 1; return ctx; }
+		
+		if (listener != null) listener.beginDocument(node);
+		
+		try {
+			NodeType nodeType = documentType(node); // the type to validate against
+			if (nodeType == null) // no type was found, so we quit right away (fatal)
+				ctx.add(error(node, NO_DECLARATION_FOUND, node.getName()));
+			
+			// validate the entire document against the selected type
+			else if (! matchType(node, nodeType, ctx))
+				ctx.add(error(node, GOT_NODE_BUT_EXPECTED, node.getName(), new Expected(nodeType)));
+		} catch (Abort abort) {
+			ctx.abort(abort.error);
 		}
 		
-		// recursively validate the entire document against the selected type
-		if (! matchType(node, nodeType, errors))
-			errors.add(error(node, GOT_NODE_BUT_EXPECTED, node.getName(), quoteName(nodeType)));
+		ctx.release();
+		if (listener != null) listener.endDocument(node, ctx.nodes, ctx.errors);
+		return ctx;
+	}
+
+
+	/**
+	 * Returns 1 if the compiled check finds a document valid, 0 if it finds it
+	 * invalid, or -1 if there is no compiled check, or if it does not apply.
+	 */
+	private int checkCompiled(DataNode node, IncrementalValidation session) {
+		
+		if (compiled == null || listener != null || limits != null || session != null) return -1;
+		NodeType nodeType = documentType(node);
+		if (nodeType == null || ! matchName(node, nodeType)) return -1;
+		return compiled.applyAsInt(node, nodeType);
+	}
+
+
+	/**
+	 * Returns the type to validate a document node against. If no type name has
+	 * been set, we try to find an appropriate global type, and return null if
+	 * there is none. Otherwise, we return the type with that name.
+	 */
+	private NodeType documentType(DataNode node) {
+		
+		if (typeName == null || typeName.isEmpty())
+			return getSchema().getGlobalType(node.getName());
 		
-		return errors;
+		// a type was specified, so get it (should never return null)
+		NodeType nodeType = getSchema().getGlobalType(typeName);
+		if (nodeType == null) // impossible, unless associated schema was modified
+			throw new IllegalStateException(String.format(NO_DECLARATION_FOUND, typeName));
+		return nodeType;
 	}
 
 	
@@ -193,46 +789,414 @@ public abstract class Validator {
 	 * to decide if that constitutes a validation error. After all, the current
 	 * component could be optional, and node might match the next component.<br>
 	 * If there is a match, we assert that the node content is valid, or add an
-	 * error to the list otherwise. This does not apply to "any" type components.
+	 * error to the list otherwise. This does not apply to "any" type components.<br>
+	 * When called while the content of a parent node is being matched, the node
+	 * is not validated right away, but added to the script of the parent frame.
 	 */
-	private static boolean matchType(DataNode node, Type type, Errors errors) {
+	private static boolean matchType(DataNode node, Type type, Context ctx) {
 		
-		String nodename = node.getName();
-		boolean namesmatch = nodename.equals(type.getTypeName());
+		if (ctx.limits != null) ctx.tick(node);
+		if (! matchName(node, type)) return false;
+		
+		if (ctx.script != null) { // validate the node when the script is played
+			ctx.script.add(node); ctx.script.add(type);
+		}
+		else validateType(node, type, ctx);
+		return true;
+	}
+
+
+	/**
+	 * Validates a node that matches a type, and all nodes below it. Rather than
+	 * recursion, this uses an explicit stack of frames, so that documents can be
+	 * nested as deeply as memory permits. When a node is entered, its content is
+	 * matched to the type, which produces a script with the errors that were found
+	 * and the child nodes that matched, in the order they were found. The script
+	 * is then played; errors are added, and a child node is entered in turn, so
+	 * the errors are found in the same order as a depth-first traversal would.
+	 */
+	private static void validateType(DataNode node, Type type, Context ctx) {
+		
+		final int base = ctx.depth; // the stack depth upon entry
+		try {
+			enterType(node, type, ctx);
+			
+			while (ctx.depth > base) {
+				Frame frame = ctx.frames[ctx.depth - 1];
+				if (frame.next < frame.script.size()) {
+					Object item = frame.script.get(frame.next++);
+					if (item instanceof Error) {
+						--frame.pending; ctx.emit((Error) item);
+					}
+					else {
+						Type matched = (Type) frame.script.get(frame.next++);
+						if (ctx.pruning == 0 || ! isPruned(frame, ctx)) enterType((DataNode) item, matched, ctx);
+					}
+				}
+				else leaveType(frame, ctx);
+			}
+		} catch (Abort abort) {
+			ctx.unwind(base); throw abort;
+		}
+	}
+
+
+	/**
+	 * Enters a node that matches a type, by pushing a frame and matching the
+	 * content of the node to build its script. If the outcome of an earlier
+	 * validation is reused, the script holds the errors of that outcome instead.
+	 */
+	private static void enterType(DataNode node, Type type, Context ctx) {
+		
+		++ctx.nodes;
+		if (type instanceof AnyType) { // we do not validate "any" content
+			if (ctx.listener != null) {
+				ctx.listener.enterType(node, type); ctx.listener.leaveType(node, type);
+			}
+			return;
+		}
+		
+		if (ctx.limits != null) checkLimits(node, ctx);
+		if (ctx.listener != null) ctx.listener.enterType(node, type);
+		Frame frame = ctx.push();
+		frame.node = node; frame.type = type; 
+		frame.first = ctx.count; frame.nodes = ctx.nodes;
+		if (replayContent(frame, ctx)) return;
+		
+		ctx.script = frame.script; // match the content and build the script
+		validateContent(node, type, ctx);
+		ctx.script = null;
+		if (ctx.pruning > 0) // count the errors in the content, since they are known already
+			for (Object item : frame.script) if (item instanceof Error) ++frame.pending;
+	}
+
+
+	/**
+	 * Returns whether the remaining child nodes of the node in a frame are pruned.
+	 * This is the case if the errors in its subtree have reached the pruning
+	 * threshold, including those in its content that were not emitted yet. Errors
+	 * in the subtree of a child node that reached the threshold itself do not
+	 * count, so a pruned node does not cause its parent to be pruned as well.
+	 */
+	private static boolean isPruned(Frame frame, Context ctx) {
+		return ctx.count - frame.first - frame.excluded + frame.pending >= ctx.pruning;
+	}
+
+	/**
+	 * Aborts validation if a node exceeds the depth or value length limit, if its
+	 * child nodes would exceed the node limit, or if the timeout has expired.
+	 */
+	private static void checkLimits(DataNode node, Context ctx) {
+		
+		final ValidationLimits limits = ctx.limits;
+		int depth = ctx.depth + ctx.levels + 1;
+		if (depth > limits.getMaxDepth())
+			throw new Abort(node, MAX_DEPTH_EXCEEDED, limits.getMaxDepth());
+		if (ctx.nodes + node.nodes().size() > limits.getMaxNodes())
+			throw new Abort(node, MAX_NODES_EXCEEDED, limits.getMaxNodes());
+		int length = node.getValue().length();
+		if (length > limits.getMaxValueLength())
+			throw new Abort(node, MAX_LENGTH_EXCEEDED, length, limits.getMaxValueLength());
+		ctx.tick(node);
+	}
+
+
+	/** Completes the validation of the node in the top frame, and pops it. */
+	private static void leaveType(Frame frame, Context ctx) {
+		
+		if (frame.key != null) // memoize the outcome
+			memoizeContent(frame, ctx);
+		if (frame.retain) // retain the outcome for incremental validation
+			ctx.session.retain(frame.node, frame.type, 
+				ctx.nodes - frame.nodes + 1, ctx.errors.subList((int) frame.first, ctx.errors.size()));
+		
+		if (ctx.pruning > 0 && ctx.depth > 1 && ctx.count - frame.first >= ctx.pruning) // errors in a pruned subtree
+			ctx.frames[ctx.depth - 2].excluded += ctx.count - frame.first;
+		
+		if (ctx.listener != null) ctx.listener.leaveType(frame.node, frame.type);
+		ctx.pop();
+	}
+
+
+	/**
+	 * Reuses the outcome of an earlier validation of the node in a frame, which
+	 * was retained for incremental validation if the node has not changed since,
+	 * or memoized for an identical subtree. In that case, the script of the frame
+	 * is set to the errors of that outcome, and true is returned. Otherwise, this
+	 * prepares the frame to retain or memoize the outcome, and returns false.
+	 */
+	private static boolean replayContent(Frame frame, Context ctx) {
 		
-		if (type instanceof AnyType) {
-			// if the name is no match for an explicitly named "any" type, we return false
-			if (! namesmatch && ((AnyType) type).isNamed()) return false;
-			return true;  // otherwise we return true without further validation
+		final DataNode node = frame.node;
+		if (ctx.session != null) {
+			IncrementalValidation.Outcome outcome = ctx.session.outcome(node, frame.type);
+			if (outcome != null) {
+				ctx.nodes += outcome.nodes - 1; // this node was counted already
+				for (Error error : outcome.errors) // copies, so returned errors do not change
+					frame.script.add(new Error(error.getValue(), error.template, error.args));
+				return true;
+			}
+			frame.retain = true;
+		}
+		
+		if (ctx.memo == null || node.isLeaf()) return false;
+		SubtreeCache.Hash parent = (ctx.depth > 1) ? ctx.frames[ctx.depth - 2].hash : null;
+		frame.hash = (parent != null && parent.largest != null && parent.largest.node == node)
+			? parent.largest : SubtreeCache.hash(node); // unless computed with that of the parent
+		if (frame.hash.size < SubtreeCache.MIN_NODES) return false;
+		
+		SubtreeCache.Key key = new SubtreeCache.Key(frame.type, frame.hash);
+		SubtreeCache.Outcome outcome = ctx.memo.get(key);
+		if (outcome == null) {
+			ctx.memo.misses.increment();
+			frame.key = key; return false;
 		}
-		if (! namesmatch) return false; // specific type; if names differ, there is no match
 		
-		// we have a match, now proceed to check the content
+		ctx.memo.hits.increment();
+		ctx.nodes += outcome.nodes - 1; // this node was counted already
+		for (int i = 0; i < outcome.paths.length; i++)
+			frame.script.add(new Error(SubtreeCache.resolve(node, outcome.paths[i]), outcome.templates[i], outcome.args[i]));
+		return true;
+	}
+
+
+	/**
+	 * Memoizes the outcome of the validation of the node in a frame, so it can be
+	 * reused for an identical subtree. Outcomes with many errors are not memoized.
+	 */
+	private static void memoizeContent(Frame frame, Context ctx) {
+		
+		long count = ctx.count - frame.first;
+		if (count > SubtreeCache.MAX_ERRORS) return;
+		int[][] paths = new int[(int) count][]; 
+		String[] templates = new String[(int) count]; Object[][] args = new Object[(int) count][];
+		for (int i = 0; i < count; i++) {
+			Error error = ctx.error(frame.first + i);
+			paths[i] = SubtreeCache.path(frame.node, error.getValue());
+			if (paths[i] == null) return; // the error is too deep, so we do not memoize
+			templates[i] = error.template; args[i] = error.args;
+		}
+		ctx.memo.put(frame.key, new SubtreeCache.Outcome(ctx.nodes - frame.nodes + 1, paths, templates, args));
+	}
+
+
+	/** Returns whether the name of a node matches a type, like matchType does. */
+	private static boolean matchName(DataNode node, Type type) {
+		
+		if (node.getName().equals(type.getTypeName())) return true;
+		return (type instanceof AnyType) && ! ((AnyType) type).isNamed();
+	}
+
+
+	/**
+	 * Validates a node that matches a type during resumable validation, like
+	 * matchType does, but validates only the content that was appended since the
+	 * previous validation, if the content model of the type allows that.
+	 */
+	private static void resumeType(ResumableValidation.Frame frame, Context ctx) {
+		
+		final DataNode node = frame.node; final Type type = frame.type;
+		if (! frame.resumable || node.isLeaf()) {
+			matchType(node, type, ctx); return;
+		}
+		
+		++ctx.nodes;
+		if (ctx.limits != null) checkLimits(node, ctx);
+		if (ctx.listener != null) ctx.listener.enterType(node, type);
+		++ctx.levels;
+		try {
+			if (! (type instanceof DataType) && ! node.getValue().isEmpty())
+				ctx.add(error(node, CONTENT_EXPECTED_FOR_NODE, "only complex content", node.getName()));
+			ctx.add(resumeComplexContent(frame, ctx));
+			if (type instanceof DataType) 
+				checkValue(node, (DataType) type, ctx);
+		} finally { // keep listener events nested, even if validation is aborted
+			--ctx.levels;
+			if (ctx.listener != null) ctx.listener.leaveType(node, type);
+		}
+	}
+
+
+	/**
+	 * Validates complex content like validateComplexContent does, but resumes at
+	 * the position that was reached in the content model by the previous
+	 * validation. All child nodes except the last one are complete, so they are
+	 * validated once, and the position after them is retained. The last child
+	 * node may still grow, so it is validated from its own retained position,
+	 * and the end of content is checked without changing the position.
+	 */
+	private static Error resumeComplexContent(ResumableValidation.Frame frame, Context ctx) {
+		
+		for (Error error : frame.errors) ctx.add(error); // errors in the complete child nodes
+		ctx.nodes += frame.nodes;
+		if (frame.failed != null) return frame.failed; // no content is validated after an error
+		
+		List<DataNode> children = frame.node.nodes();
+		int size = children.size();
+		int complete = (size > 0) ? size - 1 : 0; // even a leaf may still get child nodes
+		
+		int first = ctx.errors.size(); long nodes = ctx.nodes;
+		if (frame.done < complete) frame.open = null; // the last child node is complete now
+		while (frame.done < complete && frame.failed == null) {
+			DataNode child = children.get(frame.done++);
+			if (stepContent(frame, child, false, ctx) == null) 
+				frame.failed = misfitError(frame, child);
+		}
+		for (int i = first; i < ctx.errors.size(); i++) 
+			frame.errors.add((Error) ctx.errors.get(i));
+		frame.nodes += ctx.nodes - nodes;
+		if (frame.failed != null) return frame.failed;
+		
+		Error error = null;
+		int k = frame.k, cur = frame.cur; // the position after the complete child nodes
+		if (complete < size) { 
+			DataNode last = children.get(size - 1);
+			Type type = stepContent(frame, last, true, ctx);
+			if (type == null) 
+				error = misfitError(frame, last);
+			else if (type instanceof AnyType) 
+				matchType(last, type, ctx);
+			else {
+				if (frame.open == null || frame.open.node != last || frame.open.type != type) 
+					frame.open = new ResumableValidation.Frame(last, type);
+				resumeType(frame.open, ctx);
+			}
+		}
+		if (error == null) // check for content missing at the end
+			error = missingContentError(frame);
+		frame.k = k; frame.cur = cur;
+		return error;
+	}
+
+
+	/**
+	 * Matches a child node to the content model of a frame, from its current
+	 * position, and advances the position. A complete child node is validated,
+	 * and only the name of an open one is matched. This returns the matching
+	 * type, or null if the child node does not fit.
+	 */
+	private static Type stepContent(ResumableValidation.Frame frame, DataNode child, boolean open, Context ctx) {
+		
+		List<Node> components = frame.type.nodes();
+		while (frame.k < components.size()) {
+			Type type = (Type) components.get(frame.k);
+			if (frame.cur < type.maxOccurs()) {
+				if (open ? matchName(child, type) : matchType(child, type, ctx)) {
+					++frame.cur; return type;
+				}
+				if (frame.cur < type.minOccurs()) return null; // a mandatory type
+			}
+			++frame.k; frame.cur = 0;
+		}
+		return null;
+	}
+
+
+	/** Returns the error for a child node that does not fit the content model of a frame. */
+	private static Error misfitError(ResumableValidation.Frame frame, DataNode child) {
+		
+		List<Node> components = frame.type.nodes();
+		if (frame.k < components.size())
+			return unexpectedNodeError(child, (Component) components.get(frame.k));
+		return error(child, NODE_NOT_EXPECTED_IN, child.getName(), frame.node.getName());
+	}
+
+
+	/** Returns the error for content that is missing at the current position of a frame, if any. */
+	private static Error missingContentError(ResumableValidation.Frame frame) {
+		
+		List<Node> components = frame.type.nodes();
+		for (int k = frame.k, cur = frame.cur; k < components.size(); k++, cur = 0) {
+			Component component = (Component) components.get(k);
+			if (cur < component.minOccurs()) return missingNodeError(frame.node, component);
+		}
+		return null;
+	}
+
+
+	/**
+	 * Validates the content of a node that matches a (non-any) type, and adds any
+	 * errors found.
+	 */
+	private static void validateContent(DataNode node, Type type, Context ctx) {
+		
+		String nodename = node.getName();
 		
 		if (! (type instanceof DataType)) { // we are expecting complex content ONLY
 			
 			if (node.isLeaf() || ! node.getValue().isEmpty())  // but we got something with a value
-				errors.add(error(node, CONTENT_EXPECTED_FOR_NODE, "only complex content", nodename));
+				ctx.add(error(node, CONTENT_EXPECTED_FOR_NODE, "only complex content", nodename));
 
 			if (! node.isLeaf()) // validate complex content if we have it
-				errors.add(validateComplexContent(node, (NodeType) type, errors));
+				ctx.add(validateComplexContent(node, (NodeType) type, ctx));
 
-			return true;
+			return;
 		}
 		
 		// we are expecting simple content
 		if (! node.isLeaf()) {
 			if (type.isLeaf()) // no complex content is expected
-				errors.add(error(node, CONTENT_EXPECTED_FOR_NODE, "no complex content", nodename));
+				ctx.add(error(node, CONTENT_EXPECTED_FOR_NODE, "no complex content", nodename));
 			else // validate complex content if we have it
-				errors.add(validateComplexContent(node, (NodeType) type, errors));
+				ctx.add(validateComplexContent(node, (NodeType) type, ctx));
 		} 
 		else if (! type.isLeaf()) // report missing complex content
-			errors.add(error(node, CONTENT_EXPECTED_FOR_NODE, "complex content", nodename));
+			ctx.add(error(node, CONTENT_EXPECTED_FOR_NODE, "complex content", nodename));
 	
 		// validate the simple content we were expecting
-		errors.add(validateSimpleContent(node, (DataType) type));
-		return true;
+		checkValue(node, (DataType) type, ctx);
+	}
+
+
+	/**
+	 * Checks the simple content of a node, notifies the listener (if any) and adds
+	 * an error if the value is not valid.
+	 */
+	private static void checkValue(DataNode node, DataType type, Context ctx) {
+		
+		if (ctx.listener != null) ctx.listener.enterValue(node, type);
+		
+		ValueCache cache = null; // the value cache for this type, if value caching is on
+		if (ctx.values != null) {
+			cache = ctx.values.get(type);
+			if (cache == null) cache = ctx.values.computeIfAbsent(type, t -> new ValueCache());
+		}
+		
+		Error error;
+		ValueCache.Entry cached = (cache != null && cache.isEnabled()) ? cache.get(node.getValue()) : null;
+		if (cached != null) 
+			error = (cached.template == null) ? null : new Error(node, cached.template, cached.args);
+		else {
+			error = FlightRecording.AVAILABLE ? recordValue(node, type) : validateSimpleContent(node, type);
+			if (cache != null) {
+				if (error == null) cache.put(node.getValue(), null, null);
+				else cache.put(node.getValue(), error.template, error.args);
+			}
+		}
+		
+		if (ctx.listener != null) ctx.listener.leaveValue(node, type, error == null);
+		ctx.add(error);
+	}
+
+
+	/**
+	 * Validates simple content like {@link #validateSimpleContent} does, and emits
+	 * a Flight Recorder event if this takes longer than the event threshold.
+	 */
+	private static Error recordValue(DataNode node, DataType type) {
+		
+		ValueEvent event = new ValueEvent();
+		if (! event.isEnabled()) return validateSimpleContent(node, type);
+		
+		event.begin();
+		Error error = validateSimpleContent(node, type);
+		event.end();
+		if (event.shouldCommit()) {
+			event.type = type.getType(); event.path = node.path();
+			event.length = node.getValue().length(); event.valid = (error == null);
+			event.commit();
+		}
+		return error;
 	}
 
 
@@ -297,8 +1261,7 @@ public abstract class Validator {
 		
 		if (contains == 0) return null; // length is OK, so leave
 		
-		String val = node.getValue().length() > 32 ? // trunc'ed value for error message
-			node.getValue().substring(0,32) + "..." : node.getValue();
+		Excerpt val = new Excerpt(node.getValue()); // trunc'ed value for error message
 
 		if (contains > 0)
 			return error(node, LENGTH_EXCEEDS_MAX, val, length, range.min);
@@ -352,7 +1315,7 @@ public abstract class Validator {
 	 * a validation error. If we run out of nodes while there is still mandatory
 	 * content expected, that is also a validation error.
 	 */
-	private static Error validateComplexContent(DataNode node, NodeType type, Errors errors) {
+	private static Error validateComplexContent(DataNode node, NodeType type, Context ctx) {
 		
 		NodeIterator<DataNode> inode = new NodeIterator<DataNode>(node.nodes()); // iterator for child nodes
 		DataNode childnode = inode.hasNext() ? inode.next() : null; // first child node (or none)
@@ -379,8 +1342,8 @@ public abstract class Validator {
 				boolean match;
 				//System.out.println("validateComplex: matching " + (! childnode.isLeaf() ? childnode.getName() + "{}" : childnode) + " to " + childcomp.getName());
 				if (childcomp instanceof ModelGroup)
-					match = matchGroup(inode, childnode, (ModelGroup) childcomp, errors);
-				else match = matchType(childnode, (Type) childcomp, errors);
+					match = matchGroup(inode, childnode, (ModelGroup) childcomp, ctx);
+				else match = matchType(childnode, (Type) childcomp, ctx);
 				
 				//System.out.println("validateComplex: " + (! childnode.isLeaf() ? childnode.getName() + "{}" : childnode) + (match ? " == " : " <> ") + "component " + childcomp.getName());
 				if (match) { // count match and get the next node (or none) to match against this component
@@ -398,12 +1361,12 @@ public abstract class Validator {
 
 		//System.out.println("validateComplex: matched all child components of " + component.getName());
 		if (childnode != null) { // if we have an unmatched node, that is a validation error
-			errors.add(error(childnode, 
+			ctx.add(error(childnode, 
 				NODE_NOT_EXPECTED_IN, childnode.getName(), childnode.getParent().getName()));
 
 			// each remaining node is also a validation error, but maybe thats for ABUNDANT mode.
 //			inode.forEachRemaining( n -> { 
-//				errors.add(error(n, NODE_NOT_EXPECTED_IN, n.getName(), n.getParent().getName())); 
+//				ctx.add(error(n, NODE_NOT_EXPECTED_IN, n.getName(), n.getParent().getName())); 
 //			});
 		}
 		return null;
@@ -416,14 +1379,31 @@ public abstract class Validator {
 	 * against nested model groups. When matching a model group we may consider more
 	 * than one node, so this method accepts an iterator to access subsequent nodes.
 	 */
-	private static boolean matchGroup(NodeIterator<DataNode> inode, DataNode node, ModelGroup group, Errors errors) {
+	private static boolean matchGroup(NodeIterator<DataNode> inode, DataNode node, ModelGroup group, Context ctx) {
 
+		if (ctx.listener == null)
+			return matchGroupContent(inode, node, group, ctx);
+		
+		ctx.listener.enterGroup(node, group);
+		boolean match = false;
+		try {
+			match = matchGroupContent(inode, node, group, ctx);
+		} finally { // keep listener events nested, even if validation is aborted
+			ctx.listener.leaveGroup(node, group, match);
+		}
+		return match;
+	}
+	
+	
+	/** Dispatches to the method that matches a specific kind of model group. */
+	private static boolean matchGroupContent(NodeIterator<DataNode> inode, DataNode node, ModelGroup group, Context ctx) {
+		
 		if (group instanceof ChoiceGroup) 
-			return matchChoice(inode, node, (ChoiceGroup) group, errors);
+			return matchChoice(inode, node, (ChoiceGroup) group, ctx);
 		if (group instanceof SequenceGroup) 
-			return matchSequence(inode, node, (SequenceGroup) group, errors);
+			return matchSequence(inode, node, (SequenceGroup) group, ctx);
 		if (group instanceof UnorderedGroup) 
-			return matchUnordered(inode, node, (UnorderedGroup) group, errors);
+			return matchUnordered(inode, node, (UnorderedGroup) group, ctx);
 		 // Should never happen, unless we forgot a model group
 		throw new RuntimeException("'" + group.getName() + "' not implemented!");
 	}
@@ -436,7 +1416,7 @@ public abstract class Validator {
 	 * of its child components is a match. Note that we may encounter other model
 	 * groups within the choice group.
 	 */
-	private static boolean matchChoice(NodeIterator<DataNode> inode, DataNode node, ChoiceGroup choice, Errors errors) {
+	private static boolean matchChoice(NodeIterator<DataNode> inode, DataNode node, ChoiceGroup choice, Context ctx) {
 
 		//System.out.println("matchChoice: matching children of " + choice.getName()+"{}");
 		for (Node child : choice.nodes()) {
@@ -445,8 +1425,8 @@ public abstract class Validator {
 			boolean match;
 			//System.out.println("matchChoice: matching " + ((node instanceof SimpleNode) ? node : node.getName() + "{}") + " to " + component.getName());
 			if (component instanceof ModelGroup)
-				match = matchGroup(inode, node, (ModelGroup) component, errors);
-			else match = matchType(node, (Type) component, errors);
+				match = matchGroup(inode, node, (ModelGroup) component, ctx);
+			else match = matchType(node, (Type) component, ctx);
 			//System.out.println("matchChoice: " + ((node instanceof SimpleNode) ? node : node.getName() + "{}") + (match ? " == " : " <> ") + "component " + component.getName());
 			if (match) return true;  // return true at the first match
 		}
@@ -466,7 +1446,7 @@ public abstract class Validator {
 	 * that just marks the end of the group and we return, causing the remaining
 	 * nodes to be matched against the parent component context.
 	 */
-	private static boolean matchSequence(NodeIterator<DataNode> inode, DataNode node, SequenceGroup group, Errors errors) {
+	private static boolean matchSequence(NodeIterator<DataNode> inode, DataNode node, SequenceGroup group, Context ctx) {
 
 		boolean invoked = false; // overall match for this group, initially false
 		final DataNode parent = node.getParent(); // save the parent of the node(s) for later use
@@ -487,7 +1467,7 @@ public abstract class Validator {
 				if (node == null) {  // oops, we have run out of nodes
 					if (curmatches < component.minOccurs()) { // if we expect another node
 						if (invoked) // and the group was invoked, we add a validation error
-							errors.add(missingNodeError(parent, component));
+							ctx.add(missingNodeError(parent, component));
 						return invoked; // in either case we return (true or false)
 					}
 					break; // break out of inner loop and match the next component
@@ -495,8 +1475,8 @@ public abstract class Validator {
 				
 				//System.out.println("matchSequence: matching " + ((node instanceof SimpleNode) ? node : node.getName() + "{}") + " to " + component.getName());
 				if (component instanceof ModelGroup)
-					match = matchGroup(inode, node, (ModelGroup) component, errors);
-				else match = matchType(node, (Type) component, errors);
+					match = matchGroup(inode, node, (ModelGroup) component, ctx);
+				else match = matchType(node, (Type) component, ctx);
 				
 				//System.out.println("matchSequence: " + node + (match ? " == " : " <> ") + "component " + component.getName());
 				if (match) { 
@@ -518,7 +1498,7 @@ public abstract class Validator {
 				 * break out of the inner loop and match the next component to the node.
 				 */
 				if (curmatches < component.minOccurs()) {
-					if (invoked) errors.add(unexpectedNodeError(node, component));
+					if (invoked) ctx.add(unexpectedNodeError(node, component));
 					return invoked; // true or false
 				}
 				break; // break out of inner loop and match the next component to this node
@@ -561,7 +1541,7 @@ public abstract class Validator {
 	 * the parent component context. If we encounter a non-matching node, that is
 	 * usually an error.
 	 */
-	private static boolean matchUnordered(NodeIterator<DataNode> inode, DataNode node, UnorderedGroup group, Errors errors) {
+	private static boolean matchUnordered(NodeIterator<DataNode> inode, DataNode node, UnorderedGroup group, Context ctx) {
 		
 		boolean invoked = false; // whether this group was invoked, initially false
 		final DataNode parent = node.getParent(); // save the parent of the node(s)
@@ -589,8 +1569,8 @@ public abstract class Validator {
 					boolean match;
 					//System.out.println("matchUnordered: matching " + ((node instanceof SimpleNode) ? node : node.getName() + "{}") + " to " + component.getName());
 					if (component instanceof ModelGroup)
-						match = matchGroup(inode, node, (ModelGroup) component, errors);
-					else match = matchType(node, (Type) component, errors);
+						match = matchGroup(inode, node, (ModelGroup) component, ctx);
+					else match = matchType(node, (Type) component, ctx);
 	
 					/*
 					 * If we have a match, count it. If there are more nodes to be matched, resume
@@ -608,7 +1588,7 @@ public abstract class Validator {
 						}
 						components.remove((Node) component);
 						if (curmatches < component.minOccurs())
-							errors.add(missingNodeError(parent, component));
+							ctx.add(missingNodeError(parent, component));
 						break node_loop; // all the way down}
 					}
 					break; // no match, break out of inner loop
@@ -660,8 +1640,8 @@ public abstract class Validator {
 					.collect(Collectors.toCollection(ArrayList<Component>::new));
 				if (! required.isEmpty()) {
 					Error error = error(node, GOT_NODE_BUT_EXPECTED, 
-						node.getName(), quoteNames(expectedTypes(required)) );
-					errors.add(error);
+						node.getName(), new Expected(required) );
+					ctx.add(error);
 					node = inode.hasNext() ? inode.next() : null; // get the next node
 					if (node == null) components.remove((Node) component);
 					continue; // resume node loop
@@ -693,8 +1673,8 @@ public abstract class Validator {
 				.collect(Collectors.toCollection(ArrayList<Component>::new));
 			if (! required.isEmpty()) {
 				Error error = error(parent, CONTENT_MISSING_AT_END, 
-					parent.getName(), quoteNames(expectedTypes(required)) );
-				errors.add(error);
+					parent.getName(), new Expected(required) );
+				ctx.add(error);
 			}
 		}
 		return invoked; // true or false
@@ -707,6 +1687,42 @@ public abstract class Validator {
 	//
 
 
+	/** An error message argument that renders a value, truncated to 32 characters. */
+	private static final class Excerpt {
+		
+		private final String value;
+		
+		Excerpt(String value) { this.value = value; }
+		
+		@Override
+		public String toString() {
+			return value.length() > 32 ? value.substring(0,32) + "..." : value;
+		}
+	}
+
+
+	/**
+	 * An error message argument that renders the types expected for a component,
+	 * or for a list of (equally applicable) components. They are determined only
+	 * when the message is formatted.
+	 */
+	private static final class Expected {
+		
+		private final Object expected; // a component, or a list of components
+		
+		Expected(Component comp) { this.expected = comp; }
+		Expected(List<Component> list) { this.expected = list; }
+		
+		@SuppressWarnings("unchecked")
+		@Override
+		public String toString() {
+			if (expected instanceof Type) return quoteName((Type) expected);
+			if (expected instanceof ModelGroup) return quoteNames(expectedTypes((Component) expected));
+			return quoteNames(expectedTypes((List<Component>) expected));
+		}
+	}
+
+
 	/** Returns the type name in single quotes, or "any node" for an unnamed {@code AnyType}. */
 	private static String quoteName(Type type) {
 		
@@ -789,19 +1805,13 @@ public abstract class Validator {
 
 	/** This returns an error specifying a missing type at the end of a context node. */
 	private static Error missingNodeError(DataNode context, Component comp) {
-		
-		if (comp instanceof ModelGroup)
-			return error(context, CONTENT_MISSING_AT_END, context.getName(), quoteNames(expectedTypes(comp)));
-		else return error(context, CONTENT_MISSING_AT_END, context.getName(), quoteName((Type) comp));
+		return error(context, CONTENT_MISSING_AT_END, context.getName(), new Expected(comp));
 	}
 
 
 	/** This returns an error specifying an unexpected node and the expected type. */
 	private static Error unexpectedNodeError(DataNode node, Component comp) {
-		
-		if (comp instanceof ModelGroup)
-			return error(node, GOT_NODE_BUT_EXPECTED, node.getName(), quoteNames(expectedTypes(comp)));
-		else return error(node, GOT_NODE_BUT_EXPECTED, node.getName(), quoteName((NodeType) comp));
+		return error(node, GOT_NODE_BUT_EXPECTED, node.getName(), new Expected(comp));
 	}
 
 }
@@ -0,0 +1,469 @@
+package be.baur.sds.validation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.CodeSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntBiFunction;
+
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sds.AnyType;
+import be.baur.sds.Component;
+import be.baur.sds.DataType;
+import be.baur.sds.NodeType;
+import be.baur.sds.Schema;
+import be.baur.sds.common.Interval;
+import be.baur.sds.common.NaturalInterval;
+import be.baur.sds.model.ChoiceGroup;
+import be.baur.sds.model.ModelGroup;
+import be.baur.sds.model.SequenceGroup;
+import be.baur.sds.model.UnorderedGroup;
+import be.baur.sds.types.BooleanType;
+import be.baur.sds.types.CharacterType;
+import be.baur.sds.types.ComparableType;
+import be.baur.sds.util.JavaSource;
+
+/**
+ * A {@code ValidatorCompiler} creates a validator with a fast path that is
+ * compiled from the schema, rather than interpreted. For example:
+ *
+ * <pre>
+ * Validator validator = ValidatorCompiler.compile(schema);
+ * </pre>
+ *
+ * For every type in the schema, Java source code is generated that checks the
+ * name, content and value of a node with the names, multiplicities and facets
+ * of the type inlined as straight-line code. The source is compiled with the
+ * system Java compiler, and loaded by a class loader of its own, so that it
+ * can be garbage collected along with the validator.
+ * <p>
+ * The compiled code only finds out whether a document is valid. When it is not,
+ * the document is validated again by the interpreter, so the errors are exactly
+ * the same. This pays off when most documents are valid. The compiled code is
+ * used only when no listener and no limits are set, and not for incremental or
+ * resumable validation.
+ * <p>
+ * Sequence and choice groups are compiled into methods of their own, which
+ * match nodes exactly like the interpreter does. Types with unordered groups in
+ * their content are not compiled, and neither are types with a sequence group
+ * that ends with a component without a maximum; documents of these types are
+ * always validated by the interpreter, see {@link Validator#isCompiled(NodeType)}.
+ * Recursive types are compiled into methods that call themselves, so a document
+ * that is nested too deeply for the Java stack is validated by the interpreter.
+ * <p>
+ * If no Java compiler is available, like on a runtime without development
+ * tools, or if compilation fails, the returned validator only interprets; see
+ * {@link Validator#isCompiled}.
+ */
+public final class ValidatorCompiler {
+
+	private static final AtomicInteger COUNTER = new AtomicInteger(); // to name generated classes
+	private static final String PACKAGE = "be.baur.sds.compiled";
+
+	private ValidatorCompiler() {} // cannot construct this
+
+
+	/**
+	 * Returns a new validator for the specified schema, with a compiled fast path
+	 * if possible. The validator must not be used after the schema was changed.
+	 *
+	 * @param schema a schema, not null
+	 * @return a validator, not null
+	 */
+	public static Validator compile(Schema schema) {
+
+		Validator validator = schema.newValidator();
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) return validator;
+
+		String name = "Schema" + COUNTER.incrementAndGet();
+		Generator generator = new Generator();
+		String source = generator.generate(schema, name);
+		if (generator.globals.isEmpty()) return validator; // nothing could be compiled
+
+		try {
+			Class<?> compiled = load(compiler, PACKAGE + "." + name, source);
+			if (compiled == null) return validator;
+			@SuppressWarnings("unchecked")
+			ToIntBiFunction<DataNode, Object> check = (ToIntBiFunction<DataNode, Object>)
+				compiled.getConstructor(Object[].class).newInstance((Object) generator.constants.toArray());
+			validator.compiled = check; validator.compiledTypes = generator.globals;
+		} catch (ReflectiveOperationException | LinkageError e) {
+			// we go without a fast path
+		}
+		return validator;
+	}
+
+
+	/**
+	 * Returns the source code that would be compiled for the specified schema, for
+	 * diagnostic purposes.
+	 */
+	static String source(Schema schema) {
+		return new Generator().generate(schema, "Schema");
+	}
+
+
+	/** Generates the source code of the class that validates a schema. */
+	private static final class Generator {
+
+		final List<Object> constants = new ArrayList<>(); // passed to the constructor
+		final StringBuilder fields = new StringBuilder(), inits = new StringBuilder(), methods = new StringBuilder();
+		final Map<NodeType, Integer> types = new IdentityHashMap<>(); // the method of each type
+		final Map<ModelGroup, Integer> groups = new IdentityHashMap<>(); // the method of each model group
+		final Set<NodeType> globals = Collections.newSetFromMap(new IdentityHashMap<>()); // the global types that are compiled
+
+
+		/** Returns the source code of a class with the specified name. */
+		String generate(Schema schema, String name) {
+
+			StringBuilder dispatch = new StringBuilder();
+			for (Node n : schema.nodes()) {
+				if (! (n instanceof NodeType) || ! isSupported((NodeType) n)) continue;
+				int g = constant("Object", "g", n);
+				dispatch.append("\t\t\tif (type == g").append(g).append(") return t").append(method((NodeType) n)).append("(node) ? 1 : 0;\n");
+				globals.add((NodeType) n);
+			}
+
+			return "package " + PACKAGE + ";\n\n"
+				+ "import java.util.List;\nimport java.util.function.Function;\nimport java.util.function.ToIntBiFunction;\n"
+				+ "import java.util.regex.Pattern;\n\n"
+				+ "import be.baur.sda.DataNode;\nimport be.baur.sda.Node;\nimport be.baur.sds.common.Interval;\n"
+				+ "import be.baur.sds.types.BooleanType;\nimport be.baur.sds.types.CharacterType;\n\n"
+				+ "/** Generated by " + ValidatorCompiler.class.getName() + "; returns 1 if valid, 0 if not, -1 if not compiled. */\n"
+				+ "@SuppressWarnings({\"rawtypes\", \"unchecked\"})\n"
+				+ "public final class " + name + " implements ToIntBiFunction<DataNode, Object> {\n\n"
+				+ fields + "\n"
+				+ "\tpublic " + name + "(Object[] c) {\n" + inits + "\t}\n\n"
+				+ "\t@Override\n\tpublic int applyAsInt(DataNode node, Object type) {\n\t\ttry {\n" + dispatch
+				+ "\t\t} catch (StackOverflowError e) { // nested too deeply, so we leave it to the interpreter\n\t\t}\n\t\treturn -1;\n\t}\n\n"
+				+ "\t/** Returns the index of the next node, or -1 if there is none, like NodeIterator does. */\n"
+				+ "\tprivate static int next(int s, int[] it) {\n"
+				+ "\t\tif (it[1] != 0 && it[0] >= 0) { it[1] = 0; return it[0]; }\n"
+				+ "\t\tif (it[0] + 1 >= s) return -1;\n"
+				+ "\t\tit[1] = 0; return ++it[0];\n\t}\n"
+				+ methods + "}\n";
+		}
+
+
+		/** Returns whether a type and its content can be compiled. */
+		boolean isSupported(NodeType type) {
+			return isSupported(type, Collections.newSetFromMap(new IdentityHashMap<>()));
+		}
+
+
+		/**
+		 * Returns whether a component and all content that can be reached from it
+		 * can be compiled. Unordered groups cannot, and neither can sequence groups
+		 * that end with a component without a maximum, since the interpreter matches
+		 * the last node of a sequence group again until the maximum is reached.
+		 * Components that were visited already are supported, which stops cycles.
+		 */
+		private boolean isSupported(Component comp, Set<Component> visited) {
+
+			if (comp instanceof UnorderedGroup) return false;
+			if (comp instanceof SequenceGroup && comp.isParent()
+				&& ((Component) comp.nodes().get(comp.nodes().size() - 1)).maxOccurs() == Integer.MAX_VALUE) return false;
+			if (comp instanceof AnyType || ! visited.add(comp)) return true;
+			for (Node n : comp.nodes())
+				if (! isSupported((Component) n, visited)) return false;
+			return true;
+		}
+
+
+		/** Adds a constant, and a field of the specified type that holds it. */
+		int constant(String type, String prefix, Object value) {
+			return constant(type, prefix, value, "(" + type + ") c[" + constants.size() + "]");
+		}
+
+
+		/** Adds a constant, and a field that is initialized with the specified expression. */
+		int constant(String type, String prefix, Object value, String init) {
+
+			int index = constants.size();
+			constants.add(value);
+			fields.append("\tprivate final ").append(type).append(' ').append(prefix).append(index).append(";\n");
+			inits.append("\t\t").append(prefix).append(index).append(" = ").append(init).append(";\n");
+			return index;
+		}
+
+
+		/** Returns the number of the method that validates a type, generating it if needed. */
+		int method(NodeType type) {
+
+			Integer m = types.get(type);
+			if (m != null) return m;
+			m = types.size();
+			types.put(type, m);
+
+			StringBuilder sb = new StringBuilder();
+			sb.append("\n\t/** Validates a node of type ").append(JavaSource.comment(type.getTypeName())).append(". */\n");
+			sb.append("\tprivate boolean t").append(m).append("(DataNode n) {\n");
+			if (type instanceof DataType) {
+				if (type.isLeaf()) sb.append("\t\tif (! n.isLeaf()) return false;\n");
+				else {
+					sb.append("\t\tif (n.isLeaf()) return false;\n");
+					content(type, sb);
+				}
+				value((DataType) type, sb);
+			}
+			else {
+				sb.append("\t\tif (n.isLeaf() || ! n.getValue().isEmpty()) return false;\n");
+				content(type, sb);
+			}
+			sb.append("\t\treturn true;\n\t}\n");
+			methods.append(sb);
+			return m;
+		}
+
+
+		/** Generates the statements that match the child nodes to the content model of a type. */
+		void content(NodeType type, StringBuilder sb) {
+
+			for (Node node : type.nodes())
+				if (node instanceof ModelGroup) {
+					groupContent(type, sb); return;
+				}
+
+			sb.append("\t\tList<Node> k = n.nodes(); int s = k.size(), i = 0, m; DataNode x;\n");
+			for (Node node : type.nodes()) {
+				Component comp = (Component) node;
+				int min = comp.minOccurs(), max = comp.maxOccurs();
+				AnyType any = (comp instanceof AnyType) ? (AnyType) comp : null;
+				String name = ((be.baur.sds.Type) comp).getTypeName();
+
+				sb.append("\t\tfor (m = 0; m < ").append(max).append("; ++m, ++i) { // ").append(JavaSource.comment(name)).append('\n');
+				sb.append("\t\t\tif (i == s");
+				if (any == null || any.isNamed())
+					sb.append(" || ! \"").append(JavaSource.literal(name)).append("\".equals((x = (DataNode) k.get(i)).getName())");
+				sb.append(") {\n");
+				if (min > 0) sb.append("\t\t\t\tif (m < ").append(min).append(") return false;\n");
+				sb.append("\t\t\t\tbreak;\n\t\t\t}\n");
+				if (any == null) sb.append("\t\t\tif (! t").append(method((NodeType) comp)).append("(x)) return false;\n");
+				sb.append("\t\t}\n");
+			}
+			sb.append("\t\tif (i < s) return false;\n");
+		}
+
+
+		/**
+		 * Generates the statements that match the child nodes to a content model
+		 * with model groups. These follow the interpreter step by step, with an
+		 * array that holds the state of a node iterator: the index of the node that
+		 * was returned last, and whether it was reverted. The index of the current
+		 * node is -1 if there are no nodes left.
+		 */
+		void groupContent(NodeType type, StringBuilder sb) {
+
+			sb.append("\t\tList<Node> k = n.nodes(); int s = k.size(), m, g; int[] it = { -1, 0 }; boolean match; DataNode x;\n");
+			sb.append("\t\tint c = next(s, it);\n");
+			for (Node node : type.nodes()) {
+				Component comp = (Component) node;
+				int min = comp.minOccurs();
+				sb.append("\t\tfor (m = 0; m < ").append(comp.maxOccurs()).append("; ) { // ").append(comment(comp)).append('\n');
+				sb.append("\t\t\tif (c < 0) { ").append(min > 0 ? "if (m < " + min + ") return false; " : "").append("break; }\n");
+				match(comp, "false", sb);
+				sb.append("\t\t\tif (! match) { ").append(min > 0 ? "if (m < " + min + ") return false; " : "").append("break; }\n");
+				sb.append("\t\t\tc = next(s, it); ++m;\n\t\t}\n");
+			}
+			sb.append("\t\tif (c >= 0) return false;\n");
+		}
+
+
+		/** Returns the name of the type of a component, or of a model group, for use in a comment. */
+		static String comment(Component comp) {
+			return JavaSource.comment((comp instanceof be.baur.sds.Type) ? ((be.baur.sds.Type) comp).getTypeName() : comp.getName());
+		}
+
+
+		/**
+		 * Generates the statements that match the current node to a component, and
+		 * set whether it matches, or return the specified value if it matches but is
+		 * not valid.
+		 */
+		void match(Component comp, String invalid, StringBuilder sb) {
+
+			if (comp instanceof ModelGroup) {
+				sb.append("\t\t\tif ((g = g").append(group((ModelGroup) comp)).append("(k, s, it, c)) < 0) return ").append(invalid).append(";\n");
+				sb.append("\t\t\tmatch = g > 0;\n");
+				return;
+			}
+			AnyType any = (comp instanceof AnyType) ? (AnyType) comp : null;
+			if (any != null && ! any.isNamed()) {
+				sb.append("\t\t\tmatch = true;\n"); return;
+			}
+			sb.append("\t\t\tmatch = \"").append(JavaSource.literal(((be.baur.sds.Type) comp).getTypeName()))
+				.append("\".equals((x = (DataNode) k.get(c)).getName());\n");
+			if (any == null)
+				sb.append("\t\t\tif (match && ! t").append(method((NodeType) comp)).append("(x)) return ").append(invalid).append(";\n");
+		}
+
+
+		/**
+		 * Returns the number of the method that matches nodes to a model group,
+		 * generating it if needed. The method takes the index of the current node,
+		 * which is not -1, and returns 1 if the group matches, 0 if it does not, and
+		 * -1 if it matches but the nodes are not valid.
+		 */
+		int group(ModelGroup group) {
+
+			Integer m = groups.get(group);
+			if (m != null) return m;
+			m = groups.size();
+			groups.put(group, m);
+
+			StringBuilder sb = new StringBuilder();
+			sb.append("\n\t/** Matches nodes to a model group (").append(comment(group)).append("). */\n");
+			sb.append("\tprivate int g").append(m).append("(List<Node> k, int s, int[] it, int c) {\n");
+			sb.append("\t\tboolean invoked = false, match = false; int m, g; DataNode x;\n");
+			if (group instanceof ChoiceGroup) {
+				for (Node node : group.nodes()) { // the first component that matches
+					match((Component) node, "-1", sb);
+					sb.append("\t\t\tif (match) return 1;\n");
+				}
+				sb.append("\t\treturn 0;\n\t}\n");
+			}
+			else { // a sequence group
+				List<Node> nodes = group.nodes();
+				for (int i = 0; i < nodes.size(); i++) {
+					Component comp = (Component) nodes.get(i);
+					int min = comp.minOccurs();
+					sb.append("\t\tfor (m = 0; m < ").append(comp.maxOccurs()).append("; ) { // ").append(comment(comp)).append('\n');
+					sb.append("\t\t\tif (c < 0) { ").append(min > 0 ? "if (m < " + min + ") return invoked ? -1 : 0; " : "").append("break; }\n");
+					match(comp, "-1", sb);
+					sb.append("\t\t\tif (! match) { ").append(min > 0 ? "if (m < " + min + ") return invoked ? -1 : 0; " : "").append("break; }\n");
+					if (i < nodes.size() - 1) sb.append("\t\t\tc = next(s, it);\n"); // the caller gets the node after the last one
+					sb.append("\t\t\tinvoked = true; ++m;\n\t\t}\n");
+				}
+				sb.append("\t\tif (! match && invoked) it[1] = 1; // revert the node that did not match\n");
+				sb.append("\t\treturn invoked ? 1 : 0;\n\t}\n");
+			}
+			methods.append(sb);
+			return m;
+		}
+
+
+		/** Generates the statements that check the value of a node against a data type. */
+		void value(DataType type, StringBuilder sb) {
+
+			sb.append("\t\tString v = n.getValue();\n");
+			if (! type.isNullable()) sb.append("\t\tif (v.isEmpty()) return false;\n");
+
+			if (type instanceof CharacterType) {
+				CharacterType<?> ct = (CharacterType<?>) type;
+				int d = constant("CharacterType", "d", type);
+				int f = constant("Function", "f", type, "d" + d + ".valueConstructor()");
+				NaturalInterval length = ct.getLength();
+				sb.append("\t\ttry {\n\t\t\tint l = d").append(d).append(".valueLength(f").append(f).append(".apply(v));\n");
+				if (length.min > 0 || length.max < Integer.MAX_VALUE)
+					sb.append("\t\t\tif (l < ").append(length.min).append(" || l > ").append(length.max).append(") return false;\n");
+				sb.append("\t\t} catch (Exception e) { return false; }\n");
+			}
+
+			if (type instanceof ComparableType) {
+				Interval<?> range = ((ComparableType<?>) type).getInterval();
+				int f = constant("Function", "f", type, "((be.baur.sds.types.ComparableType) c[" + constants.size() + "]).valueConstructor()");
+				sb.append("\t\ttry {\n\t\t\tComparable o = (Comparable) f").append(f).append(".apply(v);\n");
+				if (range.min != null || range.max != null) {
+					int r = constant("Interval", "r", range);
+					sb.append("\t\t\tif (r").append(r).append(".contains(o) != 0) return false;\n");
+				}
+				sb.append("\t\t} catch (Exception e) { return false; }\n");
+			}
+
+			if (type instanceof BooleanType)
+				sb.append("\t\ttry { BooleanType.valueOf(v); } catch (Exception e) { return false; }\n");
+
+			if (type.getPattern() != null) {
+				int p = constant("Pattern", "p", type.getPattern());
+				sb.append("\t\tif (! p").append(p).append(".matcher(v).matches()) return false;\n");
+			}
+		}
+	}
+
+
+	/**
+	 * Compiles the source code of a class in memory, and loads it with a class
+	 * loader of its own. Returns null if compilation fails.
+	 */
+	private static Class<?> load(JavaCompiler compiler, String name, String source) throws ClassNotFoundException {
+
+		JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+			@Override
+			public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+				return source;
+			}
+		};
+
+		Map<String, ByteArrayOutputStream> classes = new HashMap<>();
+		StandardJavaFileManager standard = compiler.getStandardFileManager(null, null, null);
+		JavaFileManager manager = new ForwardingJavaFileManager<JavaFileManager>(standard) {
+			@Override
+			public JavaFileObject getJavaFileForOutput(Location location, String className, JavaFileObject.Kind kind, FileObject sibling) {
+				return new SimpleJavaFileObject(URI.create("bytes:///" + className.replace('.', '/') + kind.extension), kind) {
+					@Override
+					public OutputStream openOutputStream() {
+						ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+						classes.put(className, bytes);
+						return bytes;
+					}
+				};
+			}
+		};
+
+		List<String> options = Arrays.asList("-classpath", classpath(), "-g:none", "-nowarn");
+		Boolean ok = compiler.getTask(null, manager, d -> {}, options, null, Collections.singletonList(file)).call();
+		if (ok == null || ! ok) return null;
+
+		ClassLoader loader = new ClassLoader(ValidatorCompiler.class.getClassLoader()) {
+			@Override
+			protected Class<?> findClass(String className) throws ClassNotFoundException {
+				ByteArrayOutputStream bytes = classes.get(className);
+				if (bytes == null) throw new ClassNotFoundException(className);
+				byte[] b = bytes.toByteArray();
+				return defineClass(className, b, 0, b.length);
+			}
+		};
+		return loader.loadClass(name);
+	}
+
+
+	/** Returns the class path to compile against, so the SDA and SDS classes are found. */
+	private static String classpath() {
+
+		Set<String> paths = new LinkedHashSet<>();
+		for (Class<?> c : new Class<?>[] { DataNode.class, Validator.class }) {
+			CodeSource source = c.getProtectionDomain().getCodeSource();
+			if (source == null) continue;
+			try {
+				paths.add(new File(source.getLocation().toURI()).getPath());
+			} catch (URISyntaxException | IllegalArgumentException e) {
+				// not a file, so we rely on the class path
+			}
+		}
+		paths.addAll(Arrays.asList(System.getProperty("java.class.path", "").split(File.pathSeparator)));
+		return String.join(File.pathSeparator, paths);
+	}
+}
@@ -0,0 +1,105 @@
+package be.baur.sds.validation;
+
+/**
+ * This non-public class caches the outcome of validating values against a
+ * single data type, for fields that take a limited number of distinct values,
+ * like country codes or status flags. It is a small open-addressing table: a
+ * value is stored in one of a few slots following its hash, and when those are
+ * taken, one of them is evicted using the clock algorithm; a slot that was
+ * used since the hand last passed gets a second chance.
+ * <p>
+ * The cache is adaptive. It starts with a trial, and remains enabled only as
+ * long as the hit rate is high enough. When disabled, values bypass the cache
+ * at no cost other than a counter, and a new trial is started after a while,
+ * in case the values have changed.
+ * <p>
+ * This class is thread-safe without locking. Entries are immutable, so a
+ * reader sees either a complete entry or none, and concurrent updates can at
+ * worst cause an entry to be lost, which is harmless for a cache.
+ */
+final class ValueCache {
+
+	static final int SLOTS = 512; // must be a power of two
+	static final int PROBES = 8; // the number of slots a value may occupy
+	static final int MAX_LENGTH = 64; // longer values are not cached
+	static final int WINDOW = 1024; // lookups between evaluations of the hit rate
+	static final double MIN_HIT_RATE = 0.5; // below which the cache is disabled
+	static final int RETRY = 64 * WINDOW; // bypassed values before a new trial
+
+	/** An immutable entry; the reference bit is a hint, so races are benign. */
+	static final class Entry {
+		final String value; final int hash;
+		final String template; final Object[] args; // both null if the value is valid
+		boolean referenced = true;
+
+		Entry(String value, int hash, String template, Object[] args) {
+			this.value = value; this.hash = hash; this.template = template; this.args = args;
+		}
+	}
+
+	private final Entry[] table = new Entry[SLOTS];
+	private volatile boolean enabled = true;
+	private int lookups, hits, bypassed; // counters for the adaptive behavior, races are harmless
+	private int hand; // the clock hand, an offset within the probe window
+
+
+	/** Returns true if values should be looked up in this cache. */
+	boolean isEnabled() {
+		if (enabled) return true;
+		if (++bypassed < RETRY) return false;
+		// start a new trial with an empty table
+		for (int i = 0; i < SLOTS; i++) table[i] = null;
+		bypassed = lookups = hits = 0; enabled = true;
+		return true;
+	}
+
+
+	/** Returns the cached outcome of a value, or null if it is not cached. */
+	Entry get(String value) {
+
+		if (value.length() > MAX_LENGTH) return null;
+		int hash = value.hashCode(), start = spread(hash);
+		Entry found = null;
+		for (int i = 0; i < PROBES; i++) {
+			Entry e = table[(start + i) & (SLOTS - 1)];
+			if (e != null && e.hash == hash && e.value.equals(value)) {
+				e.referenced = true; found = e; break;
+			}
+		}
+		if (found != null) ++hits;
+		if (++lookups == WINDOW) evaluate();
+		return found;
+	}
+
+
+	/** Stores the outcome of a value, possibly evicting another one. */
+	void put(String value, String template, Object[] args) {
+
+		if (value.length() > MAX_LENGTH || ! enabled) return;
+		int hash = value.hashCode(), start = spread(hash);
+		Entry entry = new Entry(value, hash, template, args);
+
+		for (int i = 0; i < PROBES; i++) { // take a free slot if there is one
+			int slot = (start + i) & (SLOTS - 1);
+			if (table[slot] == null) { table[slot] = entry; return; }
+		}
+		for (int n = 0; n < 2 * PROBES; n++) { // otherwise, run the clock over the window
+			int slot = (start + (hand = (hand + 1) & (PROBES - 1))) & (SLOTS - 1);
+			Entry e = table[slot];
+			if (e == null || ! e.referenced) { table[slot] = entry; return; }
+			e.referenced = false; // second chance
+		}
+	}
+
+
+	/** Decides whether the cache should remain enabled, at the end of a window. */
+	private void evaluate() {
+		if (hits < MIN_HIT_RATE * lookups) enabled = false;
+		lookups = hits = 0;
+	}
+
+
+	private static int spread(int hash) {
+		return (hash ^ (hash >>> 16)) & (SLOTS - 1);
+	}
+}
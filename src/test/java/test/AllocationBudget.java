@@ -0,0 +1,91 @@
+package test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Properties;
+
+/**
+ * A convenience class to measure the number of bytes allocated by the current
+ * thread, and to compare it against a budget. Budgets are read from the
+ * allocation-budgets.properties resource, and can be overridden with a system
+ * property of the same name, prefixed by "sds.alloc.", for example
+ * -Dsds.alloc.contacts=800. Allocation accounting depends on the HotSpot
+ * specific com.sun.management.ThreadMXBean, and is not available on all
+ * virtual machines.
+ */
+public final class AllocationBudget {
+
+	private static final Properties BUDGETS = budgets();
+	private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+
+	/** Returns true if allocated bytes can be measured on this virtual machine. */
+	public static boolean isSupported() {
+		return THREADS != null;
+	}
+
+
+	/** Returns the budget for a scenario, or -1 if none was configured. */
+	public static long budget(String scenario) {
+		String value = System.getProperty("sds.alloc." + scenario, BUDGETS.getProperty(scenario));
+		return value == null ? -1 : Long.parseLong(value.trim());
+	}
+
+
+	/**
+	 * Runs an action a number of times, after a warm-up of the same number of
+	 * runs, and returns the average number of bytes allocated by one run.
+	 */
+	public static long measure(Runnable action, int runs) {
+
+		for (int i = 0; i < runs; i++) action.run(); // warm up, so the JIT can eliminate allocations
+
+		long id = Thread.currentThread().getId();
+		long before = THREADS.getThreadAllocatedBytes(id);
+		for (int i = 0; i < runs; i++) action.run();
+		long after = THREADS.getThreadAllocatedBytes(id);
+		return (after - before) / runs;
+	}
+
+
+	/**
+	 * Checks the number of bytes allocated per unit against the budget of a
+	 * scenario. Returns "within budget" if it does not exceed the budget, or a
+	 * message that describes the overrun otherwise, so it can be tested like any
+	 * other result.
+	 */
+	public static String check(String scenario, long bytes, long units) {
+
+		long budget = budget(scenario);
+		if (budget < 0) return "no budget for " + scenario;
+		long perUnit = bytes / Math.max(1, units);
+		if (perUnit <= budget) return "within budget";
+		return String.format("%d bytes per node exceeds the budget of %d for %s", perUnit, budget, scenario);
+	}
+
+
+	private static Properties budgets() {
+		Properties budgets = new Properties();
+		try (InputStream input = AllocationBudget.class.getResourceAsStream("/allocation-budgets.properties")) {
+			if (input != null) budgets.load(input);
+		} catch (IOException e) {
+			throw new IllegalStateException("cannot read allocation budgets", e);
+		}
+		return budgets;
+	}
+
+
+	private static com.sun.management.ThreadMXBean threads() {
+		try {
+			java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (! (bean instanceof com.sun.management.ThreadMXBean)) return null;
+			com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+			if (! threads.isThreadAllocatedMemorySupported()) return null;
+			if (! threads.isThreadAllocatedMemoryEnabled()) threads.setThreadAllocatedMemoryEnabled(true);
+			return threads;
+		} catch (LinkageError | UnsupportedOperationException e) {
+			return null; // not a HotSpot virtual machine
+		}
+	}
+}
@@ -45,5 +45,65 @@ public final class TestAll {
 		
 		System.out.print("\nCartesian   : ");
 		test.validation.Cartesian.main(args);
+		
+		System.out.print("\nGenerator   : ");
+		test.TestDocumentGenerator.main(args);
+		
+		System.out.print("\nSchemaClass : ");
+		test.TestSchemaClassGenerator.main(args);
+
+		System.out.print("\nBinding     : ");
+		test.TestBindingGenerator.main(args);
+
+		System.out.print("\nReloading   : ");
+		test.validation.Reloading.main(args);
+		
+		System.out.print("\nListening   : ");
+		test.validation.Listening.main(args);
+		
+		System.out.print("\nCoverage    : ");
+		test.validation.Coverage.main(args);
+		
+		System.out.print("\nMonitoring  : ");
+		test.validation.Monitoring.main(args);
+		
+		System.out.print("\nSlowDocs    : ");
+		test.validation.SlowDocuments.main(args);
+		
+		System.out.print("\nMemoization : ");
+		test.validation.Memoization.main(args);
+		
+		System.out.print("\nValueCache  : ");
+		test.validation.ValueCaching.main(args);
+		
+		System.out.print("\nIncremental : ");
+		test.validation.Incremental.main(args);
+		
+		System.out.print("\nResuming    : ");
+		test.validation.Resuming.main(args);
+		
+		System.out.print("\nLimits      : ");
+		test.validation.Limits.main(args);
+		
+		System.out.print("\nErrorPaths  : ");
+		test.validation.ErrorPaths.main(args);
+		
+		System.out.print("\nHandling    : ");
+		test.validation.Handling.main(args);
+		
+		System.out.print("\nAggregating : ");
+		test.validation.Aggregating.main(args);
+		
+		System.out.print("\nPruning     : ");
+		test.validation.Pruning.main(args);
+		
+		System.out.print("\nCompiling   : ");
+		test.validation.Compiling.main(args);
+		
+		System.out.print("\nAllocations : ");
+		test.validation.Allocations.main(args);
+		
+		System.out.print("\nFlightRec   : ");
+		test.TestFlightRecording.main(args);
 	}
 }
@@ -0,0 +1,157 @@
+package test;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.util.BindingGenerator;
+import be.baur.sds.validation.ValidationException;
+import samples.types.GMonthDayType;
+import samples.types.IBANType;
+
+public final class TestBindingGenerator {
+
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		if (! Schema.isDataType(IBANType.NAME)) Schema.registerDataType(IBANType.NAME, IBANType::new);
+		if (! Schema.isDataType(GMonthDayType.NAME)) Schema.registerDataType(GMonthDayType.NAME, GMonthDayType::new);
+
+		/* simple content is converted to the value of the data type */
+		Schema contacts = SDS.parse(new InputStreamReader(TestBindingGenerator.class.getResourceAsStream("/contacts.sds"), "UTF-8"));
+		Object reader = reader(contacts, "generated.Contacts");
+		Object o = read(reader, "readContacts", "contacts { contact \"1\" { name \"Alice\" birthdate \"1970-01-01\" star \"true\" "
+			+ "about { likes \"cats\" } } contact \"2\" { name \"Bob\" phone \"06-11111111\" } }");
+		t.ts1("B01", get(o, "contact.size") + " " + get(o, "contact.0.value") + " " + get(o, "contact.0.name") + " "
+			+ get(o, "contact.0.birthdate").getClass().getSimpleName() + " " + get(o, "contact.0.star") + " "
+			+ ((DataNode) get(o, "contact.0.about")).<DataNode>find("likes").get(0).getValue() + " " + get(o, "contact.0.phone"),
+			"2 1 Alice LocalDate true cats null");
+		t.ts1("B02", get(o, "contact.1.name") + " " + get(o, "contact.1.phone") + " " + get(o, "contact.1.star"), "Bob 06-11111111 null");
+
+		/* references, choices, optional groups and custom data types */
+		Schema addressbook = SDS.parse(new InputStreamReader(TestBindingGenerator.class.getResourceAsStream("/addressbook.sds"), "UTF-8"));
+		reader = reader(addressbook, "generated.Addressbooks");
+		o = read(reader, "readAddressbook", "addressbook { owner \"0\" { person \"Harold\" { lastname \"Baur\" birthday \"--02-28\" about { nickname \"Bo\" } } "
+			+ "address \"home\" { postalcode \"5611 XG\" housenumber \"261\" city \"EINDHOVEN\" latitude \"51.43\" longitude \"5.47\" } "
+			+ "phone \"06-11111111\" email \"harold@home\" email \"harold@work\" bank \"NL91ABNA0417164300\" } "
+			+ "contact \"1\" { person \"Alice\" { } address \"work\" { streetname \"Lichtstraat\" housenumber \"2\" city \"EINDHOVEN\" } phone \"06-22222222\" } }");
+		t.ts1("B03", get(o, "owner.value") + " " + get(o, "owner.person.value") + " " + get(o, "owner.person.lastname") + " "
+			+ get(o, "owner.person.birthday").getClass().getSimpleName() + " " + get(o, "owner.bank").getClass().getSimpleName() + " "
+			+ get(o, "owner.email"), "0 Harold Baur GMonthDay IBAN [harold@home, harold@work]");
+		t.ts1("B04", get(o, "owner.address.0.choice").getClass().getSimpleName() + " " + get(o, "owner.address.0.choice.postalcode") + " "
+			+ get(o, "owner.address.0.housenumber") + " " + get(o, "owner.address.0.latitude"), "Postalcode 5611 XG 261 51.43");
+		t.ts1("B05", get(o, "contact.size") + " " + get(o, "contact.0.address.0.choice").getClass().getSimpleName() + " "
+			+ get(o, "contact.0.address.0.latitude") + " " + get(o, "contact.0.person.about"), "1 Streetname null null");
+
+		/* a repeated choice has an instance for every alternative that is found */
+		Schema schema = SDS.parse(new StringReader("schema { node \"r\" { choice { occurs \"1..*\" node \"a\" { type \"string\" } "
+			+ "group { node \"b\" { type \"string\" } node \"c\" { type \"integer\" occurs \"0..1\" } } } } }"));
+		reader = reader(schema, "generated.Choices");
+		o = read(reader, "readR", "r { a \"1\" b \"2\" c \"3\" b \"4\" a \"5\" a \"6\" }");
+		StringBuilder sb = new StringBuilder();
+		for (Object choice : (List<?>) get(o, "choice")) sb.append(choice.getClass().getSimpleName()).append(' ');
+		t.ts1("B06", sb.toString() + get(o, "choice.1.b") + get(o, "choice.1.c") + get(o, "choice.2.b") + get(o, "choice.2.c"),
+			"A Group Group A A 234null");
+
+		/* a repeated group has an instance for every repetition */
+		schema = SDS.parse(new StringReader("schema { node \"map\" { group { occurs \"0..*\" node \"key\" { type \"string\" } "
+			+ "node \"value\" { type \"decimal\" } } } }"));
+		reader = reader(schema, "generated.Maps");
+		o = read(reader, "readMap", "map { key \"a\" value \"1.5\" key \"b\" value \"2\" }");
+		t.ts1("B07", get(o, "group.size") + " " + get(o, "group.1.key") + " " + get(o, "group.1.value"), "2 b 2.0");
+
+		/* nested references and unordered groups */
+		Schema cartesian = SDS.parse(new InputStreamReader(TestBindingGenerator.class.getResourceAsStream("/cartesian.sds"), "UTF-8"));
+		reader = reader(cartesian, "generated.Cartesian");
+		o = read(reader, "readCartesian", "cartesian { line { id \"1\" point { id \"1\" y \"0\" x \"0\" tag \"origin\" } "
+			+ "point { id \"2\" z \"1\" y \"2\" x \"3\" } } line { id \"2\" point { id \"3\" x \"0\" y \"0\" } point { id \"4\" x \"1\" y \"1\" } } }");
+		t.ts1("B08", get(o, "line.size") + " " + get(o, "line.0.point.0.tag") + " " + get(o, "line.0.point.1.x") + " "
+			+ get(o, "line.0.point.1.z") + " " + get(o, "line.1.point.1.id"), "2 origin 3.0 1.0 4");
+
+		/* an invalid document is not bound, but the reader can be reused */
+		try {
+			read(reader, "readCartesian", "cartesian { line { id \"1\" point { id \"1\" x \"0\" y \"0\" } } }");
+			t.ts1("F01", "no exception", "exception");
+		} catch (ValidationException e) {
+			t.ts1("F01", e.getErrors().size() + " " + e.getErrors().get(0).getMessage(), "1 content missing at end of 'line'; expected 'point'");
+		}
+		o = read(reader, "readCartesian", "cartesian { line { id \"5\" point { id \"1\" x \"0\" y \"0\" } point { id \"2\" y \"1\" x \"1\" } } }");
+		t.ts1("F02", get(o, "line.0.id") + " " + get(o, "line.0.point.size"), "5 2");
+
+		/* the reader only accepts the schema the classes were generated from */
+		try {
+			reader.getClass().getConstructor(Schema.class).newInstance(contacts);
+			t.ts1("F03", "no exception", "exception");
+		} catch (InvocationTargetException e) {
+			t.ts1("F03", e.getCause().getMessage(), "schema does not match the generated classes");
+		}
+
+		try {
+			new BindingGenerator("generated.1Bindings");
+			t.ts1("F04", "no exception", "exception");
+		} catch (IllegalArgumentException e) {
+			t.ts1("F04", e.getMessage(), "invalid class name (generated.1Bindings)");
+		}
+	}
+
+
+	/** Reads a document with the specified method of a reader. */
+	private static Object read(Object reader, String method, String sda) throws Exception {
+		try {
+			return reader.getClass().getMethod(method, DataNode.class).invoke(reader, SDA.parse(new StringReader(sda)));
+		} catch (InvocationTargetException e) {
+			throw (Exception) e.getCause();
+		}
+	}
+
+
+	/** Returns the value at a path of field names and list indexes, or the size of a list. */
+	private static Object get(Object o, String path) throws Exception {
+
+		for (String part : path.split("\\.")) {
+			if (o instanceof List)
+				o = part.equals("size") ? ((List<?>) o).size() : ((List<?>) o).get(Integer.parseInt(part));
+			else o = o.getClass().getField(part).get(o);
+		}
+		return o;
+	}
+
+
+	/** Generates, compiles and loads the classes for a schema, and returns a new reader. */
+	private static Object reader(Schema schema, String name) throws Exception {
+
+		Path dir = Files.createTempDirectory("sds");
+		Path source = dir.resolve(name.substring(name.lastIndexOf('.') + 1) + ".java");
+		try (Writer output = Files.newBufferedWriter(source, StandardCharsets.UTF_8)) {
+			new BindingGenerator(name).generate(schema, output);
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringWriter messages = new StringWriter();
+		if (compiler.getTask(messages, null, null, Arrays.asList("-d", dir.toString(), "-cp", System.getProperty("java.class.path")),
+				null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(source.toFile())).call() != Boolean.TRUE)
+			throw new IllegalStateException(messages.toString());
+
+		URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, TestBindingGenerator.class.getClassLoader());
+		return loader.loadClass(name + "$Reader").getConstructor(Schema.class).newInstance(schema);
+	}
+}
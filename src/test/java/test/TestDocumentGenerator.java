@@ -0,0 +1,75 @@
+package test;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.util.DocumentGenerator;
+import be.baur.sds.validation.Validator.Errors;
+
+public final class TestDocumentGenerator {
+
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		/* generated documents should be valid, unless errors are injected */
+		String[][] cases = { 
+			{ "S01", "/contacts.sds", "contacts" }, { "S02", "/addressbook.sds", "addressbook" },
+			{ "S03", "/russiandolls.sds", "russian_dolls" }, { "S04", "/choices.sds", "test" },
+			{ "S05", "/groups.sds", "test" }, { "S06", "/unordered.sds", "test" },
+			{ "S07", "/cartesian.sds", "cartesian" }
+		};
+		for (String[] c : cases) {
+			Schema schema = SDS.parse(new InputStreamReader(TestDocumentGenerator.class.getResourceAsStream(c[1]), "UTF-8"));
+			DocumentGenerator generator = new DocumentGenerator(schema, 42);
+			generator.setValueGenerator("IBAN", r -> "NL64 ABNC 0417 1643 00");
+			generator.setValueGenerator("gMonthDay", r -> "--02-28");
+
+			StringWriter output = new StringWriter();
+			generator.generate(output, c[2], 10000);
+			Errors errors = schema.newValidator().validate(SDA.parse(new StringReader(output.toString())));
+			t.ts1(c[0], errors.isEmpty() ? "" : errors.get(0).toString(), "");
+		}
+
+		Schema schema = SDS.parse(new InputStreamReader(TestDocumentGenerator.class.getResourceAsStream("/contacts.sds"), "UTF-8"));
+		DocumentGenerator generator = new DocumentGenerator(schema, 42);
+		StringWriter output = new StringWriter();
+		long nodes = generator.generate(output, "contacts", 100000);
+		DataNode document = SDA.parse(new StringReader(output.toString()));
+		t.ts1("S08", (output.toString().length() >= 100000) + "", "true");
+		t.ts1("S09", (document.find("contact").size() > 100) + "", "true");
+		t.ts1("S10", (nodes > document.nodes().size()) + "", "true");
+
+		/* same seed, same output */
+		StringWriter again = new StringWriter();
+		new DocumentGenerator(schema, 42).generate(again, "contacts", 100000);
+		t.ts1("S11", again.toString().equals(output.toString()) + "", "true");
+
+		/* injected errors */
+		generator = new DocumentGenerator(schema, 7);
+		generator.setErrorRate(0.1);
+		output = new StringWriter();
+		generator.generate(output, "contacts", 10000);
+		Errors errors = schema.newValidator().validate(SDA.parse(new StringReader(output.toString())));
+		t.ts1("F01", (generator.getInjectedErrors() > 0 && ! errors.isEmpty()) + "", "true");
+
+		/* an injected value is never valid */
+		String[][] strings = { { "F02", "1..*" }, { "F03", "3..*" }, { "F04", "0..*\" pattern \"[a-z]+" } };
+		for (String[] c : strings) {
+			schema = SDS.parse(new StringReader("schema { node \"s\" { type \"string\" length \"" + c[1] + "\" } }"));
+			generator = new DocumentGenerator(schema, 42);
+			generator.setErrorRate(1);
+			output = new StringWriter();
+			generator.generate(output, "s", 1);
+			errors = schema.newValidator().validate(SDA.parse(new StringReader(output.toString())));
+			t.ts1(c[0], generator.getInjectedErrors() + " " + errors.size(), "1 1");
+		}
+	}
+}
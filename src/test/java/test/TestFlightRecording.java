@@ -0,0 +1,69 @@
+package test;
+
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.jfr.FlightRecording;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public final class TestFlightRecording {
+
+	/*
+	 * Flight Recorder events for parsing and validation.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		t.ts1("S01", FlightRecording.AVAILABLE + "", "true");
+
+		List<RecordedEvent> events;
+		String sds = "schema { node \"greeting\" { node \"message\" { type \"string\" } } }";
+		try (Recording recording = new Recording()) {
+			recording.enable("be.baur.sds.Parse");
+			recording.enable("be.baur.sds.Validate");
+			recording.enable("be.baur.sds.Value").withThreshold(java.time.Duration.ZERO);
+			recording.start();
+
+			Schema schema = SDS.parse(new StringReader(sds));
+			schema.newValidator().validate(SDA.parse(new StringReader("greeting { message \"hi\" }")));
+			schema.newValidator().validate(SDA.parse(new StringReader("greeting { text \"hi\" }")));
+
+			recording.stop();
+			Path file = Files.createTempFile("sds", ".jfr");
+			recording.dump(file);
+			events = RecordingFile.readAllEvents(file);
+			Files.delete(file);
+		}
+
+		RecordedEvent parse = find(events, "be.baur.sds.Parse", 0);
+		t.ts1("S02", parse.getLong("size") + "", sds.length() + "");
+		t.ts1("S03", parse.getInt("globalTypes") + "", "1");
+		t.ts1("S04", parse.getBoolean("failed") + "", "false");
+
+		RecordedEvent validate = find(events, "be.baur.sds.Validate", 0);
+		t.ts1("S05", validate.getString("rootType"), "greeting");
+		t.ts1("S06", validate.getLong("nodes") + "", "2");
+		t.ts1("S07", validate.getLong("errors") + "", "0");
+		t.ts1("F01", find(events, "be.baur.sds.Validate", 1).getLong("errors") + "", "1");
+
+		RecordedEvent value = find(events, "be.baur.sds.Value", 0);
+		t.ts1("S08", value.getString("type") + " " + value.getString("path"), "string /greeting/message");
+		t.ts1("S09", value.getInt("length") + " " + value.getBoolean("valid"), "2 true");
+	}
+
+	/** Returns the n-th event of the specified type, in chronological order. */
+	private static RecordedEvent find(List<RecordedEvent> events, String name, int n) {
+		return events.stream().filter(e -> e.getEventType().getName().equals(name))
+			.sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime())).skip(n).findFirst().get();
+	}
+}
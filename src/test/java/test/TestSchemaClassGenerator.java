@@ -0,0 +1,100 @@
+package test;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.util.SchemaClassGenerator;
+import samples.types.GMonthDayType;
+import samples.types.IBANType;
+
+public final class TestSchemaClassGenerator {
+
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		if (! Schema.isDataType(IBANType.NAME)) Schema.registerDataType(IBANType.NAME, IBANType::new);
+		if (! Schema.isDataType(GMonthDayType.NAME)) Schema.registerDataType(GMonthDayType.NAME, GMonthDayType::new);
+
+		/* a generated schema is the same as the parsed one, and validates the same */
+		String[][] cases = {
+			{ "S01", "contacts.sds", "contacts.sda" }, { "S02", "addressbook.sds", "addressbook.sda" },
+			{ "S03", "russiandolls.sds", "russiandolls.sda" }, { "S04", "russiandolls2.sds", "russiandolls2.sda" },
+			{ "S05", "russiandolls3.sds", "russiandolls3.sda" }, { "S06", "choices.sds", null },
+			{ "S07", "groups.sds", "mgtest.sda" }, { "S08", "unordered.sds", "mgtest.sda" },
+			{ "S09", "cartesian.sds", "cartesian.sda" }
+		};
+		for (String[] c : cases) {
+			Schema parsed = SDS.parse(new InputStreamReader(TestSchemaClassGenerator.class.getResourceAsStream("/" + c[1]), "UTF-8"));
+			Schema built = build(parsed, "generated.Schema" + c[0]);
+			String result = built.toString().equals(parsed.toString()) ? "same" : built.toString();
+			if (c[2] != null) {
+				String sda = new String(Files.readAllBytes(new File(TestSchemaClassGenerator.class.getResource("/" + c[2]).toURI()).toPath()), StandardCharsets.UTF_8);
+				String expected = parsed.newValidator().validate(SDA.parse(new StringReader(sda))).toString();
+				String actual = built.newValidator().validate(SDA.parse(new StringReader(sda))).toString();
+				if (! actual.equals(expected)) result = actual;
+			}
+			t.ts1(c[0], result, "same");
+		}
+
+		/* names and facets that need escaping */
+		Schema schema = SDS.parse(new StringReader("schema { node \"order\" { node \"a\" { type \"string\" pattern \"\\\"[a-z]+\\\\d\" length \"1..5\" } "
+			+ "node \"n\" { type \"decimal\" value \"(0..9.5]\" nullable \"true\" occurs \"0..*\" } node { type \"any\" } } }"));
+		t.ts1("S10", build(schema, "generated.SchemaS10").toString(), schema.toString());
+
+		/* a schema is built anew every time */
+		Class<?> c = load(schema, "generated.SchemaS11");
+		Object one = c.getMethod("schema").invoke(null), two = c.getMethod("schema").invoke(null);
+		t.ts1("S11", (one != two) + "", "true");
+
+		try {
+			new SchemaClassGenerator("generated.1Schema");
+			t.ts1("F01", "no exception", "exception");
+		} catch (IllegalArgumentException e) {
+			t.ts1("F01", e.getMessage(), "invalid class name (generated.1Schema)");
+		}
+	}
+
+
+	/** Generates, compiles and loads the class for a schema, and returns the schema it builds. */
+	private static Schema build(Schema schema, String name) throws Exception {
+		return (Schema) load(schema, name).getMethod("schema").invoke(null);
+	}
+
+
+	/** Generates, compiles and loads the class for a schema. */
+	private static Class<?> load(Schema schema, String name) throws Exception {
+
+		Path dir = Files.createTempDirectory("sds");
+		Path source = dir.resolve(name.substring(name.lastIndexOf('.') + 1) + ".java");
+		try (Writer output = Files.newBufferedWriter(source, StandardCharsets.UTF_8)) {
+			new SchemaClassGenerator(name).generate(schema, output);
+		}
+
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		StringWriter messages = new StringWriter();
+		if (compiler.getTask(messages, null, null, Arrays.asList("-d", dir.toString(), "-cp", System.getProperty("java.class.path")),
+				null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(source.toFile())).call() != Boolean.TRUE)
+			throw new IllegalStateException(messages.toString());
+
+		URLClassLoader loader = new URLClassLoader(new URL[] { dir.toUri().toURL() }, TestSchemaClassGenerator.class.getClassLoader());
+		return loader.loadClass(name);
+	}
+}
@@ -0,0 +1,59 @@
+package test.validation;
+
+import java.io.StringReader;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.validation.AggregatingErrorHandler;
+import be.baur.sds.validation.AggregatingErrorHandler.Group;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Aggregating {
+
+	/*
+	 * Grouping similar errors.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"contacts\" { node \"contact\" { occurs \"1..*\" "
+			+ "node \"name\" { type \"string\" } node \"phone\" { type \"integer\" occurs \"0..1\" } } } }"));
+		StringBuilder sb = new StringBuilder("contacts {");
+		for (int i = 1; i <= 50000; i++) {
+			if (i % 1000 == 0) sb.append(" contact { name \"a\" phone \"p").append(i).append("\" }");
+			else sb.append(" contact { fullname \"a\" }");
+		}
+		DataNode document = SDA.parse(new StringReader(sb.append(" }").toString()));
+		Validator validator = schema.newValidator();
+
+		AggregatingErrorHandler aggregate = new AggregatingErrorHandler(3);
+		t.ts1("S01", validator.validate(document, aggregate) + "", "false");
+		t.ts1("S02", aggregate.getErrorCount() + "", validator.validate(document).size() + "");
+		t.ts1("S03", aggregate.getGroups().size() + "", "2");
+
+		Group group = aggregate.getGroups().get(0);
+		t.ts1("S04", group.getCount() + "", "49950");
+		t.ts1("S05", group.getLocation(), "/contacts/contact/fullname");
+		t.ts1("S06", group.getMessage(), "got 'fullname', but 'name' was expected");
+		t.ts1("S07", group.getSamples().toString(), "[/contacts/contact[1]/fullname, /contacts/contact[2]/fullname, /contacts/contact[3]/fullname]");
+
+		// messages differ, but the kind and location are the same
+		group = aggregate.getGroups().get(1);
+		t.ts1("S08", group.getCount() + "", "50");
+		t.ts1("S09", group.toString(), "50 x /contacts/contact/phone: value 'p1000' is invalid for type integer: "
+			+ "For input string: \"p1000\" [/contacts/contact[1000]/phone, /contacts/contact[2000]/phone, /contacts/contact[3000]/phone]");
+
+		// no samples
+		aggregate = new AggregatingErrorHandler(0);
+		validator.validate(document, aggregate);
+		t.ts1("S10", aggregate.toString(), "49950 x /contacts/contact/fullname: got 'fullname', but 'name' was expected []\n"
+			+ "50 x /contacts/contact/phone: value 'p1000' is invalid for type integer: For input string: \"p1000\" []\n");
+		t.ts1("S11", new AggregatingErrorHandler().getGroups().toString(), "[]");
+	}
+}
@@ -0,0 +1,74 @@
+package test.validation;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.validation.Validator;
+import test.AllocationBudget;
+import test.Test;
+
+public final class Allocations {
+
+	/*
+	 * Bytes allocated per validated node for each validation scenario.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		if (! AllocationBudget.isSupported()) {
+			System.out.print("(not supported on this virtual machine)");
+			return;
+		}
+		Scenarios.register();
+
+		t.ts1("S01", scenario("addressbook", "addressbook.sds", "addressbook.sda"), "within budget");
+		t.ts1("S02", scenario("contacts", "contacts.sds", "contacts.sda"), "within budget");
+		t.ts1("S03", scenario("russiandolls", "russiandolls.sds", "russiandolls.sda"), "within budget");
+		t.ts1("S04", scenario("choices", "choices.sds", "mgtest.sda"), "within budget");
+		t.ts1("S05", scenario("groups", "groups.sds", "mgtest.sda"), "within budget");
+		t.ts1("S06", scenario("unordered", "unordered.sds", "mgtest.sda"), "within budget");
+		t.ts1("S07", scenario("cartesian", "cartesian.sds", "cartesian.sda"), "within budget");
+		t.ts1("S08", rejected(), "within budget");
+	}
+
+	/** Validates a document with many errors, of which the messages are never read. */
+	private static String rejected() throws Exception {
+
+		Validator validator = SDS.parse(new StringReader("schema { node \"records\" { node \"record\" { occurs \"1..*\" "
+			+ "node \"code\" { type \"string\" length \"3\" } node \"kind\" { type \"string\" occurs \"0..1\" } } } }")).newValidator();
+		StringBuilder sb = new StringBuilder("records {");
+		for (int i = 1; i <= 1000; i++) sb.append(" record { code \"abcdefghijklmnopqrstuvwxyz0123456789\" size \"1\" }");
+		DataNode document = SDA.parse(new StringReader(sb.append(" }").toString()));
+
+		long bytes = AllocationBudget.measure(() -> {
+			if (validator.validate(document).isEmpty()) throw new AssertionError("no errors");
+		}, 50);
+		return AllocationBudget.check("rejected", bytes, count(document));
+	}
+
+	/** Validates a document repeatedly and checks the bytes allocated per node. */
+	private static String scenario(String name, String sds, String sda) throws Exception {
+
+		Validator validator = SDS.parse(new InputStreamReader(
+			Allocations.class.getResourceAsStream("/" + sds), "UTF-8")).newValidator();
+		DataNode document = SDA.parse(new InputStreamReader(
+			Allocations.class.getResourceAsStream("/" + sda), "UTF-8"));
+
+		long bytes = AllocationBudget.measure(() -> validator.validate(document), 200);
+		return AllocationBudget.check(name, bytes, count(document));
+	}
+
+	/** Returns the number of nodes in a document. */
+	private static long count(Node node) {
+		long count = 1;
+		if (! node.isLeaf()) for (Node child : node.nodes()) count += count(child);
+		return count;
+	}
+}
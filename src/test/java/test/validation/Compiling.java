@@ -0,0 +1,137 @@
+package test.validation;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.util.DocumentGenerator;
+import be.baur.sds.validation.ValidatorCompiler;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Compiling {
+
+	/*
+	 * Validating with a compiled fast path.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Scenarios.register();
+
+		// the compiled and interpreted validators agree on every document
+		t.ts1("S01", compare("contacts.sds", "contacts"), "same");
+		t.ts1("S02", compare("addressbook.sds", "addressbook"), "same");
+		t.ts1("S03", compare("russiandolls.sds", "russian_dolls"), "same");
+		t.ts1("S04", compare("choices.sds", "test"), "same");
+		t.ts1("S05", compare("groups.sds", "test"), "same");
+		t.ts1("S06", compare("unordered.sds", "test"), "same");
+		t.ts1("S07", compare("cartesian.sds", "cartesian"), "same");
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"order\" { node \"id\" { type \"integer\" value \"[1..*)\" } "
+			+ "node \"code\" { type \"string\" length \"2..3\" pattern \"[A-Z]+\" } node \"paid\" { type \"boolean\" occurs \"0..1\" } "
+			+ "node \"note\" { type \"string\" nullable \"true\" occurs \"0..*\" } node \"extra\" { type \"any\" occurs \"0..1\" } } }"));
+		Validator compiled = ValidatorCompiler.compile(schema);
+		t.ts1("S08", compiled.isCompiled() + "", "true");
+		t.ts1("S09", schema.newValidator().isCompiled() + "", "false");
+
+		String[][] cases = {
+			{ "order { id \"1\" code \"AB\" }", "true" },
+			{ "order { id \"1\" code \"AB\" paid \"true\" note \"\" note \"x\" extra { a \"b\" } }", "true" },
+			{ "order { id \"0\" code \"AB\" }", "false" },
+			{ "order { id \"x\" code \"AB\" }", "false" },
+			{ "order { id \"1\" code \"ab\" }", "false" },
+			{ "order { id \"1\" code \"ABCD\" }", "false" },
+			{ "order { id \"1\" code \"AB\" paid \"yes\" }", "false" },
+			{ "order { id \"1\" code \"AB\" paid \"true\" paid \"true\" }", "false" },
+			{ "order { code \"AB\" id \"1\" }", "false" },
+			{ "order { id \"1\" code \"AB\" note \"x\" extra \"\" extra \"\" }", "false" },
+			{ "order { id \"1\" }", "false" },
+			{ "order \"x\" { id \"1\" code \"AB\" }", "false" },
+			{ "order { id { } code \"AB\" }", "false" },
+			{ "order { id \"1\" code \"AB\" note { } }", "false" },
+			{ "other { id \"1\" code \"AB\" }", "false" }
+		};
+		int n = 10;
+		for (String[] c : cases) {
+			DataNode document = SDA.parse(new StringReader(c[0]));
+			String expected = schema.newValidator().validate(document).toString();
+			t.ts1("S" + n++, compiled.isValid(document) + " " + compiled.validate(document), c[1] + " " + expected);
+		}
+
+		// the fast path does not apply when a listener is set
+		compiled.setListener(new be.baur.sds.validation.ValidationListener() {});
+		t.ts1("S" + n++, compiled.isValid(SDA.parse(new StringReader(cases[0][0]))) + "", "true");
+
+		// sequence and choice groups and recursive types are compiled, unordered groups are not
+		String[][] types = { { "choices.sds", "test" }, { "groups.sds", "test" }, { "russiandolls.sds", "russian_dolls" },
+			{ "russiandolls.sds", "doll" }, { "cartesian.sds", "point" }, { "cartesian.sds", "id" } };
+		StringBuilder sb = new StringBuilder();
+		for (String[] type : types) {
+			schema = SDS.parse(new InputStreamReader(Compiling.class.getResourceAsStream("/" + type[0]), "UTF-8"));
+			sb.append(ValidatorCompiler.compile(schema).isCompiled(schema.getGlobalType(type[1]))).append(' ');
+		}
+		t.ts1("S" + n++, sb.toString(), "true true true true false true ");
+
+		// a sequence group that ends with an unbounded component is not compiled
+		schema = SDS.parse(new StringReader("schema { node \"r\" { group { node \"a\" { type \"string\" } node \"b\" { type \"string\" occurs \"1..*\" } } } }"));
+		t.ts1("S" + n++, ValidatorCompiler.compile(schema).isCompiled(schema.getGlobalType("r")) + "", "false");
+		schema = SDS.parse(new StringReader("schema { node \"r\" { group { node \"a\" { type \"string\" } node \"b\" { type \"string\" occurs \"1..2\" } } } }"));
+		compiled = ValidatorCompiler.compile(schema);
+		t.ts1("S" + n++, compiled.isCompiled(schema.getGlobalType("r")) + "", "true");
+		for (String sda : new String[] { "r { a \"\" b \"\" }", "r { a \"\" b \"\" b \"\" }", "r { a \"\" }", "r { b \"\" }" }) {
+			DataNode document = SDA.parse(new StringReader(sda));
+			t.ts1("S" + n++, compiled.isValid(document) + " " + compiled.validate(document),
+				schema.newValidator().validate(document).isEmpty() + " " + schema.newValidator().validate(document));
+		}
+
+		// a document that is nested too deeply for the compiled code is interpreted
+		schema = SDS.parse(new InputStreamReader(Compiling.class.getResourceAsStream("/russiandolls.sds"), "UTF-8"));
+		compiled = ValidatorCompiler.compile(schema);
+		DataNode document = new DataNode("russian_dolls"), doll = document;
+		for (int i = 1; i < 100000; i++) {
+			DataNode inner = new DataNode("doll", String.valueOf(i));
+			doll.add(inner); doll = inner;
+		}
+		DataNode last = SDA.parse(new StringReader("doll \"100000\" { }"));
+		doll.add(last);
+		t.ts1("S" + n++, compiled.isValid(document) + " " + compiled.validate(document).size(), "true 0");
+		last.setValue("0");
+		t.ts1("S" + n++, compiled.isValid(document) + " " + compiled.validate(document).get(0).getMessage(),
+			"false value '0' subceeds the minimum of 1");
+	}
+
+	/**
+	 * Validates generated documents, with and without errors, and compares the
+	 * outcome of a compiled validator with that of the interpreter.
+	 */
+	private static String compare(String sds, String root) throws Exception {
+
+		Schema schema = SDS.parse(new InputStreamReader(Compiling.class.getResourceAsStream("/" + sds), "UTF-8"));
+		Validator interpreted = schema.newValidator(), compiled = ValidatorCompiler.compile(schema);
+
+		for (int seed = 1; seed <= 40; seed++) {
+			DocumentGenerator generator = new DocumentGenerator(schema, seed);
+			generator.setValueGenerator("IBAN", r -> "NL64 ABNC 0417 1643 00");
+			generator.setValueGenerator("gMonthDay", r -> "--02-28");
+			generator.setErrorRate(seed % 2 == 0 ? 0 : 0.01);
+			StringWriter output = new StringWriter();
+			generator.generate(output, root, 2000);
+			DataNode document = SDA.parse(new StringReader(output.toString()));
+
+			String expected = interpreted.validate(document).toString();
+			String actual = compiled.validate(document).toString();
+			boolean valid = compiled.isValid(document);
+			if (! expected.equals(actual) || valid != expected.equals("[]"))
+				return "different for seed " + seed + ":\n" + expected + "\n" + actual + "\n" + valid;
+		}
+		return "same";
+	}
+}
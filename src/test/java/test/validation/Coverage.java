@@ -0,0 +1,74 @@
+package test.validation;
+
+import java.io.StringReader;
+
+import be.baur.sds.Component;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.SchemaCoverage;
+import be.baur.sds.validation.Validator;
+import be.baur.sda.SDA;
+import test.Test;
+
+public final class Coverage {
+
+	/*
+	 * Collecting schema coverage over a small corpus.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"id\" { type \"integer\" } "
+			+ "node \"contact\" { node { type \"id\" } "
+			+ "choice { node \"phone\" { type \"string\" } node \"email\" { type \"string\" } } "
+			+ "unordered { node \"name\" { type \"string\" } node \"note\" { type \"string\" occurs \"0..1\" } } } }"));
+		Component contact = schema.getGlobalType("contact");
+		Component choice = (Component) contact.nodes().get(1);
+		Component unordered = (Component) contact.nodes().get(2);
+
+		SchemaCoverage coverage = new SchemaCoverage(schema);
+		Validator validator = schema.newValidator();
+		validator.setListener(coverage);
+
+		validator.validate(SDA.parse(new StringReader("contact { id \"1\" phone \"123\" name \"a\" }")));
+		validator.validate(SDA.parse(new StringReader("contact { id \"2\" phone \"456\" name \"b\" }")));
+		validator.validate(SDA.parse(new StringReader("contact { id \"3\" phone \"789\" }")));
+
+		t.ts1("S01", coverage.getHits(contact) + "", "3");
+		t.ts1("S02", coverage.getHits(choice) + "/" + coverage.getMatches(choice), "3/3");
+		t.ts1("S03", coverage.getHits((Component) choice.nodes().get(0)) + "", "3");
+		t.ts1("S04", coverage.getHits((Component) choice.nodes().get(1)) + "", "0");
+		t.ts1("S05", coverage.getHits(unordered) + "/" + coverage.getMatches(unordered), "2/2");
+		t.ts1("S06", coverage.getHits((Component) unordered.nodes().get(0)) + "", "2");
+		t.ts1("S07", coverage.getUnused().size() + "", "2");
+		t.ts1("S08", ((Type) coverage.getUnused().get(0)).getTypeName(), "email");
+		t.ts1("S09", String.format("%.2f", coverage.getCoverage()), "0.78");
+		t.ts1("S10", coverage.toString().replaceAll("time=[0-9.]+ms", "time"), "schema { coverage 77.8%" + System.lineSeparator()
+			+ "   node \"id\" { type \"integer\" }: hits=3, time" + System.lineSeparator()
+			+ "   node \"contact\": hits=3, time" + System.lineSeparator()
+			+ "      node { type \"id\" }: hits=3, time" + System.lineSeparator()
+			+ "      choice (2 members): hits=3, matches=3, time" + System.lineSeparator()
+			+ "         node \"phone\" { type \"string\" }: hits=3, time" + System.lineSeparator()
+			+ "         node \"email\" { type \"string\" }: unused" + System.lineSeparator()
+			+ "      unordered (2 members): hits=2, matches=2, time" + System.lineSeparator()
+			+ "         node \"name\" { type \"string\" }: hits=2, time" + System.lineSeparator()
+			+ "         node \"note\" { type \"string\" }: unused" + System.lineSeparator() + "}");
+
+		coverage.reset();
+		t.ts1("S11", coverage.getHits(contact) + "", "0");
+
+		/* a global type with complex content is used through a reference */
+		schema = SDS.parse(new StringReader("schema { node \"point\" { node \"x\" { type \"integer\" } } "
+			+ "node \"line\" { node { type \"point\" occurs \"2\" } } }"));
+		coverage = new SchemaCoverage(schema);
+		validator = schema.newValidator();
+		validator.setListener(coverage);
+		validator.validate(SDA.parse(new StringReader("line { point { x \"1\" } point { x \"2\" } }")));
+		t.ts1("S12", coverage.getHits(schema.getGlobalType("point")) + " " + coverage.getUnused().size()
+			+ String.format(" %.2f", coverage.getCoverage()), "2 0 1.00");
+	}
+}
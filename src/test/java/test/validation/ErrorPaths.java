@@ -0,0 +1,85 @@
+package test.validation;
+
+import java.io.InputStreamReader;
+import java.io.StringReader;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.SDA;
+import be.baur.sda.util.Result;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.validation.IncrementalValidation;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import test.Test;
+
+public final class ErrorPaths {
+
+	/*
+	 * The paths in error messages.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Scenarios.register();
+
+		// paths are rendered like Node.path() does
+		t.ts1("S01", check("addressbook.sds", "addressbook.sda"), "same");
+		t.ts1("S02", check("contacts.sds", "contacts.sda"), "same");
+		t.ts1("S03", check("russiandolls.sds", "russiandolls.sda"), "same");
+		t.ts1("S04", check("unordered.sds", "mgtest.sda"), "same");
+		t.ts1("S05", check("cartesian.sds", "cartesian.sda"), "same");
+
+		// many siblings with the same name, each with errors
+		Schema schema = SDS.parse(new StringReader("schema { node \"records\" { node \"record\" { occurs \"1..*\" "
+			+ "node \"id\" { type \"integer\" } node \"code\" { type \"string\" length \"3\" } } } }"));
+		StringBuilder sb = new StringBuilder("records {");
+		for (int i = 1; i <= 20000; i++)
+			sb.append(" record { id \"").append(i % 2 == 0 ? "x" : "1").append("\" code \"ab\" }");
+		DataNode document = SDA.parse(new StringReader(sb.append(" }").toString()));
+
+		Validator validator = schema.newValidator();
+		Errors errors = validator.validate(document);
+		t.ts1("S06", errors.size() + "", "30000");
+		t.ts1("S07", same(errors), "same");
+		t.ts1("S08", errors.get(0).toString(), "/records/record[1]/code: value 'ab' has length 2 but 3 is the minimum");
+		t.ts1("S09", errors.get(29999).toString(), "/records/record[20000]/code: value 'ab' has length 2 but 3 is the minimum");
+
+		// paths are those of the document at the time of the validation
+		IncrementalValidation session = validator.validateIncrementally(document);
+		t.ts1("S10", same(session.getErrors()), "same");
+		DataNode first = (DataNode) document.nodes().get(0);
+		DataNode record = new DataNode("record");
+		record.add(new DataNode("id", "0")); record.add(new DataNode("code", "abc"));
+		document.add(record);
+		t.ts1("S11", same(session.revalidate(document)), "same");
+		DataNode code = first.get("code");
+		code.setValue("abc");
+		t.ts1("S12", same(session.revalidate(code)), "same");
+		t.ts1("S13", session.getErrors().size() + "", "29999");
+	}
+
+	/** Compares the rendered errors of a validation with the paths of their nodes. */
+	private static String check(String sds, String sda) throws Exception {
+
+		Validator validator = SDS.parse(new InputStreamReader(
+			ErrorPaths.class.getResourceAsStream("/" + sds), "UTF-8")).newValidator();
+		DataNode document = SDA.parse(new InputStreamReader(
+			ErrorPaths.class.getResourceAsStream("/" + sda), "UTF-8"));
+		return same(validator.validate(document));
+	}
+
+	/** Returns "same" if the errors are rendered with the paths of their nodes. */
+	private static String same(Errors errors) {
+
+		for (Result<Node> error : errors) {
+			String expected = error.getValue().path() + ": " + error.getMessage();
+			if (! expected.equals(error.toString())) return "different: " + error + " vs " + expected;
+		}
+		return "same";
+	}
+}
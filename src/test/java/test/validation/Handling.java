@@ -0,0 +1,104 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.Node;
+import be.baur.sda.SDA;
+import be.baur.sda.util.Result;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.ValidationLimits;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import test.Test;
+
+public final class Handling {
+
+	/*
+	 * Passing errors to an error handler as they are found.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		// the handler receives the same errors, in the same order
+		Scenarios.compare(t, (validator, document) -> {
+			List<String> handled = new ArrayList<>();
+			boolean valid = validator.validate(document, e -> handled.add(e.toString()));
+			return Arrays.asList(handled.toString(), (valid == handled.isEmpty() && valid == validator.isValid(document))
+				? handled.toString() : "valid is " + valid);
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"contacts\" { node \"contact\" { occurs \"1..*\" "
+			+ "node \"name\" { type \"string\" } node \"address\" { node \"street\" { type \"string\" } "
+			+ "node \"number\" { type \"integer\" } node \"city\" { type \"string\" } node \"zip\" { type \"integer\" } "
+			+ "node \"state\" { type \"string\" } node \"country\" { type \"string\" } } } } }"));
+		StringBuilder sb = new StringBuilder("contacts {");
+		for (int i = 1; i <= 10000; i++) sb.append(" contact { name \"a\" "
+			+ "address { street \"Main\" number \"x\" city \"Springfield\" zip \"1234\" state \"IL\" country \"US\" } }");
+		DataNode document = SDA.parse(new StringReader(sb.append(" }").toString()));
+
+		// errors are not collected
+		Validator validator = schema.newValidator();
+		Errors[] ended = new Errors[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void endDocument(DataNode document, long nodes, Errors errors) { ended[0] = errors; }
+		});
+		long[] count = new long[1];
+		t.ts1("S01", validator.validate(document, e -> { ++count[0]; return true; }) + "", "false");
+		t.ts1("S02", count[0] + "", "10000");
+		t.ts1("S03", ended[0].size() + "", "0");
+
+		// the handler can abort validation
+		List<String> handled = new ArrayList<>();
+		validator.validate(document, e -> { handled.add(e.toString()); return handled.size() < 2; });
+		t.ts1("S04", handled.size() + "", "3");
+		t.ts1("S05", handled.get(1), "/contacts/contact[2]/address/number: value 'x' is invalid for type integer: For input string: \"x\"");
+		t.ts1("S06", handled.get(2), "/contacts/contact[2]/address/number: validation aborted; stopped by the error handler");
+
+		// so can the limits
+		ValidationLimits limits = new ValidationLimits();
+		limits.setMaxErrors(5);
+		validator.setLimits(limits);
+		handled.clear();
+		validator.validate(document, e -> handled.add(e.toString()));
+		t.ts1("S07", handled.size() + "", "6");
+		t.ts1("S08", handled.get(5), "/contacts/contact[5]/address/number: validation aborted; maximum of 5 errors reached");
+		validator.setLimits(null);
+
+		// handled errors are memoized like collected ones
+		int[] types = new int[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void enterType(DataNode node, Type type) { ++types[0]; }
+		});
+		String plain = validator.validate(document).toString();
+		int all = types[0]; types[0] = 0;
+		validator.setMemoization(100);
+		handled.clear();
+		validator.validate(document, e -> handled.add(e.toString()));
+		t.ts1("S09", handled.toString(), plain);
+		t.ts1("S10", types[0] < all / 2 ? "fewer" : types[0] + " of " + all, "fewer");
+		t.ts1("S11", validator.validate(SDA.parse(new StringReader("contacts { contact { name \"a\" address { street \"b\" "
+			+ "number \"1\" city \"c\" zip \"2\" state \"d\" country \"e\" } } }")), e -> false) + "", "true");
+
+		// stop at the first error
+		validator.setMemoization(0);
+		int[] errors = new int[1]; types[0] = 0;
+		validator.setListener(new ValidationListener() {
+			@Override public void enterType(DataNode node, Type type) { ++types[0]; }
+			@Override public void error(Result<Node> error) { ++errors[0]; }
+		});
+		t.ts1("S12", validator.isValid(document) + "", "false");
+		t.ts1("S13", errors[0] + " " + types[0], "1 6"); // up to the first number
+		t.ts1("S14", validator.isValid(SDA.parse(new StringReader("contacts { contact { name \"a\" address { street \"b\" "
+			+ "number \"1\" city \"c\" zip \"2\" state \"d\" country \"e\" } } }"))) + "", "true");
+	}
+}
@@ -0,0 +1,93 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.IncrementalValidation;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import test.Test;
+
+public final class Incremental {
+
+	/*
+	 * Revalidating a document after edits.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		// the initial outcome is that of a complete validation
+		Scenarios.compare(t, (validator, document) -> {
+			IncrementalValidation session = validator.validateIncrementally(document);
+			return Arrays.asList(session.getErrors().toString(), session.revalidate(document).toString());
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"orders\" { node \"order\" { occurs \"1..*\" "
+			+ "node \"id\" { type \"integer\" } node \"lines\" { node \"line\" { occurs \"1..*\" "
+			+ "node \"item\" { type \"string\" } node \"qty\" { type \"integer\" value \"[1..*)\" } } } } } }"));
+		StringBuilder sb = new StringBuilder("orders {");
+		for (int i = 1; i <= 200; i++) {
+			sb.append(" order { id \"").append(i).append("\" lines {");
+			for (int j = 1; j <= 5; j++) sb.append(" line { item \"x").append(j).append("\" qty \"").append(j).append("\" }");
+			sb.append(" } }");
+		}
+		DataNode document = SDA.parse(new StringReader(sb.append(" }").toString()));
+
+		Validator validator = schema.newValidator();
+		int[] types = new int[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void enterType(DataNode node, Type type) { ++types[0]; }
+		});
+		IncrementalValidation session = validator.validateIncrementally(document);
+		t.ts1("S01", session.getErrors().size() + "", "0");
+		t.ts1("S02", types[0] + "", "3601");
+
+		// change a value; only the path to the node and the siblings along it are matched
+		DataNode order = (DataNode) document.nodes().get(99);
+		DataNode line = (DataNode) ((DataNode) order.get("lines")).nodes().get(2);
+		DataNode qty = line.get("qty");
+		qty.setValue("0"); types[0] = 0;
+		t.ts1("S03", session.revalidate(qty).toString(), "[/orders/order[100]/lines/line[3]/qty: value '0' subceeds the minimum of 1]");
+		t.ts1("S04", types[0] + "", "210"); // 1 + 200 orders + 2 + 5 lines + 2
+		t.ts1("S05", session.getErrors().toString(), validator.validate(document).toString());
+
+		// other errors are retained, in document order
+		DataNode id = ((DataNode) document.nodes().get(9)).get("id");
+		id.setValue("ten");
+		t.ts1("S06", session.revalidate(id).toString(), validator.validate(document).toString());
+		t.ts1("S07", session.getErrors().size() + "", "2");
+
+		// rename a node, and add a node
+		line.setName("lime");
+		DataNode extra = new DataNode("extra", "");
+		order.add(extra);
+		t.ts1("S08", session.revalidate(line, order).toString(), validator.validate(document).toString());
+		t.ts1("S09", session.getErrors().size() + "", "3");
+
+		// undo all changes
+		line.setName("line"); qty.setValue("3"); id.setValue("10"); order.remove(extra);
+		t.ts1("S10", session.revalidate(line, qty, id, order, extra).toString(), "[]");
+		t.ts1("S11", session.revalidate().toString(), "[]");
+
+		// errors that were returned before do not change when they are replayed
+		id = ((DataNode) document.nodes().get(149)).get("id");
+		id.setValue("x");
+		Errors errors = session.revalidate(id);
+		String before = errors.toString();
+		DataNode first = (DataNode) document.nodes().get(0);
+		document.remove(first); document.add(first);
+		t.ts1("S12", session.revalidate(document).toString(),
+			"[/orders/order[149]/id: value 'x' is invalid for type integer: For input string: \"x\"]");
+		t.ts1("S13", errors.toString().equals(before) ? before : "changed",
+			"[/orders/order[150]/id: value 'x' is invalid for type integer: For input string: \"x\"]");
+	}
+}
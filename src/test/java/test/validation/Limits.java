@@ -0,0 +1,124 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.ResumableValidation;
+import be.baur.sds.validation.ValidationLimits;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import test.Test;
+
+public final class Limits {
+
+	/*
+	 * Aborting validation when a resource limit is exceeded.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"doll\" { type \"integer\" node { type \"doll\" occurs \"0..1\" } } "
+			+ "node \"items\" { node \"item\" { type \"integer\" occurs \"0..*\" } } }"));
+		Validator validator = schema.newValidator();
+
+		DataNode dolls = new DataNode("doll", "1"), doll = dolls;
+		for (int i = 2; i <= 1000; i++) {
+			DataNode inner = new DataNode("doll", String.valueOf(i));
+			doll.add(inner); doll = inner;
+		}
+		StringBuilder sb = new StringBuilder("items {");
+		for (int i = 0; i < 10000; i++) sb.append(" item \"").append(i % 1000 == 999 ? "x" : i).append("\"");
+		DataNode items = SDA.parse(new StringReader(sb.append(" }").toString()));
+
+		// no limits by default (the last doll lacks complex content)
+		Errors errors = validator.validate(dolls);
+		t.ts1("S01", errors.size() + " " + errors.isAborted(), "1 false");
+		t.ts1("S02", validator.validate(items).size() + "", "10");
+
+		ValidationLimits limits = new ValidationLimits();
+		limits.setMaxDepth(100);
+		validator.setLimits(limits);
+		errors = validator.validate(dolls);
+		t.ts1("S03", errors.size() + " " + errors.isAborted(), "1 true");
+		t.ts1("S04", errors.get(0).getMessage(), "validation aborted; maximum depth of 100 exceeded");
+		t.ts1("S05", errors.get(0).getValue().getName() + " " + ((DataNode) errors.get(0).getValue()).getValue(), "doll 101");
+		t.ts1("S06", validator.validate(items).isAborted() + "", "false");
+
+		limits = new ValidationLimits();
+		limits.setMaxNodes(5000);
+		validator.setLimits(limits);
+		errors = validator.validate(items);
+		t.ts1("S07", errors.toString(), "[/items: validation aborted; maximum of 5000 nodes exceeded]");
+		t.ts1("S08", validator.validate(dolls).isAborted() + "", "false");
+
+		limits = new ValidationLimits();
+		limits.setMaxValueLength(1024);
+		validator.setLimits(limits);
+		char[] big = new char[1 << 20]; Arrays.fill(big, '9');
+		doll.setValue(new String(big));
+		errors = validator.validate(dolls);
+		t.ts1("S09", errors.get(0).getMessage(), "validation aborted; value length of 1048576 exceeds the maximum of 1024");
+		doll.setValue("1000");
+
+		limits = new ValidationLimits();
+		limits.setMaxErrors(3);
+		validator.setLimits(limits);
+		errors = validator.validate(items);
+		t.ts1("S10", errors.size() + " " + errors.isAborted(), "4 true");
+		t.ts1("S11", errors.get(3).toString(), "/items/item[3000]: validation aborted; maximum of 3 errors reached");
+
+		// changing the limits after they were set has no effect
+		limits.setMaxErrors(100);
+		t.ts1("S12", validator.validate(items).size() + "", "4");
+
+		limits = new ValidationLimits();
+		limits.setTimeout(1, TimeUnit.MILLISECONDS);
+		validator.setLimits(limits);
+		int[] balance = new int[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void beginDocument(DataNode document) {
+				try { Thread.sleep(5); } catch (InterruptedException e) {}
+			}
+			@Override public void enterType(DataNode node, Type type) { ++balance[0]; }
+			@Override public void leaveType(DataNode node, Type type) { --balance[0]; }
+		});
+		errors = validator.validate(dolls);
+		t.ts1("S13", errors.toString(), "[/doll: validation aborted; timeout of 1 ms exceeded]");
+		limits.setTimeout(0, TimeUnit.MILLISECONDS); limits.setMaxDepth(500);
+		validator.setLimits(limits);
+		errors = validator.validate(dolls);
+		t.ts1("S14", errors.get(0).getMessage() + ", " + balance[0], "validation aborted; maximum depth of 500 exceeded, 0");
+
+		// interrupting the thread cancels validation
+		validator.setListener(null);
+		Thread.currentThread().interrupt();
+		errors = validator.validate(items);
+		t.ts1("S15", errors.toString(), "[/items: validation aborted; thread was interrupted]");
+		t.ts1("S16", Thread.interrupted() + "", "true");
+
+		// limits also apply to a resumable validation
+		limits = new ValidationLimits();
+		limits.setMaxErrors(2);
+		validator.setLimits(limits);
+		DataNode list = SDA.parse(new StringReader("items { item \"1\" }"));
+		ResumableValidation session = validator.validateResumably(list);
+		list.add(new DataNode("item", "a"));
+		list.add(new DataNode("item", "2"));
+		t.ts1("S17", session.resume().isAborted() + "", "false");
+		list.add(new DataNode("item", "b"));
+		list.add(new DataNode("item", "c"));
+		t.ts1("S18", session.resume().toString(), "[/items/item[2]: value 'a' is invalid for type integer: For input string: \"a\", "
+			+ "/items/item[4]: value 'b' is invalid for type integer: For input string: \"b\", "
+			+ "/items/item[4]: validation aborted; maximum of 2 errors reached]");
+	}
+}
@@ -0,0 +1,73 @@
+package test.validation;
+
+import java.io.StringReader;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.Component;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.validation.ValidationStatistics;
+import be.baur.sds.validation.ValidationStatistics.Counter;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Listening {
+
+	/*
+	 * Collecting statistics with a validation listener.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"order\" { node \"id\" { type \"integer\" } "
+			+ "choice { node \"a\" { type \"string\" } node \"b\" { type \"integer\" } } } }"));
+		Component order = schema.getGlobalType("order");
+		Component id = (Component) order.nodes().get(0);
+		Component choice = (Component) order.nodes().get(1);
+		Component b = (Component) choice.nodes().get(1);
+
+		Validator validator = schema.newValidator();
+		ValidationStatistics stats = new ValidationStatistics();
+		validator.setListener(stats);
+
+		DataNode document = SDA.parse(new StringReader("order { id \"1\" b \"2\" }"));
+		t.ts1("S01", validator.validate(document).isEmpty() + "", "true");
+		t.ts1("S02", count(stats.getCounter(order)), "1/0/0");
+		t.ts1("S03", count(stats.getCounter(id)), "1/0/1");
+		t.ts1("S04", count(stats.getCounter(choice)), "1/0/0");
+		t.ts1("S05", count(stats.getCounter(b)), "1/0/1");
+		t.ts1("S06", (stats.getCounter((Component) choice.nodes().get(0)) == null) + "", "true");
+
+		document = SDA.parse(new StringReader("order { id \"x\" b \"y\" }"));
+		t.ts1("F01", validator.validate(document).size() + "", "2");
+		t.ts1("F02", count(stats.getCounter(order)), "2/0/0");
+		t.ts1("F03", count(stats.getCounter(id)), "2/1/2");
+		t.ts1("F04", count(stats.getCounter(b)), "2/1/2");
+		t.ts1("F05", stats.getCounter(b).getInvalidValues() + "", "1");
+		t.ts1("F06", stats.getCounter(b).getErrorRate() + "", "0.5");
+
+		document = SDA.parse(new StringReader("order { id \"1\" c \"2\" }"));
+		t.ts1("F07", validator.validate(document).size() + "", "1");
+		t.ts1("F08", count(stats.getCounter(choice)), "3/0/0");
+		t.ts1("F09", stats.getCounter(choice).getMismatches() + "", "1");
+		t.ts1("F10", count(stats.getCounter(order)), "3/1/0");
+
+		// a missing choice is reported for the type that holds it
+		document = SDA.parse(new StringReader("order { id \"1\" }"));
+		t.ts1("F11", validator.validate(document).size() + "", "1");
+		t.ts1("F12", count(stats.getCounter(order)) + " " + count(stats.getCounter(choice)), "4/2/0 3/0/0");
+		
+		stats.reset(); validator.setListener(null);
+		validator.validate(document);
+		t.ts1("S07", stats.getCounters().isEmpty() + "", "true");
+	}
+
+	/** Returns count, errors and value checks of a counter, separated by a slash. */
+	private static String count(Counter c) {
+		return c.getCount() + "/" + c.getErrors() + "/" + c.getValueChecks();
+	}
+}
@@ -0,0 +1,63 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import test.Test;
+
+public final class Memoization {
+
+	/*
+	 * Reusing the outcome of validating identical subtrees.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		// memoization does not change the outcome of any scenario
+		Scenarios.compare(t, (validator, document) -> {
+			validator.setMemoization(1000);
+			return Arrays.asList(validator.validate(document).toString(), validator.validate(document).toString());
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"contacts\" { node \"contact\" { occurs \"1..*\" "
+			+ "node \"name\" { type \"string\" } node \"address\" { node \"street\" { type \"string\" } "
+			+ "node \"number\" { type \"integer\" } node \"city\" { type \"string\" } node \"zip\" { type \"integer\" } "
+			+ "node \"state\" { type \"string\" } node \"country\" { type \"string\" } node \"region\" { type \"string\" } } } } }"));
+		String address = "address { street \"Main\" number \"x\" city \"Springfield\" zip \"1234\" state \"IL\" country \"US\" region \"\" } ";
+		DataNode document = SDA.parse(new StringReader("contacts { contact { name \"a\" " + address + "} "
+			+ "contact { name \"b\" " + address + "} contact { name \"c\" " + address + "} }"));
+
+		Validator validator = schema.newValidator();
+		int[] types = new int[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void enterType(DataNode node, Type type) { ++types[0]; }
+		});
+		Errors plain = validator.validate(document);
+		int all = types[0]; types[0] = 0;
+
+		validator.setMemoization(100);
+		Errors memoized = validator.validate(document);
+		t.ts1("S01", memoized.toString(), plain.toString());
+		t.ts1("S02", memoized.get(1) + "", "/contacts/contact[2]/address/number: value 'x' is invalid for type integer: For input string: \"x\"");
+		t.ts1("S03", types[0] + "", "" + (all - 2 * 7)); // the content of two addresses is skipped
+		
+		types[0] = 0; // the second time, the entire document is memoized
+		t.ts1("S04", validator.validate(document).toString(), plain.toString());
+		t.ts1("S05", types[0] + "", "1");
+
+		validator.setMemoization(0);
+		types[0] = 0; validator.validate(document);
+		t.ts1("S06", types[0] + "", "" + all);
+	}
+}
@@ -0,0 +1,59 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.TabularData;
+
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.validation.ValidationMonitor;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Monitoring {
+
+	/*
+	 * Publishing validation statistics through JMX.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		ValidationMonitor monitor = new ValidationMonitor();
+		Validator validator = monitor.timed(() -> SDS.parse(new StringReader(
+			"schema { node \"greeting\" { node \"message\" { type \"string\" } } }"))).load().newValidator();
+		validator.setListener(monitor);
+
+		validator.validate(SDA.parse(new StringReader("greeting { message \"hello\" }")));
+		validator.validate(SDA.parse(new StringReader("greeting { text \"hello\" }")));
+		validator.validate(SDA.parse(new StringReader("message \"hello\"")));
+
+		ObjectName name = monitor.register("monitoring test");
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+		t.ts1("S01", name.toString(), "be.baur.sds:type=ValidationMonitor,name=\"monitoring test\"");
+		t.ts1("S02", server.getAttribute(name, "DocumentsValidated") + "", "3");
+		t.ts1("S03", server.getAttribute(name, "NodesValidated") + "", "3");
+		t.ts1("S04", server.getAttribute(name, "ErrorCount") + "", "2");
+		t.ts1("S05", server.getAttribute(name, "SchemaLoadCount") + "", "1");
+		t.ts1("S06", ((Double) server.getAttribute(name, "LatencyP99Millis") > 0) + "", "true");
+		t.ts1("S07", (monitor.getLatencyP50Millis() <= monitor.getLatencyP99Millis()) + "", "true");
+		t.ts1("S08", (monitor.getLatencyP99Millis() <= monitor.getLatencyMaxMillis()) + "", "true");
+
+		TabularData templates = (TabularData) server.getAttribute(name, "ErrorCountsByTemplate");
+		t.ts1("S09", templates.size() + "", "2");
+		t.ts1("S10", monitor.getErrorCountsByTemplate().toString(), 
+			"{got '%s', but %s was expected=1, no declaration for '%s' found=1}");
+
+		server.invoke(name, "reset", null, null);
+		t.ts1("S11", monitor.getDocumentsValidated() + "/" + monitor.getErrorCountsByTemplate().size(), "0/0");
+		
+		monitor.unregister();
+		t.ts1("S12", server.isRegistered(name) + "", "false");
+	}
+}
@@ -0,0 +1,77 @@
+package test.validation;
+
+import java.io.StringReader;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Pruning {
+
+	/*
+	 * Skipping the subtree of a node with content errors.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"orders\" { node \"order\" { occurs \"1..*\" "
+			+ "node \"id\" { type \"integer\" } node \"lines\" { node \"line\" { occurs \"1..*\" "
+			+ "node \"item\" { type \"string\" } node \"qty\" { type \"integer\" value \"[1..*)\" } } } } } }"));
+		DataNode document = SDA.parse(new StringReader("orders { "
+			+ "order { id \"1\" lines { line { item \"a\" qty \"0\" } } bogus \"x\" } "
+			+ "order { id \"2\" lines { line { item \"b\" qty \"0\" } } } "
+			+ "order { lines { line { item \"c\" qty \"0\" } } id \"3\" } }"));
+
+		Validator validator = schema.newValidator();
+		int[] types = new int[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void enterType(DataNode node, Type type) { ++types[0]; }
+		});
+		t.ts1("S01", validator.validate(document).size() + " " + types[0], "4 14");
+
+		// the content of the first and last order is wrong, so their lines are skipped
+		validator.setPruning(1); types[0] = 0;
+		t.ts1("S02", validator.validate(document).toString(), "[/orders/order[1]/bogus: 'bogus' was not expected in 'order', "
+			+ "/orders/order[2]/lines/line/qty: value '0' subceeds the minimum of 1, "
+			+ "/orders/order[3]/lines: got 'lines', but 'id' was expected]");
+		t.ts1("S03", types[0] + "", "9");
+
+		// a single content error is not enough
+		validator.setPruning(2);
+		t.ts1("S04", validator.validate(document).size() + "", "4");
+
+		// errors in the subtree count as well, but not those of a pruned child node
+		StringBuilder sb = new StringBuilder("orders {");
+		for (int i = 1; i <= 2; i++) {
+			sb.append(" order { id \"").append(i).append("\" lines {");
+			for (int j = 1; j <= 5; j++) sb.append(" line { item \"a\" qty \"0\" }");
+			sb.append(" } }");
+		}
+		DataNode lines = SDA.parse(new StringReader(sb.append(" }").toString()));
+		validator.setPruning(0);
+		t.ts1("S05", validator.validate(lines).size() + "", "10");
+		validator.setPruning(3);
+		t.ts1("S06", validator.validate(lines).size() + "", "6");
+		validator.setPruning(4);
+		t.ts1("S07", validator.validate(lines).toString().replaceAll("/orders/order\\[(\\d)\\]/lines/line\\[(\\d)\\][^,\\]]*", "$1.$2"), "[1.1, 1.2, 1.3, 1.4, 2.1, 2.2, 2.3, 2.4]");
+
+		// memoized outcomes are discarded
+		validator.setPruning(0); validator.setMemoization(100);
+		sb = new StringBuilder("orders {");
+		for (int i = 1; i <= 100; i++) sb.append(" order { id \"1\" lines { line { item \"a\" qty \"0\" } line { item \"a\" qty \"0\" } } bogus \"x\" }");
+		DataNode batch = SDA.parse(new StringReader(sb.append(" }").toString()));
+		t.ts1("S08", validator.validate(batch).size() + "", "300");
+		validator.setPruning(1);
+		t.ts1("S09", validator.validate(batch).size() + "", "100");
+		validator.setPruning(0);
+		t.ts1("S10", validator.validate(batch).size() + "", "300");
+	}
+}
@@ -0,0 +1,64 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.validation.ReloadableValidator;
+import be.baur.sds.validation.SchemaSource;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Reloading {
+
+	/*
+	 * Reloading a schema and swapping the validator.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Path file = Files.createTempFile("reloading", ".sds");
+		Files.write(file, "schema { node \"greeting\" { node \"message\" { type \"string\" } } }".getBytes(StandardCharsets.UTF_8));
+
+		DataNode document = SDA.parse(new StringReader("greeting { text \"hello world\" }"));
+
+		ReloadableValidator handle = new ReloadableValidator(SchemaSource.of(file), null);
+		Validator old = handle.get();
+
+		t.ts1("S01", handle.validate(document).get(0) + "", "/greeting/text: got 'text', but 'message' was expected");
+		t.ts1("S02", handle.reload() + "", "false");
+
+		Files.write(file, "schema { node \"greeting\" { node \"text\" { type \"string\" } } }".getBytes(StandardCharsets.UTF_8));
+		t.ts1("S03", handle.reload(true) + "", "true");
+		t.ts1("S04", handle.validate(document).isEmpty() + "", "true");
+		t.ts1("S05", (handle.get() != old) + "", "true");
+		t.ts1("S06", old.validate(document).isEmpty() + "", "false");
+
+		Files.write(file, "schema { node \"greeting\" { invalid } }".getBytes(StandardCharsets.UTF_8));
+		try {
+			handle.reload(true);
+			t.ts1("F01", "no exception", "exception");
+		} catch (Exception e) {
+			t.ts1("F01", "exception", "exception");
+		}
+		t.ts1("F02", handle.validate(document).isEmpty() + "", "true");
+
+		// the watcher detects an edit that does not change the size of the file
+		Files.write(file, "schema { node \"greeting\" { node \"text\" { type \"string\" } } }".getBytes(StandardCharsets.UTF_8));
+		handle.watch(10, TimeUnit.MILLISECONDS);
+		Validator before = handle.get();
+		Files.write(file, "schema { node \"greeting\" { node \"note\" { type \"string\" } } }".getBytes(StandardCharsets.UTF_8));
+		for (int i = 0; i < 500 && handle.get() == before; i++) Thread.sleep(10);
+		handle.close();
+		t.ts1("S07", handle.validate(document).toString(), "[/greeting/text: got 'text', but 'note' was expected]");
+
+		Files.delete(file);
+	}
+}
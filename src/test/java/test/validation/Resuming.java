@@ -0,0 +1,108 @@
+package test.validation;
+
+import java.io.StringReader;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.Type;
+import be.baur.sds.validation.ResumableValidation;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class Resuming {
+
+	/*
+	 * Resuming validation of a growing document.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"log\" { node \"source\" { type \"string\" } "
+			+ "node \"entry\" { occurs \"0..*\" node \"level\" { type \"string\" pattern \"INFO|WARN|ERROR\" } "
+			+ "node \"message\" { type \"string\" } node \"detail\" { occurs \"0..*\" type \"string\" } } "
+			+ "node \"end\" { occurs \"0..1\" type \"string\" } } }"));
+		Validator validator = schema.newValidator();
+		int[] types = new int[1];
+		validator.setListener(new ValidationListener() {
+			@Override public void enterType(DataNode node, Type type) { ++types[0]; }
+		});
+
+		DataNode log = SDA.parse(new StringReader("log { }"));
+		ResumableValidation session = validator.validateResumably(log);
+		t.ts1("S01", session.getErrors().toString(), "[/log: content missing at end of 'log'; expected 'source']");
+
+		log.add(new DataNode("source", "app"));
+		t.ts1("S02", session.resume().toString(), "[]");
+
+		for (int i = 0; i < 500; i++) log.add(entry(i % 100 == 42 ? "DEBUG" : "INFO", "message " + i));
+		t.ts1("S03", session.resume().toString(), validator.validate(log).toString());
+		t.ts1("S04", session.getErrors().size() + "", "5");
+
+		// only the appended entries are validated, plus the path to the last node
+		types[0] = 0;
+		for (int i = 0; i < 10; i++) log.add(entry("WARN", "more " + i));
+		session.resume();
+		t.ts1("S05", types[0] + "", "34"); // the root, 10 completed entries and the last one, 3 nodes each
+		t.ts1("S06", session.getErrors().toString(), validator.validate(log).toString());
+
+		// the last entry grows
+		DataNode last = entry("ERROR", null);
+		log.add(last);
+		t.ts1("S07", session.resume().toString(), validator.validate(log).toString());
+		t.ts1("S08", session.getErrors().get(5).toString(), "/log/entry[511]: content missing at end of 'entry'; expected 'message'");
+		last.add(new DataNode("message", "boom"));
+		last.add(new DataNode("detail", "first"));
+		t.ts1("S09", session.resume().toString(), validator.validate(log).toString());
+		last.add(new DataNode("detail", "second"));
+		t.ts1("S10", session.resume().toString(), validator.validate(log).toString());
+		t.ts1("S11", session.getErrors().size() + "", "5");
+
+		// content after the end is not expected
+		log.add(new DataNode("end", ""));
+		t.ts1("S12", session.resume().toString(), validator.validate(log).toString());
+		log.add(entry("INFO", "late"));
+		log.add(entry("INFO", "later"));
+		t.ts1("S13", session.resume().toString(), validator.validate(log).toString());
+		t.ts1("S14", session.getErrors().get(5).toString(), "/log/entry[512]: 'entry' was not expected in 'log'");
+
+		// a content model with model groups is validated from the start
+		schema = SDS.parse(new StringReader("schema { node \"log\" { choice { node \"a\" { type \"string\" } "
+			+ "node \"b\" { type \"integer\" } occurs \"1..*\" } } }"));
+		validator = schema.newValidator();
+		log = SDA.parse(new StringReader("log { a \"x\" }"));
+		session = validator.validateResumably(log);
+		log.add(new DataNode("b", "y"));
+		log.add(new DataNode("a", "z"));
+		t.ts1("S15", session.resume().toString(), validator.validate(log).toString());
+
+		// the document node does not match
+		validator.setTypeName("log");
+		session = validator.validateResumably(SDA.parse(new StringReader("gol { }")));
+		t.ts1("S16", session.resume().toString(), "[/gol: got 'gol', but 'log' was expected]");
+
+		// an empty entry is appended first, and gets its child nodes later
+		validator = SDS.parse(new StringReader("schema { node \"log\" { node \"entry\" { occurs \"0..*\" "
+			+ "node \"message\" { type \"string\" } } } }")).newValidator();
+		log = SDA.parse(new StringReader("log { entry { message \"first\" } }"));
+		session = validator.validateResumably(log);
+		DataNode empty = new DataNode("entry");
+		log.add(empty);
+		t.ts1("S17", session.resume().toString(), validator.validate(log).toString());
+		empty.add(new DataNode("message", "second"));
+		t.ts1("S18", session.resume().toString(), validator.validate(log).toString());
+		t.ts1("S19", session.getErrors().toString(), "[]");
+	}
+
+	private static DataNode entry(String level, String message) {
+		DataNode entry = new DataNode("entry");
+		entry.add(new DataNode("level", level));
+		if (message != null) entry.add(new DataNode("message", message));
+		return entry;
+	}
+}
@@ -53,5 +53,24 @@ public final class RussianDolls {
 		//for (be.baur.sds.validation.Error error : errors) System.out.println(error.toString());
 
 		t.ts1("S03", errors.isEmpty() ? "" : errors.get(0).toString(), "");
+		
+		// nesting is not limited by the Java stack
+		sds = RussianDolls.class.getResourceAsStream("/russiandolls.sds");
+		validator = SDS.parse(new InputStreamReader(sds, "UTF-8")).newValidator();
+		document = new DataNode("russian_dolls");
+		DataNode doll = document;
+		for (int i = 1; i <= 200000; i++) {
+			DataNode inner = new DataNode("doll", String.valueOf(i));
+			doll.add(inner); doll = inner;
+		}
+		doll.setValue("0"); doll.add(new DataNode("teddy", ""));
+
+		errors = validator.validate(document);
+		t.ts1("S04", errors.size() + "", "2");
+		t.ts1("S05", errors.get(0).getMessage() + ", " + errors.get(1).getMessage(), 
+			"'teddy' was not expected in 'doll', value '0' subceeds the minimum of 1");
+		
+		validator.setMemoization(16);
+		t.ts1("S06", validator.validate(document).size() + "", "2");
 	}
 }
@@ -0,0 +1,61 @@
+package test.validation;
+
+import java.io.InputStreamReader;
+import java.util.List;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.validation.Validator;
+import samples.types.GMonthDayType;
+import samples.types.IBANType;
+import test.Test;
+
+/** The validation scenarios, to check that a way of validating does not change their outcome. */
+final class Scenarios {
+
+	private static final String[][] SCENARIOS = {
+		{ "addressbook.sds", "addressbook.sda" }, { "contacts.sds", "contacts.sda" },
+		{ "russiandolls.sds", "russiandolls.sda" }, { "choices.sds", "mgtest.sda" }, { "groups.sds", "mgtest.sda" },
+		{ "unordered.sds", "mgtest.sda" }, { "cartesian.sds", "cartesian.sda" }
+	};
+
+
+	/** A way of validating a document, which returns the errors of one or more validations. */
+	interface Variant {
+		List<String> validate(Validator validator, DataNode document) throws Exception;
+	}
+
+
+	private Scenarios() {}
+
+
+	/** Registers the custom data types used by the scenarios, unless already registered. */
+	static void register() {
+		if (! Schema.isDataType(IBANType.NAME)) Schema.registerDataType(IBANType.NAME, IBANType::new);
+		if (! Schema.isDataType(GMonthDayType.NAME)) Schema.registerDataType(GMonthDayType.NAME, GMonthDayType::new);
+	}
+
+
+	/**
+	 * Validates the document of every scenario with a new validator, and then
+	 * in the specified way, and tests that the errors are the same every time.
+	 * The tests are numbered C01, C02 and so on.
+	 */
+	static void compare(Test t, Variant variant) throws Exception {
+
+		register();
+		for (int i = 0; i < SCENARIOS.length; i++) {
+			Validator validator = SDS.parse(new InputStreamReader(
+				Scenarios.class.getResourceAsStream("/" + SCENARIOS[i][0]), "UTF-8")).newValidator();
+			DataNode document = SDA.parse(new InputStreamReader(
+				Scenarios.class.getResourceAsStream("/" + SCENARIOS[i][1]), "UTF-8"));
+
+			String plain = validator.validate(document).toString(), result = "same";
+			for (String errors : variant.validate(validator, document))
+				if (! errors.equals(plain)) result = "different:\n" + plain + "\n" + errors;
+			t.ts1(String.format("C%02d", i + 1), result, "same");
+		}
+	}
+}
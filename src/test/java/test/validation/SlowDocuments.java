@@ -0,0 +1,63 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.util.List;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.validation.SlowDocumentLog;
+import be.baur.sds.validation.SlowDocumentLog.Entry;
+import be.baur.sds.validation.ValidationListener;
+import be.baur.sds.validation.ValidationMonitor;
+import be.baur.sds.validation.Validator;
+import test.Test;
+
+public final class SlowDocuments {
+
+	/*
+	 * Keeping the slowest validations in a bounded log.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"doll\" { type \"string\" "
+			+ "node { type \"doll\" occurs \"0..1\" } } }"));
+		Validator validator = schema.newValidator();
+		SlowDocumentLog log = new SlowDocumentLog(2), all = new SlowDocumentLog(10);
+		ValidationMonitor monitor = new ValidationMonitor();
+		validator.setListener(ValidationListener.of(log, all, monitor));
+
+		for (int depth : new int[] {1, 20, 3, 2}) 
+			validator.validate(dolls(depth));
+
+		List<Entry> entries = log.getEntries();
+		t.ts1("S01", entries.size() + "", "2");
+		t.ts1("S02", monitor.getDocumentsValidated() + "", "4");
+		t.ts1("S03", (entries.get(0).getNanos() >= entries.get(1).getNanos()) + "", "true");
+		
+		Entry deep = all.getEntries().stream().filter(e -> e.getNodes() == 20).findFirst().orElse(null);
+		t.ts1("S04", (deep != null) + "", "true");
+		t.ts1("S05", deep.getRootType() + " " + deep.getDepth() + " " + deep.getErrors(), "doll 20 0");
+		t.ts1("S06", deep.getDeepestPath().split("/").length + "", "21");
+		t.ts1("S07", (deep.getSlowestPath() != null && deep.getSlowestNanos() >= 0) + "", "true");
+		t.ts1("S08", log.toString().split(System.lineSeparator()).length + "", "2");
+
+		log.clear();
+		t.ts1("S09", log.getEntries().size() + "", "0");
+		validator.validate(SDA.parse(new StringReader("doll { bear \"\" }")));
+		t.ts1("F01", log.getEntries().get(0).getErrors() + "", "1");
+	}
+
+	/** Returns a nest of dolls of the specified depth. */
+	private static DataNode dolls(int depth) throws Exception {
+		StringBuilder sb = new StringBuilder();
+		for (int i = 0; i < depth; i++) sb.append("doll \"").append(i).append("\" { ");
+		for (int i = 0; i < depth; i++) sb.append("} ");
+		return SDA.parse(new StringReader(sb.toString()));
+	}
+}
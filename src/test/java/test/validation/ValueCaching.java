@@ -0,0 +1,58 @@
+package test.validation;
+
+import java.io.StringReader;
+import java.util.Arrays;
+
+import be.baur.sda.DataNode;
+import be.baur.sda.SDA;
+import be.baur.sds.SDS;
+import be.baur.sds.Schema;
+import be.baur.sds.validation.Validator;
+import be.baur.sds.validation.Validator.Errors;
+import test.Test;
+
+public final class ValueCaching {
+
+	/*
+	 * Caching the outcome of validating values.
+	 */
+	public static void main(String[] args) throws Exception {
+
+		Test t = new Test(s -> {
+			return s;
+		});
+
+		// value caching does not change the outcome of any scenario
+		Scenarios.compare(t, (validator, document) -> {
+			validator.setValueCaching(true);
+			return Arrays.asList(validator.validate(document).toString(), validator.validate(document).toString());
+		});
+
+		Schema schema = SDS.parse(new StringReader("schema { node \"orders\" { node \"order\" { occurs \"1..*\" "
+			+ "node \"country\" { type \"string\" pattern \"[A-Z]{2}\" } node \"amount\" { type \"integer\" value \"[1..*)\" } } } }"));
+		StringBuilder sb = new StringBuilder("orders {");
+		String[] countries = {"BE", "NL", "be", "FR"};
+		for (int i = 0; i < 3000; i++)
+			sb.append(" order { country \"").append(countries[i % 4]).append("\" amount \"").append(i % 7).append("\" }");
+		DataNode document = SDA.parse(new StringReader(sb.append(" }").toString()));
+
+		Validator validator = schema.newValidator();
+		Errors plain = validator.validate(document);
+		validator.setValueCaching(true);
+		Errors cached = validator.validate(document);
+
+		t.ts1("S01", cached.size() + "", plain.size() + "");
+		t.ts1("S02", cached.toString(), plain.toString());
+		t.ts1("S03", cached.get(0) + "", "/orders/order[1]/amount: value '0' subceeds the minimum of 1");
+		t.ts1("S04", cached.get(cached.size() - 1) + "", "/orders/order[2999]/country: value 'be' does not match pattern '[A-Z]{2}'");
+
+		// unique values make the cache disable itself, without changing the outcome
+		sb = new StringBuilder("orders {");
+		for (int i = 0; i < 5000; i++) sb.append(" order { country \"BE\" amount \"").append(i - 1).append("\" }");
+		document = SDA.parse(new StringReader(sb.append(" }").toString()));
+		validator.setValueCaching(false);
+		plain = validator.validate(document);
+		validator.setValueCaching(true);
+		t.ts1("S05", validator.validate(document).toString(), plain.toString());
+	}
+}